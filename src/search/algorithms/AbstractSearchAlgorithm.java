@@ -1,6 +1,7 @@
 package search.algorithms;
 
 import java.util.List;
+import java.util.Map;
 
 import search.goals.GoalTest;
 import search.heuristics.Heuristic;
@@ -27,6 +28,35 @@ public abstract class AbstractSearchAlgorithm<S extends State> {
 	/** A heuristic; estimates cost to reach the goal (if appropriate). */
 	private Heuristic<S> heuristic;
 
+	/** The number of search steps between checks of the clock. */
+	private static final int CLOCK_CHECK_INTERVAL = 1024;
+	/** The listener used when none is attached; it ignores every event. */
+	private static final SearchListener<?> NO_LISTENER =
+			new SearchListenerAdapter<State>();
+
+	/** The limits on the resources the search may use. */
+	private SearchLimits limits = SearchLimits.NONE;
+	/** The handle the search is created with. */
+	private final CancelHandle ownHandle = new CancelHandle();
+	/** A handle which may be used to cancel the search. */
+	private CancelHandle cancelHandle = ownHandle;
+	/** The outcome of the last search, or its progress. */
+	private SearchStatus status = SearchStatus.NOT_RUN;
+	/** The number of search steps taken by the last search. */
+	private long expansions;
+	/** The time by which the search must finish, from System.nanoTime(). */
+	private long deadline;
+	/** The number of search steps until the clock is next checked. */
+	private int clockCountdown;
+	/** The number of states held in memory, as of the last step. */
+	private long storedStates;
+	/** The number of states waiting to be expanded, as of the last step. */
+	private long openStates;
+	/** Counts the work done by the last search. */
+	private final SearchStatistics statistics = new SearchStatistics();
+	/** Observes the search. */
+	private SearchListener<S> listener = noListener();
+
 	/**
 	 * Constructor; stores the inputs for the search.
 	 * 
@@ -99,13 +129,460 @@ public abstract class AbstractSearchAlgorithm<S extends State> {
 		return heuristic;
 	}
 
+	/**
+	 * Sets the limits on the resources the search may use; these apply to
+	 * each subsequent call to search().
+	 * 
+	 * @param limits
+	 *            the limits.
+	 */
+	public void setLimits(SearchLimits limits) {
+		this.limits = limits;
+	}
+
+	/**
+	 * Returns the limits on the resources the search may use.
+	 * 
+	 * @return the limits.
+	 */
+	public SearchLimits getLimits() {
+		return limits;
+	}
+
+	/**
+	 * Sets the handle used to cancel the search; a single handle may be shared
+	 * by several searches in order to cancel them together. Unlike the
+	 * search's own handle, a handle set here is never reset, so once it has
+	 * been cancelled every later search using it stops straight away; a new
+	 * handle must be set to run the search again.
+	 * 
+	 * @param cancelHandle
+	 *            the cancel handle, or null to go back to the search's own.
+	 */
+	public void setCancelHandle(CancelHandle cancelHandle) {
+		if (cancelHandle == null) {
+			cancelHandle = ownHandle;
+		}
+		this.cancelHandle = cancelHandle;
+	}
+
+	/**
+	 * Returns the handle used to cancel the search; cancelling it from any
+	 * thread will cause the search to stop. Unless another handle has been
+	 * set, this is the search's own handle, which is reset when a
+	 * cancellation stops the search, so that the search can be run again; a
+	 * cancellation made while no search is running stops the next one.
+	 * 
+	 * @return the cancel handle.
+	 */
+	public CancelHandle getCancelHandle() {
+		return cancelHandle;
+	}
+
+	/**
+	 * Returns the listener used when none is attached.
+	 * 
+	 * @return a listener which ignores every event.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <S extends State> SearchListener<S> noListener() {
+		return (SearchListener<S>) NO_LISTENER;
+	}
+
+	/**
+	 * Attaches a listener to observe the search; null detaches it. When no
+	 * listener is attached, the events cost no more than a comparison.
+	 * 
+	 * @param listener
+	 *            the listener.
+	 */
+	public void setSearchListener(SearchListener<S> listener) {
+		this.listener = listener == null ? AbstractSearchAlgorithm
+				.<S> noListener() : listener;
+	}
+
+	/**
+	 * Returns the listener observing the search.
+	 * 
+	 * @return the listener, or null if none is attached.
+	 */
+	public SearchListener<S> getSearchListener() {
+		return listener == NO_LISTENER ? null : listener;
+	}
+
+	/**
+	 * Returns the outcome of the last search, or its progress if it is still
+	 * running.
+	 * 
+	 * @return the status of the search.
+	 */
+	public SearchStatus getStatus() {
+		return status;
+	}
+
+	/**
+	 * Returns the number of search steps taken by the last search, which is
+	 * the number of states taken from the queue or expanded.
+	 * 
+	 * @return the number of search steps taken.
+	 */
+	public long getExpansions() {
+		return expansions;
+	}
+
+	/**
+	 * Returns the number of states held in memory by the search, as of its
+	 * last step; a listener may read this while the search runs.
+	 * 
+	 * @return the number of states stored.
+	 */
+	public long getStoredStates() {
+		return storedStates;
+	}
+
+	/**
+	 * Returns the number of states waiting to be expanded, as of the last
+	 * step of the search; this is zero for searches that do not keep them
+	 * apart from the others.
+	 * 
+	 * @return the size of the open list.
+	 */
+	public long getOpenStates() {
+		return openStates;
+	}
+
+	/**
+	 * Returns the work done by the last search, or so far if it is still
+	 * running.
+	 * 
+	 * @return a copy of the statistics of the search.
+	 */
+	public SearchStatistics getStatistics() {
+		SearchStatistics copy = new SearchStatistics(statistics);
+		copy.expanded = expansions;
+		if (status == SearchStatus.RUNNING) {
+			copy.elapsedNanos = System.nanoTime() - statistics.startNanos;
+		}
+		return copy;
+	}
+
+	/**
+	 * Should be called by search() when it starts; this resets the status and
+	 * the counters used to enforce the limits.
+	 */
+	protected final void beginSearch() {
+		beginSearch(0);
+	}
+
+	/**
+	 * Should be called when a search starts or is resumed; this resets the
+	 * status and the counters used to enforce the limits. The statistics are
+	 * reset only when starting afresh; when resuming, those of the run that
+	 * was interrupted are kept, so that they stay in line with the number of
+	 * steps, and the clock carries on from the time already taken.
+	 * 
+	 * @param expansions
+	 *            the number of steps already taken, if the search is being
+	 *            resumed from a checkpoint.
+	 */
+	protected final void beginSearch(long expansions) {
+		status = SearchStatus.RUNNING;
+		this.expansions = expansions;
+		storedStates = 0;
+		openStates = 0;
+		if (expansions == 0) {
+			statistics.reset();
+		} else {
+			statistics.resume();
+		}
+		if (listener != NO_LISTENER) {
+			listener.searchStarted(this);
+		}
+		clockCountdown = CLOCK_CHECK_INTERVAL;
+		long timeLimit = limits.getTimeLimitNanos();
+		if (timeLimit == SearchLimits.UNLIMITED) {
+			deadline = Long.MAX_VALUE;
+		} else {
+			deadline = System.nanoTime() + timeLimit;
+		}
+	}
+
+	/**
+	 * Should be called by search() for each step it takes. This counts the
+	 * steps, and checks whether the search has been cancelled or has reached
+	 * one of its limits; if so, the status is set accordingly and the search
+	 * should stop straight away. The clock is only checked once every few
+	 * steps, so that this is cheap enough to call in the innermost loop.
+	 * 
+	 * @param steps
+	 *            the number of steps taken since the last call; usually 1.
+	 * @param storedStates
+	 *            the number of states currently held in memory.
+	 * @return true if the search may continue, and false if it must stop.
+	 */
+	protected final boolean withinBudget(long steps, long storedStates) {
+		expansions += steps;
+		this.storedStates = storedStates;
+		if (storedStates > statistics.peakStored) {
+			statistics.peakStored = storedStates;
+		}
+		if (listener != NO_LISTENER) {
+			listener.budgetChecked(this, expansions);
+		}
+		if (cancelHandle.isCancelled()) {
+			setStatus(SearchStatus.CANCELLED);
+			return false;
+		}
+		if (expansions > limits.getMaxExpansions()
+				|| storedStates > limits.getMaxStoredStates()) {
+			setStatus(SearchStatus.BUDGET_EXHAUSTED);
+			return false;
+		}
+		clockCountdown -= steps;
+		if (clockCountdown <= 0) {
+			clockCountdown = CLOCK_CHECK_INTERVAL;
+			if (deadline != Long.MAX_VALUE
+					&& System.nanoTime() - deadline > 0) {
+				setStatus(SearchStatus.BUDGET_EXHAUSTED);
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * As withinBudget(long, long), for searches which keep the states waiting
+	 * to be expanded apart from those already expanded; the peak size of each
+	 * is also recorded.
+	 * 
+	 * @param steps
+	 *            the number of steps taken since the last call; usually 1.
+	 * @param openStates
+	 *            the number of states waiting to be expanded.
+	 * @param closedStates
+	 *            the number of expanded states held in memory.
+	 * @return true if the search may continue, and false if it must stop.
+	 */
+	protected final boolean withinBudget(long steps, long openStates,
+			long closedStates) {
+		this.openStates = openStates;
+		if (openStates > statistics.peakOpen) {
+			statistics.peakOpen = openStates;
+		}
+		if (closedStates > statistics.peakClosed) {
+			statistics.peakClosed = closedStates;
+		}
+		return withinBudget(steps, openStates + closedStates);
+	}
+
+	/**
+	 * Should be called by search() when it concludes, unless it stopped
+	 * because withinBudget() returned false.
+	 * 
+	 * @param found
+	 *            true if a goal was found, and false if there is none.
+	 */
+	protected final void endSearch(boolean found) {
+		setStatus(found ? SearchStatus.GOAL_FOUND : SearchStatus.NO_SOLUTION);
+	}
+
+	/**
+	 * Sets the status directly; this is for searches that run other searches
+	 * in turn and pass on their outcome.
+	 * 
+	 * @param status
+	 *            the new status.
+	 */
+	protected final void setStatus(SearchStatus status) {
+		this.status = status;
+		if (status == SearchStatus.CANCELLED && cancelHandle == ownHandle) {
+			ownHandle.reset();
+		}
+		if (status != SearchStatus.RUNNING) {
+			statistics.elapsedNanos = System.nanoTime()
+					- statistics.startNanos;
+			if (listener != NO_LISTENER) {
+				listener.searchFinished(this, status);
+			}
+		}
+	}
+
+	/**
+	 * Counts steps taken on behalf of this search, e.g. by other searches
+	 * that it runs, without checking the limits; withinBudget() should still
+	 * be called before the search goes on.
+	 * 
+	 * @param steps
+	 *            the number of steps taken.
+	 */
+	protected final void addSteps(long steps) {
+		expansions += steps;
+	}
+
+	/**
+	 * Tells the listener that a state is being expanded.
+	 * 
+	 * @param state
+	 *            the state.
+	 * @param depth
+	 *            the depth of the state.
+	 */
+	protected final void notifyExpanded(S state, int depth) {
+		if (listener != NO_LISTENER) {
+			listener.stateExpanded(this, state, depth);
+		}
+	}
+
+	/**
+	 * Tells the listener that a state is being expanded by another search
+	 * run as part of this one; the number of states held in memory, as seen
+	 * by the listener, is taken from that search.
+	 * 
+	 * @param part
+	 *            the search doing the expansion.
+	 * @param state
+	 *            the state.
+	 * @param depth
+	 *            the depth of the state.
+	 */
+	protected final void notifyExpanded(AbstractSearchAlgorithm<S> part,
+			S state, int depth) {
+		if (listener != NO_LISTENER) {
+			storedStates = part.storedStates;
+			openStates = part.openStates;
+			listener.stateExpanded(this, state, depth);
+		}
+	}
+
+	/**
+	 * Tells the listener that another search, run as part of this one, has
+	 * checked its limits; the steps taken by that search are added to those
+	 * of this one, and the number of states held in memory is taken from it.
+	 * 
+	 * @param part
+	 *            the search checking its limits.
+	 * @param partExpansions
+	 *            the number of steps taken so far by that search.
+	 */
+	protected final void notifyBudgetChecked(AbstractSearchAlgorithm<S> part,
+			long partExpansions) {
+		if (listener != NO_LISTENER) {
+			storedStates = part.storedStates;
+			openStates = part.openStates;
+			listener.budgetChecked(this, expansions + partExpansions);
+		}
+	}
+
+	/**
+	 * Tells the listener that an iteration of the search is starting.
+	 * 
+	 * @param bound
+	 *            the bound of the iteration, e.g. its depth limit.
+	 */
+	protected final void notifyIterationStarted(double bound) {
+		if (listener != NO_LISTENER) {
+			listener.iterationStarted(this, bound);
+		}
+	}
+
+	/**
+	 * Tells the listener that an iteration of the search has finished.
+	 * 
+	 * @param bound
+	 *            the bound of the iteration, e.g. its depth limit.
+	 * @param expansions
+	 *            the number of steps taken by the iteration.
+	 */
+	protected final void notifyIterationFinished(double bound,
+			long expansions) {
+		if (listener != NO_LISTENER) {
+			listener.iterationFinished(this, bound, expansions);
+		}
+	}
+
+	/**
+	 * Returns the successors of a state from the successor function, counting
+	 * them as generated; searches should use this to expand states.
+	 * 
+	 * @param s
+	 *            the state to expand.
+	 * @return a mapping of the successors to the costs of reaching them.
+	 */
+	protected final Map<S, Double> successorsOf(S s) {
+		Map<S, Double> successors = sf.getSuccessors(s);
+		statistics.generated += successors.size();
+		return successors;
+	}
+
+	/**
+	 * Returns the heuristic estimate for a state, counting the call;
+	 * searches should use this rather than calling the heuristic directly.
+	 * 
+	 * @param s
+	 *            the state.
+	 * @return the estimated cost from the state to the goal.
+	 */
+	protected final double heuristicEstimate(S s) {
+		statistics.heuristicCalls++;
+		return heuristic.estimate(s);
+	}
+
+	/**
+	 * Counts successors generated without successorsOf().
+	 * 
+	 * @param count
+	 *            the number of successors generated.
+	 */
+	protected final void countGenerated(long count) {
+		statistics.generated += count;
+	}
+
+	/**
+	 * Counts a state dropped because it had already been seen, or was already
+	 * on the current path.
+	 */
+	protected final void countDuplicate() {
+		statistics.duplicates++;
+	}
+
+	/**
+	 * Adds the work done by another search, such as one run as part of this
+	 * one, to the statistics of this search; its steps should be counted with
+	 * withinBudget() as usual.
+	 * 
+	 * @param other
+	 *            the statistics of the other search.
+	 */
+	protected final void addStatistics(SearchStatistics other) {
+		statistics.add(other);
+	}
+
+	/**
+	 * Records the work done by one iteration of this search.
+	 * 
+	 * @param bound
+	 *            the bound of the iteration, e.g. its depth limit.
+	 * @param expanded
+	 *            the number of search steps it took.
+	 * @param generated
+	 *            the number of successors it generated.
+	 * @param elapsedNanos
+	 *            the time it took, in nanoseconds.
+	 */
+	protected final void addIteration(double bound, long expanded,
+			long generated, long elapsedNanos) {
+		statistics.addIteration(new SearchStatistics.Iteration(bound,
+				expanded, generated, elapsedNanos));
+	}
+
 	/**
 	 * The core method of the search; this should run whatever search algorithm
-	 * is used until it concludes. The results of the search will then be
-	 * available via the goalFound() method, as well as the getFinalState(),
-	 * getFinalDepth(), getFinalCost(), and getFinalPath() methods. Note that if
+	 * is used until it concludes, or until it is cancelled or reaches one of
+	 * its limits. The results of the search will then be available via the
+	 * goalFound() and getStatus() methods, as well as the getGoalState(),
+	 * getGoalDepth(), getGoalCost(), and getGoalPath() methods. Note that if
 	 * goalFound() returns false, or no search has been run yet, the results of
-	 * the other
+	 * the other methods are undefined.
 	 */
 	public abstract void search();
 
@@ -114,10 +591,11 @@ public abstract class AbstractSearchAlgorithm<S extends State> {
 	 * taken to do it to standard output.
 	 */
 	public void verboseSearch() {
-		long startTime = System.currentTimeMillis();
 		this.search();
-		System.out.println("Time taken: "
-				+ (System.currentTimeMillis() - startTime) + "ms");
+		SearchStatistics stats = this.getStatistics();
+		System.out.println("Time taken: " + stats.getElapsedNanos() / 1000000
+				+ "ms");
+		System.out.println("Statistics: " + stats);
 
 		if (this.goalFound()) {
 			S goalState = this.getGoalState();
@@ -130,6 +608,10 @@ public abstract class AbstractSearchAlgorithm<S extends State> {
 			if (path.size() < 100) {
 				System.out.println("Path taken:" + path);
 			}
+		} else if (this.getStatus() == SearchStatus.BUDGET_EXHAUSTED) {
+			System.out.println("Search limits reached before finding the goal!");
+		} else if (this.getStatus() == SearchStatus.CANCELLED) {
+			System.out.println("Search cancelled before finding the goal!");
 		} else {
 			System.out.println("Failed to find the goal!");
 		}
@@ -0,0 +1,38 @@
+package search.algorithms;
+
+/**
+ * A thread-safe flag used to ask one or more searches to stop. Any thread may
+ * cancel the handle; each search using it checks it once per step, and stops
+ * with the status CANCELLED. Once cancelled, a handle stays cancelled, unless
+ * it is the search's own handle; see AbstractSearchAlgorithm.getCancelHandle().
+ * 
+ * @author lackofcheese
+ */
+public final class CancelHandle {
+	/** True once the handle has been cancelled. */
+	private volatile boolean cancelled = false;
+
+	/**
+	 * Cancels every search using this handle.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * Clears the cancellation; this is only done by a search to its own
+	 * handle, once the cancellation has stopped it.
+	 */
+	void reset() {
+		cancelled = false;
+	}
+
+	/**
+	 * Returns true if the handle has been cancelled, and false otherwise.
+	 * 
+	 * @return true if the handle has been cancelled.
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+}
@@ -0,0 +1,45 @@
+package search.algorithms;
+
+import java.io.PrintStream;
+
+import search.states.State;
+
+/**
+ * Prints the start of each iteration of a search, e.g. each depth of an
+ * iterative deepening search.
+ * 
+ * @author lackofcheese
+ * @param <S>
+ *            the type of state used.
+ */
+public class ProgressPrinter<S extends State> extends SearchListenerAdapter<S> {
+	/** The stream to print to. */
+	private final PrintStream out;
+
+	/**
+	 * Constructs a printer which prints to standard output.
+	 */
+	public ProgressPrinter() {
+		this(System.out);
+	}
+
+	/**
+	 * Constructs a printer which prints to the given stream.
+	 * 
+	 * @param out
+	 *            the stream to print to.
+	 */
+	public ProgressPrinter(PrintStream out) {
+		this.out = out;
+	}
+
+	@Override
+	public void iterationStarted(AbstractSearchAlgorithm<S> search,
+			double bound) {
+		if (bound == Math.rint(bound)) {
+			out.println("Bound: " + (long) bound);
+		} else {
+			out.println("Bound: " + bound);
+		}
+	}
+}
@@ -1,5 +1,12 @@
 package search.algorithms;
 
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import search.algorithms.checkpoint.Checkpointer;
+import search.algorithms.checkpoint.SearchCheckpoint;
 import search.goals.GoalTest;
 import search.heuristics.Heuristic;
 import search.sfs.SuccessorFunction;
@@ -185,21 +192,129 @@ public abstract class QueueSearch<S extends State, Data> extends
 	protected QueueEntry currentEntry;
 	/** True if a goal has been found, and false otherwise. */
 	protected boolean goalFound = false;
+	/** Saves the progress of the search, or null if this is not wanted. */
+	private Checkpointer<S> checkpointer;
+
+	/**
+	 * Sets the checkpointer used to save the progress of the search
+	 * periodically; null turns checkpointing off.
+	 * 
+	 * @param checkpointer
+	 *            the checkpointer.
+	 */
+	public void setCheckpointer(Checkpointer<S> checkpointer) {
+		this.checkpointer = checkpointer;
+	}
+
+	/**
+	 * Returns the checkpointer used to save the progress of the search.
+	 * 
+	 * @return the checkpointer, or null if there is none.
+	 */
+	public Checkpointer<S> getCheckpointer() {
+		return checkpointer;
+	}
 
 	/**
 	 * A basic implementation of a queue-based search algorithm. The core is a
-	 * loop that dequeues and processes states until either a goal is found, or
-	 * the queue is empty.
+	 * loop that dequeues and processes states until either a goal is found,
+	 * the queue is empty, or the search is cancelled or reaches its limits.
 	 */
 	public void search() {
+		this.beginSearch();
+		this.initSearch();
+		this.runSearch();
+	}
+
+	/**
+	 * Resumes a search from a checkpoint taken by the same algorithm.
+	 * 
+	 * @param checkpoint
+	 *            the checkpoint.
+	 * @throws IllegalArgumentException
+	 *             if the checkpoint was taken by a different algorithm.
+	 */
+	public void resume(SearchCheckpoint<S> checkpoint) {
+		if (!checkpoint.getAlgorithm().equals(getClass().getName())) {
+			throw new IllegalArgumentException("Checkpoint is from "
+					+ checkpoint.getAlgorithm() + ", not "
+					+ getClass().getName());
+		}
+		this.beginSearch(checkpoint.getExpansions());
+		// Set up the structures, and discard the root entry that this queues.
 		this.initSearch();
+		while (!queueEmpty()) {
+			this.dequeue();
+		}
+		this.restoreCounters(checkpoint);
+		for (SearchCheckpoint.Entry<S> entry : checkpoint.getOpen()) {
+			this.enqueue(new QueueEntry(entry.getState(), entry.getPred(),
+					entry.getDepth(), entry.getTotalCost(), entry
+							.getHeuristicEstimate(), decodeData(entry
+							.getData())));
+		}
+		this.restoreClosed(checkpoint.getClosed());
+		this.runSearch();
+	}
+
+	/**
+	 * Runs the main loop of the search, from whatever is in the queue.
+	 */
+	private void runSearch() {
 		goalFound = false;
 		while (!queueEmpty()) {
+			if (!withinBudget(1, queueSize(), closedSize())) {
+				return;
+			}
+			if (checkpointer != null && checkpointer.isDue()) {
+				checkpointer.submit(this.createCheckpoint());
+			}
 			currentEntry = this.dequeue();
+			this.notifyExpanded(currentEntry.getState(), currentEntry
+					.getDepth());
 			if (goalFound = processCurrentEntry()) {
+				this.endSearch(true);
 				return;
 			}
 		}
+		this.endSearch(false);
+	}
+
+	/**
+	 * Takes a snapshot of the progress of the search. This copies a reference
+	 * to each queue entry, and snapshotClosed() those of the closed set, so
+	 * it takes time and memory in proportion to the size of the search, but
+	 * only a few bytes per state; the checkpoint entries themselves are built
+	 * as they are read, which for a checkpoint submitted to a Checkpointer is
+	 * on its background thread.
+	 * 
+	 * @return the snapshot.
+	 */
+	public SearchCheckpoint<S> createCheckpoint() {
+		SearchCheckpoint<S> checkpoint = new SearchCheckpoint<S>(getClass()
+				.getName(), getExpansions());
+		final List<QueueEntry> queued = new ArrayList<QueueEntry>(
+				queueSize());
+		for (QueueEntry qe : queueContents()) {
+			queued.add(qe);
+		}
+		checkpoint.setOpen(new AbstractList<SearchCheckpoint.Entry<S>>() {
+			@Override
+			public SearchCheckpoint.Entry<S> get(int index) {
+				QueueEntry qe = queued.get(index);
+				return new SearchCheckpoint.Entry<S>(qe.getState(), qe
+						.getPred(), qe.getDepth(), qe.getTotalCost(), qe
+						.getHeuristicEstimate(), encodeData(qe.getData()));
+			}
+
+			@Override
+			public int size() {
+				return queued.size();
+			}
+		});
+		checkpoint.setClosed(this.snapshotClosed());
+		this.saveCounters(checkpoint);
+		return checkpoint;
 	}
 
 	/**
@@ -208,6 +323,80 @@ public abstract class QueueSearch<S extends State, Data> extends
 	 */
 	protected abstract void initSearch();
 
+	/**
+	 * Returns the entries in the search queue, in the order in which they
+	 * were enqueued where that order matters.
+	 * 
+	 * @return the entries in the search queue.
+	 */
+	protected abstract Iterable<QueueEntry> queueContents();
+
+	/**
+	 * Encodes the additional data of a queue entry for a checkpoint; by
+	 * default, there is none.
+	 * 
+	 * @param data
+	 *            the additional data.
+	 * @return the data encoded as an int.
+	 */
+	protected int encodeData(Data data) {
+		return 0;
+	}
+
+	/**
+	 * Decodes the additional data of a queue entry from a checkpoint; by
+	 * default, there is none.
+	 * 
+	 * @param data
+	 *            the encoded data.
+	 * @return the additional data.
+	 */
+	protected Data decodeData(int data) {
+		return null;
+	}
+
+	/**
+	 * Takes a snapshot of the states remembered outside of the queue, for a
+	 * checkpoint; by default, there are none. The entries may be built as
+	 * they are read, possibly on another thread, as long as what they are
+	 * built from is not changed by the search.
+	 * 
+	 * @return the closed set entries.
+	 */
+	protected List<SearchCheckpoint.Entry<S>> snapshotClosed() {
+		return Collections.emptyList();
+	}
+
+	/**
+	 * Restores the states remembered outside of the queue from a checkpoint;
+	 * by default, there are none.
+	 * 
+	 * @param closed
+	 *            the saved entries.
+	 */
+	protected void restoreClosed(List<SearchCheckpoint.Entry<S>> closed) {
+	}
+
+	/**
+	 * Adds any counters specific to the algorithm to a checkpoint; by
+	 * default, there are none.
+	 * 
+	 * @param checkpoint
+	 *            the checkpoint.
+	 */
+	protected void saveCounters(SearchCheckpoint<S> checkpoint) {
+	}
+
+	/**
+	 * Restores any counters specific to the algorithm from a checkpoint; by
+	 * default, there are none.
+	 * 
+	 * @param checkpoint
+	 *            the checkpoint.
+	 */
+	protected void restoreCounters(SearchCheckpoint<S> checkpoint) {
+	}
+
 	/**
 	 * Returns true if the search queue is empty, and false otherwise.
 	 * 
@@ -215,6 +404,23 @@ public abstract class QueueSearch<S extends State, Data> extends
 	 */
 	protected abstract boolean queueEmpty();
 
+	/**
+	 * Returns the number of entries in the search queue.
+	 * 
+	 * @return the number of entries in the search queue.
+	 */
+	protected abstract int queueSize();
+
+	/**
+	 * Returns the number of states the search remembers outside of the queue,
+	 * e.g. in order to avoid revisiting them; by default, there are none.
+	 * 
+	 * @return the number of states remembered outside of the queue.
+	 */
+	protected int closedSize() {
+		return 0;
+	}
+
 	/**
 	 * Adds a queue entry to the end of the search queue.
 	 * 
@@ -0,0 +1,145 @@
+package search.algorithms;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An immutable set of limits on the resources a search may use: a limit on
+ * the time taken, a limit on the number of search steps (states taken from
+ * the queue or expanded), and a limit on the number of states held in memory
+ * at once. A search that reaches any of these limits stops with the status
+ * BUDGET_EXHAUSTED.
+ * 
+ * Limits are changed by creating modified copies, e.g.
+ * SearchLimits.NONE.withTimeLimit(10, TimeUnit.SECONDS).
+ * 
+ * @author lackofcheese
+ */
+public final class SearchLimits {
+	/** A value meaning that there is no limit. */
+	public static final long UNLIMITED = Long.MAX_VALUE;
+	/** A set of limits which allows a search to run until it concludes. */
+	public static final SearchLimits NONE = new SearchLimits(UNLIMITED,
+			UNLIMITED, UNLIMITED);
+
+	/** The maximum time the search may take, in nanoseconds. */
+	private final long timeLimitNanos;
+	/** The maximum number of search steps. */
+	private final long maxExpansions;
+	/** The maximum number of states held in the open and closed lists. */
+	private final long maxStoredStates;
+
+	/**
+	 * Constructs a set of limits; UNLIMITED may be given for any of them.
+	 * 
+	 * @param timeLimitNanos
+	 *            the maximum time the search may take, in nanoseconds.
+	 * @param maxExpansions
+	 *            the maximum number of search steps.
+	 * @param maxStoredStates
+	 *            the maximum number of states held in memory at once.
+	 */
+	public SearchLimits(long timeLimitNanos, long maxExpansions,
+			long maxStoredStates) {
+		this.timeLimitNanos = timeLimitNanos;
+		this.maxExpansions = maxExpansions;
+		this.maxStoredStates = maxStoredStates;
+	}
+
+	/**
+	 * Returns a copy of these limits with the given time limit.
+	 * 
+	 * @param duration
+	 *            the maximum time the search may take.
+	 * @param unit
+	 *            the unit of the duration.
+	 * @return the new limits.
+	 */
+	public SearchLimits withTimeLimit(long duration, TimeUnit unit) {
+		return new SearchLimits(unit.toNanos(duration), maxExpansions,
+				maxStoredStates);
+	}
+
+	/**
+	 * Returns a copy of these limits with the given limit on search steps.
+	 * 
+	 * @param maxExpansions
+	 *            the maximum number of search steps.
+	 * @return the new limits.
+	 */
+	public SearchLimits withMaxExpansions(long maxExpansions) {
+		return new SearchLimits(timeLimitNanos, maxExpansions,
+				maxStoredStates);
+	}
+
+	/**
+	 * Returns a copy of these limits with the given limit on stored states.
+	 * 
+	 * @param maxStoredStates
+	 *            the maximum number of states held in memory at once.
+	 * @return the new limits.
+	 */
+	public SearchLimits withMaxStoredStates(long maxStoredStates) {
+		return new SearchLimits(timeLimitNanos, maxExpansions,
+				maxStoredStates);
+	}
+
+	/**
+	 * Returns the limits that remain after some of the time and search steps
+	 * have been used up; this is useful for searches that run other searches
+	 * in turn.
+	 * 
+	 * @param elapsedNanos
+	 *            the time used so far, in nanoseconds.
+	 * @param expansions
+	 *            the number of search steps used so far.
+	 * @return the remaining limits.
+	 */
+	public SearchLimits remaining(long elapsedNanos, long expansions) {
+		return new SearchLimits(subtract(timeLimitNanos, elapsedNanos),
+				subtract(maxExpansions, expansions), maxStoredStates);
+	}
+
+	/**
+	 * Subtracts an amount used from a limit, leaving unlimited values as they
+	 * are and never going below zero.
+	 * 
+	 * @param limit
+	 *            the limit.
+	 * @param used
+	 *            the amount used.
+	 * @return the amount remaining.
+	 */
+	private static long subtract(long limit, long used) {
+		if (limit == UNLIMITED) {
+			return UNLIMITED;
+		}
+		return Math.max(0, limit - used);
+	}
+
+	/**
+	 * Returns the maximum time the search may take.
+	 * 
+	 * @return the time limit in nanoseconds, or UNLIMITED.
+	 */
+	public long getTimeLimitNanos() {
+		return timeLimitNanos;
+	}
+
+	/**
+	 * Returns the maximum number of search steps.
+	 * 
+	 * @return the maximum number of search steps, or UNLIMITED.
+	 */
+	public long getMaxExpansions() {
+		return maxExpansions;
+	}
+
+	/**
+	 * Returns the maximum number of states held in memory at once.
+	 * 
+	 * @return the maximum number of stored states, or UNLIMITED.
+	 */
+	public long getMaxStoredStates() {
+		return maxStoredStates;
+	}
+}
@@ -0,0 +1,103 @@
+package search.algorithms;
+
+import search.states.State;
+
+/**
+ * Observes a search as it runs, e.g. to log its progress or to feed a
+ * monitoring system, without changing the algorithm itself. A listener is
+ * attached with AbstractSearchAlgorithm.setSearchListener(), and its methods
+ * are called on the thread running the search, so they should return
+ * quickly. SearchListenerAdapter may be extended to handle only some of the
+ * events.
+ * 
+ * @author lackofcheese
+ * @param <S>
+ *            the type of state used.
+ */
+public interface SearchListener<S extends State> {
+	/** Given as the depth of a state by searches that do not track it. */
+	public static final int UNKNOWN_DEPTH = -1;
+
+	/**
+	 * Called when a search starts or is resumed.
+	 * 
+	 * @param search
+	 *            the search.
+	 */
+	public void searchStarted(AbstractSearchAlgorithm<S> search);
+
+	/**
+	 * Called each time a search expands a state, i.e. takes it from its open
+	 * list, or its depth-first path, to generate its successors. Every
+	 * search in search.algorithms calls this, apart from PortfolioSearch,
+	 * which expands no states itself; a listener should be attached to its
+	 * members instead. Searches that run in iterations, or that re-expand
+	 * states, call this again each time, and LRTAStarSearch calls it for the
+	 * states expanded by its lookahead.
+	 * 
+	 * @param search
+	 *            the search.
+	 * @param state
+	 *            the state.
+	 * @param depth
+	 *            the depth of the state, or UNKNOWN_DEPTH for searches which
+	 *            do not keep track of it; these are LPAStarSearch, whose
+	 *            vertices are shared by every path to them, and
+	 *            FrontierSearch, which does not store paths.
+	 */
+	public void stateExpanded(AbstractSearchAlgorithm<S> search, S state,
+			int depth);
+
+	/**
+	 * Called each time a search checks its limits, which every search does
+	 * for each step it takes, just before it decides whether to go on;
+	 * getStoredStates() and getOpenStates() are then up to date. This is
+	 * called even more often than stateExpanded(), so it should be cheap.
+	 * 
+	 * @param search
+	 *            the search.
+	 * @param expansions
+	 *            the number of steps taken so far, including those of any
+	 *            search run as part of this one, e.g. the current iteration
+	 *            of an iterative deepening search.
+	 */
+	public void budgetChecked(AbstractSearchAlgorithm<S> search,
+			long expansions);
+
+	/**
+	 * Called when a search that runs in iterations starts a new one.
+	 * 
+	 * @param search
+	 *            the search.
+	 * @param bound
+	 *            the bound of the iteration, e.g. its depth limit.
+	 */
+	public void iterationStarted(AbstractSearchAlgorithm<S> search,
+			double bound);
+
+	/**
+	 * Called when an iteration of a search runs to its end, or finds a goal;
+	 * this is not called for an iteration cut short by the search stopping.
+	 * 
+	 * @param search
+	 *            the search.
+	 * @param bound
+	 *            the bound of the iteration, e.g. its depth limit.
+	 * @param expansions
+	 *            the number of search steps taken by the iteration.
+	 */
+	public void iterationFinished(AbstractSearchAlgorithm<S> search,
+			double bound, long expansions);
+
+	/**
+	 * Called when a search stops, whether it found a goal, concluded that
+	 * there is none, ran out of budget, or was cancelled.
+	 * 
+	 * @param search
+	 *            the search; its results are available.
+	 * @param status
+	 *            the reason the search stopped.
+	 */
+	public void searchFinished(AbstractSearchAlgorithm<S> search,
+			SearchStatus status);
+}
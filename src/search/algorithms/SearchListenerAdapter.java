@@ -0,0 +1,43 @@
+package search.algorithms;
+
+import search.states.State;
+
+/**
+ * A search listener which ignores every event; subclasses may override the
+ * methods for only the events they need.
+ * 
+ * @author lackofcheese
+ * @param <S>
+ *            the type of state used.
+ */
+public class SearchListenerAdapter<S extends State> implements
+		SearchListener<S> {
+	@Override
+	public void searchStarted(AbstractSearchAlgorithm<S> search) {
+	}
+
+	@Override
+	public void stateExpanded(AbstractSearchAlgorithm<S> search, S state,
+			int depth) {
+	}
+
+	@Override
+	public void budgetChecked(AbstractSearchAlgorithm<S> search,
+			long expansions) {
+	}
+
+	@Override
+	public void iterationStarted(AbstractSearchAlgorithm<S> search,
+			double bound) {
+	}
+
+	@Override
+	public void iterationFinished(AbstractSearchAlgorithm<S> search,
+			double bound, long expansions) {
+	}
+
+	@Override
+	public void searchFinished(AbstractSearchAlgorithm<S> search,
+			SearchStatus status) {
+	}
+}
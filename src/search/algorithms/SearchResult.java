@@ -0,0 +1,190 @@
+package search.algorithms;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import search.states.State;
+
+/**
+ * An immutable record of the outcome of a search, taken once the search has
+ * stopped; unlike the search itself, it may be kept and shared freely.
+ * 
+ * @author lackofcheese
+ * @param <S>
+ *            the type of state used.
+ */
+public final class SearchResult<S extends State> {
+	/** The outcome of the search. */
+	private final SearchStatus status;
+	/** True if a goal was found. */
+	private final boolean goalFound;
+	/** The goal state, or null if no goal was found. */
+	private final S goalState;
+	/** The cost of the path to the goal, or NaN if no goal was found. */
+	private final double goalCost;
+	/** The depth of the goal, or -1 if no goal was found. */
+	private final int goalDepth;
+	/** The path to the goal, or an empty list if no goal was found. */
+	private final List<S> goalPath;
+	/** The number of search steps taken. */
+	private final long expansions;
+	/** The time taken by the search, in nanoseconds. */
+	private final long elapsedNanos;
+	/** The work done by the search. */
+	private final SearchStatistics statistics;
+
+	/**
+	 * Constructs a result; the path is copied.
+	 * 
+	 * @param status
+	 *            the outcome of the search.
+	 * @param goalState
+	 *            the goal state, or null if no goal was found.
+	 * @param goalCost
+	 *            the cost of the path to the goal.
+	 * @param goalDepth
+	 *            the depth of the goal.
+	 * @param goalPath
+	 *            the path to the goal, or null if no goal was found.
+	 * @param expansions
+	 *            the number of search steps taken.
+	 * @param elapsedNanos
+	 *            the time taken by the search, in nanoseconds.
+	 * @param statistics
+	 *            the work done by the search.
+	 */
+	public SearchResult(SearchStatus status, S goalState, double goalCost,
+			int goalDepth, List<S> goalPath, long expansions,
+			long elapsedNanos, SearchStatistics statistics) {
+		this.status = status;
+		this.goalFound = goalState != null;
+		this.goalState = goalState;
+		this.goalCost = goalFound ? goalCost : Double.NaN;
+		this.goalDepth = goalFound ? goalDepth : -1;
+		if (goalFound && goalPath != null) {
+			this.goalPath = Collections.unmodifiableList(new ArrayList<S>(
+					goalPath));
+		} else {
+			this.goalPath = Collections.emptyList();
+		}
+		this.expansions = expansions;
+		this.elapsedNanos = elapsedNanos;
+		this.statistics = statistics;
+	}
+
+	/**
+	 * Takes the result of a search that has stopped.
+	 * 
+	 * @param algorithm
+	 *            the search.
+	 * @param elapsedNanos
+	 *            the time taken by the search, in nanoseconds.
+	 * @return the result of the search.
+	 */
+	public static <S extends State> SearchResult<S> of(
+			AbstractSearchAlgorithm<S> algorithm, long elapsedNanos) {
+		if (!algorithm.goalFound()) {
+			return new SearchResult<S>(algorithm.getStatus(), null,
+					Double.NaN, -1, null, algorithm.getExpansions(),
+					elapsedNanos, algorithm.getStatistics());
+		}
+		return new SearchResult<S>(algorithm.getStatus(),
+				algorithm.getGoalState(), algorithm.getGoalCost(),
+				algorithm.getGoalDepth(), algorithm.getGoalPath(),
+				algorithm.getExpansions(), elapsedNanos,
+				algorithm.getStatistics());
+	}
+
+	/**
+	 * Returns the outcome of the search.
+	 * 
+	 * @return the status of the search.
+	 */
+	public SearchStatus getStatus() {
+		return status;
+	}
+
+	/**
+	 * Returns whether a goal was found; an anytime search may have found one
+	 * even if it was stopped by its limits.
+	 * 
+	 * @return true if a goal was found.
+	 */
+	public boolean goalFound() {
+		return goalFound;
+	}
+
+	/**
+	 * Returns the goal state found.
+	 * 
+	 * @return the goal state, or null if no goal was found.
+	 */
+	public S getGoalState() {
+		return goalState;
+	}
+
+	/**
+	 * Returns the cost of the path to the goal.
+	 * 
+	 * @return the cost of the path, or NaN if no goal was found.
+	 */
+	public double getGoalCost() {
+		return goalCost;
+	}
+
+	/**
+	 * Returns the depth of the goal.
+	 * 
+	 * @return the depth of the goal, or -1 if no goal was found.
+	 */
+	public int getGoalDepth() {
+		return goalDepth;
+	}
+
+	/**
+	 * Returns the path to the goal.
+	 * 
+	 * @return an unmodifiable list from the initial state to the goal, or an
+	 *         empty list if no goal was found.
+	 */
+	public List<S> getGoalPath() {
+		return goalPath;
+	}
+
+	/**
+	 * Returns the number of search steps taken.
+	 * 
+	 * @return the number of search steps taken.
+	 */
+	public long getExpansions() {
+		return expansions;
+	}
+
+	/**
+	 * Returns the time taken by the search.
+	 * 
+	 * @return the time taken, in nanoseconds.
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * Returns the work done by the search.
+	 * 
+	 * @return the statistics of the search.
+	 */
+	public SearchStatistics getStatistics() {
+		return statistics;
+	}
+
+	@Override
+	public String toString() {
+		if (!goalFound) {
+			return String.format("%s after %d steps", status, expansions);
+		}
+		return String.format("%s at %s for cost %.2f at depth %d after %d "
+				+ "steps", status, goalState, goalCost, goalDepth, expansions);
+	}
+}
@@ -0,0 +1,329 @@
+package search.algorithms;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Counts the work done by a search, so that algorithms may be compared, and
+ * regressions spotted, by more than their running time. The counters are
+ * plain fields, updated by the search through the helper methods of
+ * AbstractSearchAlgorithm; nothing is allocated per state. A search hands out
+ * copies from getStatistics(), which are not changed by later searches.
+ * 
+ * @author lackofcheese
+ */
+public final class SearchStatistics {
+	/**
+	 * The work done by one iteration of a search that runs in iterations,
+	 * such as the depth-limited searches of an iterative deepening search.
+	 */
+	public static final class Iteration {
+		/** The bound of the iteration, e.g. its depth limit. */
+		private final double bound;
+		/** The number of search steps taken. */
+		private final long expanded;
+		/** The number of successors generated. */
+		private final long generated;
+		/** The time taken, in nanoseconds. */
+		private final long elapsedNanos;
+
+		/**
+		 * Constructs a record of an iteration.
+		 * 
+		 * @param bound
+		 *            the bound of the iteration, e.g. its depth limit.
+		 * @param expanded
+		 *            the number of search steps taken.
+		 * @param generated
+		 *            the number of successors generated.
+		 * @param elapsedNanos
+		 *            the time taken, in nanoseconds.
+		 */
+		public Iteration(double bound, long expanded, long generated,
+				long elapsedNanos) {
+			this.bound = bound;
+			this.expanded = expanded;
+			this.generated = generated;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		/**
+		 * Returns the bound of the iteration, e.g. its depth limit.
+		 * 
+		 * @return the bound.
+		 */
+		public double getBound() {
+			return bound;
+		}
+
+		/**
+		 * Returns the number of search steps taken.
+		 * 
+		 * @return the number of search steps taken.
+		 */
+		public long getExpanded() {
+			return expanded;
+		}
+
+		/**
+		 * Returns the number of successors generated.
+		 * 
+		 * @return the number of successors generated.
+		 */
+		public long getGenerated() {
+			return generated;
+		}
+
+		/**
+		 * Returns the time taken.
+		 * 
+		 * @return the time taken, in nanoseconds.
+		 */
+		public long getElapsedNanos() {
+			return elapsedNanos;
+		}
+
+		@Override
+		public String toString() {
+			return formatBound(bound) + ":" + expanded + ":" + generated
+					+ ":" + elapsedNanos;
+		}
+	}
+
+	/** The number of search steps taken. */
+	long expanded;
+	/** The number of successors returned by the successor function. */
+	long generated;
+	/** The number of states dropped as already seen or already on the path. */
+	long duplicates;
+	/** The number of calls to the heuristic. */
+	long heuristicCalls;
+	/** The largest number of states waiting to be expanded at once. */
+	long peakOpen;
+	/** The largest number of states expanded and kept at once. */
+	long peakClosed;
+	/** The largest number of states held in memory at once. */
+	long peakStored;
+	/** The value of System.nanoTime() when the search started. */
+	long startNanos;
+	/** The time taken by the search, in nanoseconds. */
+	long elapsedNanos;
+	/** The work done by each iteration, or null if there were none. */
+	List<Iteration> iterations;
+
+	/**
+	 * Constructs a set of statistics with every counter at zero.
+	 */
+	public SearchStatistics() {
+	}
+
+	/**
+	 * Constructs a copy of a set of statistics.
+	 * 
+	 * @param other
+	 *            the statistics to copy.
+	 */
+	public SearchStatistics(SearchStatistics other) {
+		this.expanded = other.expanded;
+		this.generated = other.generated;
+		this.duplicates = other.duplicates;
+		this.heuristicCalls = other.heuristicCalls;
+		this.peakOpen = other.peakOpen;
+		this.peakClosed = other.peakClosed;
+		this.peakStored = other.peakStored;
+		this.startNanos = other.startNanos;
+		this.elapsedNanos = other.elapsedNanos;
+		if (other.iterations != null) {
+			this.iterations = new ArrayList<Iteration>(other.iterations);
+		}
+	}
+
+	/**
+	 * Resets every counter, and starts the clock.
+	 */
+	void reset() {
+		expanded = 0;
+		generated = 0;
+		duplicates = 0;
+		heuristicCalls = 0;
+		peakOpen = 0;
+		peakClosed = 0;
+		peakStored = 0;
+		iterations = null;
+		elapsedNanos = 0;
+		startNanos = System.nanoTime();
+	}
+
+	/**
+	 * Starts the clock again for a search being resumed, keeping the counters
+	 * and the time already taken.
+	 */
+	void resume() {
+		startNanos = System.nanoTime() - elapsedNanos;
+	}
+
+	/**
+	 * Adds the counts of another search, such as one run as part of this
+	 * search; the peaks are the larger of the two.
+	 * 
+	 * @param other
+	 *            the statistics of the other search.
+	 */
+	void add(SearchStatistics other) {
+		generated += other.generated;
+		duplicates += other.duplicates;
+		heuristicCalls += other.heuristicCalls;
+		peakOpen = Math.max(peakOpen, other.peakOpen);
+		peakClosed = Math.max(peakClosed, other.peakClosed);
+		peakStored = Math.max(peakStored, other.peakStored);
+	}
+
+	/**
+	 * Records the work done by an iteration.
+	 * 
+	 * @param iteration
+	 *            the record of the iteration.
+	 */
+	void addIteration(Iteration iteration) {
+		if (iterations == null) {
+			iterations = new ArrayList<Iteration>();
+		}
+		iterations.add(iteration);
+	}
+
+	/**
+	 * Returns the number of search steps taken, which is the number of
+	 * states taken from the queue or expanded.
+	 * 
+	 * @return the number of search steps taken.
+	 */
+	public long getExpanded() {
+		return expanded;
+	}
+
+	/**
+	 * Returns the number of successors returned by the successor function
+	 * while expanding states.
+	 * 
+	 * @return the number of successors generated.
+	 */
+	public long getGenerated() {
+		return generated;
+	}
+
+	/**
+	 * Returns the number of states dropped because they had already been
+	 * seen, or were already on the current path.
+	 * 
+	 * @return the number of duplicates pruned.
+	 */
+	public long getDuplicates() {
+		return duplicates;
+	}
+
+	/**
+	 * Returns the number of calls to the heuristic.
+	 * 
+	 * @return the number of heuristic calls.
+	 */
+	public long getHeuristicCalls() {
+		return heuristicCalls;
+	}
+
+	/**
+	 * Returns the largest number of states waiting to be expanded at once;
+	 * this is zero for searches that do not keep them apart from the others.
+	 * 
+	 * @return the peak size of the open list.
+	 */
+	public long getPeakOpen() {
+		return peakOpen;
+	}
+
+	/**
+	 * Returns the largest number of expanded states kept at once; this is
+	 * zero for searches that do not keep them apart from the others.
+	 * 
+	 * @return the peak size of the closed list.
+	 */
+	public long getPeakClosed() {
+		return peakClosed;
+	}
+
+	/**
+	 * Returns the largest number of states held in memory at once, as
+	 * counted against the limits of the search.
+	 * 
+	 * @return the peak number of states stored.
+	 */
+	public long getPeakStored() {
+		return peakStored;
+	}
+
+	/**
+	 * Returns the time taken by the search.
+	 * 
+	 * @return the time taken, in nanoseconds.
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * Returns the work done by each iteration of the search.
+	 * 
+	 * @return an unmodifiable list of the iterations, which is empty for
+	 *         searches that do not run in iterations.
+	 */
+	public List<Iteration> getIterations() {
+		if (iterations == null) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(iterations);
+	}
+
+	/**
+	 * Formats a bound, without a fractional part if it is a whole number.
+	 * 
+	 * @param bound
+	 *            the bound.
+	 * @return the formatted bound.
+	 */
+	private static String formatBound(double bound) {
+		if (bound == Math.rint(bound) && !Double.isInfinite(bound)) {
+			return Long.toString((long) bound);
+		}
+		return Double.toString(bound);
+	}
+
+	/**
+	 * Returns the statistics as a single line of space-separated key=value
+	 * pairs; the iterations, if any, are given as a comma-separated list of
+	 * bound:expanded:generated:nanos.
+	 * 
+	 * @return the statistics as a single line.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("expanded=").append(expanded);
+		builder.append(" generated=").append(generated);
+		builder.append(" duplicates=").append(duplicates);
+		builder.append(" heuristicCalls=").append(heuristicCalls);
+		builder.append(" peakOpen=").append(peakOpen);
+		builder.append(" peakClosed=").append(peakClosed);
+		builder.append(" peakStored=").append(peakStored);
+		builder.append(" elapsedNanos=").append(elapsedNanos);
+		if (iterations != null) {
+			builder.append(" iterations=");
+			for (int i = 0; i < iterations.size(); i++) {
+				if (i > 0) {
+					builder.append(',');
+				}
+				builder.append(iterations.get(i));
+			}
+		}
+		return builder.toString();
+	}
+}
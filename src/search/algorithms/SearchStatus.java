@@ -0,0 +1,25 @@
+package search.algorithms;
+
+/**
+ * The outcome of a search, or its progress if it has not concluded.
+ * 
+ * Note that anytime searches may have found a goal even if they stopped
+ * because of their limits or a cancellation; goalFound() says whether a goal
+ * is available, while the status says why the search stopped.
+ * 
+ * @author lackofcheese
+ */
+public enum SearchStatus {
+	/** The search has not been run yet. */
+	NOT_RUN,
+	/** The search is running. */
+	RUNNING,
+	/** The search concluded by finding a goal. */
+	GOAL_FOUND,
+	/** The search concluded that there is no reachable goal. */
+	NO_SOLUTION,
+	/** The search stopped because it reached one of its limits. */
+	BUDGET_EXHAUSTED,
+	/** The search stopped because it was cancelled. */
+	CANCELLED
+}
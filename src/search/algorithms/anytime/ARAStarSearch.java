@@ -0,0 +1,529 @@
+package search.algorithms.anytime;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import search.algorithms.AbstractSearchAlgorithm;
+import search.goals.GoalTest;
+import search.heuristics.Heuristic;
+import search.sfs.SuccessorFunction;
+import search.states.State;
+
+/**
+ * An implementation of Anytime Repairing A* (ARA*).
+ * 
+ * The search starts as a weighted A* search, in which the heuristic is
+ * multiplied by a weight greater than one; this finds a solution quickly, but
+ * its cost may be up to that weight times the optimal cost. The weight is then
+ * reduced step by step, and after each step the search is resumed rather than
+ * restarted: the costs found so far are kept, and only the states whose costs
+ * have improved since they were last expanded are searched again. Each time a
+ * solution is found it is published together with a bound on how far from
+ * optimal it can be, and once the weight reaches one the solution is optimal.
+ * 
+ * The best solution so far can be read from another thread at any time via
+ * getBestSolution(), and the search can be told to finish early via stop().
+ * The heuristic must be consistent for the bounds to hold.
+ * 
+ * @author lackofcheese
+ * @param <S>
+ *            the type of state used.
+ */
+public class ARAStarSearch<S extends State> extends
+		AbstractSearchAlgorithm<S> {
+	/**
+	 * An immutable record of a solution found by the search.
+	 * 
+	 * @author lackofcheese
+	 * @param <S>
+	 *            the type of state used.
+	 */
+	public static class Solution<S extends State> {
+		/** The path from the initial state to the goal. */
+		private final List<S> path;
+		/** The cost of the path. */
+		private final double cost;
+		/** The weight used by the search that found the solution. */
+		private final double weight;
+		/** The most the cost can exceed the optimal cost by, as a factor. */
+		private final double bound;
+		/** The time since the search started, in nanoseconds. */
+		private final long elapsedNanos;
+
+		/**
+		 * Constructs a solution record.
+		 * 
+		 * @param path
+		 *            the path; this is not copied.
+		 * @param cost
+		 *            the cost of the path.
+		 * @param weight
+		 *            the heuristic weight in use.
+		 * @param bound
+		 *            the suboptimality bound.
+		 * @param elapsedNanos
+		 *            the time since the search started.
+		 */
+		private Solution(List<S> path, double cost, double weight,
+				double bound, long elapsedNanos) {
+			this.path = Collections.unmodifiableList(path);
+			this.cost = cost;
+			this.weight = weight;
+			this.bound = bound;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		/**
+		 * Returns the path from the initial state to the goal.
+		 * 
+		 * @return the path, as an unmodifiable list.
+		 */
+		public List<S> getPath() {
+			return path;
+		}
+
+		/**
+		 * Returns the cost of the path.
+		 * 
+		 * @return the cost of the path.
+		 */
+		public double getCost() {
+			return cost;
+		}
+
+		/**
+		 * Returns the heuristic weight in use when the solution was found.
+		 * 
+		 * @return the heuristic weight.
+		 */
+		public double getWeight() {
+			return weight;
+		}
+
+		/**
+		 * Returns the suboptimality bound; the cost of the solution is at most
+		 * this factor times the optimal cost. A bound of 1 means that the
+		 * solution is optimal.
+		 * 
+		 * @return the suboptimality bound.
+		 */
+		public double getBound() {
+			return bound;
+		}
+
+		/**
+		 * Returns the time between the start of the search and the solution
+		 * being found.
+		 * 
+		 * @return the elapsed time, in nanoseconds.
+		 */
+		public long getElapsedNanos() {
+			return elapsedNanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("cost %.2f within %.3f of optimal (w=%.3f)",
+					cost, bound, weight);
+		}
+	}
+
+	/**
+	 * The search information kept for each state that has been generated.
+	 * 
+	 * @author lackofcheese
+	 */
+	private class Node {
+		/** The state. */
+		private S state;
+		/** The predecessor on the best known path, or null for the root. */
+		private Node parent;
+		/** The depth on the best known path. */
+		private int depth;
+		/** The cost of the best known path. */
+		private double g;
+		/** The heuristic estimate, computed once. */
+		private double h;
+		/** The current entry in the open list, or null if not open. */
+		private OpenEntry open;
+		/** The weight iteration in which this was last expanded. */
+		private int closedIn = -1;
+		/** True if this is in the inconsistent list. */
+		private boolean incons;
+
+		/**
+		 * Constructs a node for the given state.
+		 * 
+		 * @param state
+		 *            the state.
+		 * @param h
+		 *            the heuristic estimate.
+		 */
+		public Node(S state, double h) {
+			this.state = state;
+			this.h = h;
+		}
+	}
+
+	/**
+	 * An entry in the open list; entries that no longer match their node's
+	 * current entry are discarded when they reach the front.
+	 * 
+	 * @author lackofcheese
+	 */
+	private class OpenEntry implements Comparable<OpenEntry> {
+		/** The node. */
+		private Node node;
+		/** The weighted priority of the node. */
+		private double f;
+
+		/**
+		 * Constructs an open list entry.
+		 * 
+		 * @param node
+		 *            the node.
+		 * @param f
+		 *            the weighted priority.
+		 */
+		public OpenEntry(Node node, double f) {
+			this.node = node;
+			this.f = f;
+		}
+
+		@Override
+		public int compareTo(OpenEntry other) {
+			return Double.compare(f, other.f);
+		}
+	}
+
+	/** The heuristic weight for the first search. */
+	private double initialWeight;
+	/** The amount the weight is reduced by after each search. */
+	private double weightStep;
+
+	/** The nodes for all of the states generated so far. */
+	private Map<S, Node> nodes;
+	/** The open list. */
+	private PriorityQueue<OpenEntry> open;
+	/** Nodes improved after being expanded in the current iteration. */
+	private List<Node> inconsistent;
+	/** The best goal node found so far. */
+	private Node goalNode;
+	/** The current heuristic weight. */
+	private double weight;
+	/** The number of the current weight iteration. */
+	private int iteration;
+	/** The time the search started, from System.nanoTime(). */
+	private long startTime;
+
+	/** The best solution published so far. */
+	private volatile Solution<S> bestSolution;
+	/** Every solution published so far, in order. */
+	private List<Solution<S>> solutions =
+			new CopyOnWriteArrayList<Solution<S>>();
+
+	/**
+	 * Constructs an ARA* search with the given parameters.
+	 * 
+	 * @param root
+	 *            the initial state.
+	 * @param goalTest
+	 *            a test for goal states.
+	 * @param sf
+	 *            the successor function.
+	 * @param heuristic
+	 *            the heuristic function; this should be consistent.
+	 * @param initialWeight
+	 *            the heuristic weight for the first search; at least 1.
+	 * @param weightStep
+	 *            the amount to reduce the weight by after each search; this
+	 *            must be positive.
+	 */
+	public ARAStarSearch(S root, GoalTest<S> goalTest, SuccessorFunction<S> sf,
+			Heuristic<S> heuristic, double initialWeight, double weightStep) {
+		super(root, goalTest, sf, heuristic);
+		if (initialWeight < 1 || weightStep <= 0) {
+			throw new IllegalArgumentException("Invalid weight schedule: "
+					+ initialWeight + ", " + weightStep);
+		}
+		this.initialWeight = initialWeight;
+		this.weightStep = weightStep;
+	}
+
+	/**
+	 * Asks the search to stop, by cancelling its cancel handle; this may be
+	 * called from any thread, and the best solution found so far remains
+	 * available. If no search is running, the next one stops straight away;
+	 * with the search's own handle, the one after that runs as usual.
+	 */
+	public void stop() {
+		getCancelHandle().cancel();
+	}
+
+	/**
+	 * Returns the best solution found so far; this may be called from any
+	 * thread while the search is running.
+	 * 
+	 * @return the best solution so far, or null if none has been found.
+	 */
+	public Solution<S> getBestSolution() {
+		return bestSolution;
+	}
+
+	/**
+	 * Returns every solution found so far, in the order they were found; each
+	 * is better than the last.
+	 * 
+	 * @return the solutions found so far.
+	 */
+	public List<Solution<S>> getSolutions() {
+		return new ArrayList<Solution<S>>(solutions);
+	}
+
+	/**
+	 * Runs searches with decreasing weights until an optimal solution is
+	 * found, the search space is exhausted, or the search is stopped by
+	 * stop(), its cancel handle, or its limits.
+	 */
+	@Override
+	public void search() {
+		beginSearch();
+		bestSolution = null;
+		solutions.clear();
+		startTime = System.nanoTime();
+
+		nodes = new HashMap<S, Node>();
+		open = new PriorityQueue<OpenEntry>();
+		inconsistent = new ArrayList<Node>();
+		goalNode = null;
+		weight = initialWeight;
+		iteration = 0;
+
+		Node root = getNode(getRoot());
+		root.g = 0;
+		if (getGoalTest().isGoal(getRoot())) {
+			goalNode = root;
+		}
+		insertOpen(root);
+
+		while (true) {
+			long iterationStart = System.nanoTime();
+			long startExpansions = getExpansions();
+			long startGenerated = getStatistics().getGenerated();
+			notifyIterationStarted(weight);
+			boolean improved = improvePath();
+			addIteration(weight, getExpansions() - startExpansions,
+					getStatistics().getGenerated() - startGenerated,
+					System.nanoTime() - iterationStart);
+			if (!improved) {
+				publishInterrupted();
+				return;
+			}
+			notifyIterationFinished(weight, getExpansions() - startExpansions);
+			double bound = currentBound();
+			if (goalNode != null) {
+				publish(bound);
+			}
+			if (bound <= 1 || (open.isEmpty() && inconsistent.isEmpty())) {
+				endSearch(goalNode != null);
+				return;
+			}
+
+			// Reduce the weight, and reopen everything that was improved
+			// after being expanded.
+			weight = Math.max(1, Math.min(weight - weightStep, bound));
+			iteration++;
+			List<Node> reopen = new ArrayList<Node>(inconsistent);
+			for (OpenEntry entry : open) {
+				if (entry.node.open == entry) {
+					reopen.add(entry.node);
+				}
+			}
+			inconsistent.clear();
+			open.clear();
+			for (Node node : reopen) {
+				node.incons = false;
+				insertOpen(node);
+			}
+		}
+	}
+
+	/**
+	 * Expands states in order of weighted priority until the best goal found
+	 * so far can no longer be improved on at the current weight.
+	 * 
+	 * @return true if the iteration completed, or false if the search was
+	 *         stopped first.
+	 */
+	private boolean improvePath() {
+		while (true) {
+			OpenEntry entry = open.peek();
+			while (entry != null && entry.node.open != entry) {
+				open.remove();
+				entry = open.peek();
+			}
+			if (entry == null || (goalNode != null && goalNode.g <= entry.f)) {
+				return true;
+			}
+			if (!withinBudget(1, nodes.size())) {
+				return false;
+			}
+			open.remove();
+			Node node = entry.node;
+			node.open = null;
+			node.closedIn = iteration;
+			notifyExpanded(node.state, node.depth);
+
+			Map<S, Double> succMap = successorsOf(node.state);
+			for (Map.Entry<S, Double> succ : succMap.entrySet()) {
+				Node child = getNode(succ.getKey());
+				double g = node.g + succ.getValue();
+				if (g >= child.g) {
+					countDuplicate();
+					continue;
+				}
+				child.g = g;
+				child.parent = node;
+				child.depth = node.depth + 1;
+				if (getGoalTest().isGoal(child.state)
+						&& (goalNode == null || g < goalNode.g)) {
+					goalNode = child;
+				}
+				if (child.closedIn != iteration) {
+					insertOpen(child);
+				} else if (!child.incons) {
+					child.incons = true;
+					inconsistent.add(child);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the node for the given state, creating it if necessary.
+	 * 
+	 * @param s
+	 *            the state.
+	 * @return the node for the state.
+	 */
+	private Node getNode(S s) {
+		Node node = nodes.get(s);
+		if (node == null) {
+			node = new Node(s, heuristicEstimate(s));
+			node.g = Double.POSITIVE_INFINITY;
+			nodes.put(s, node);
+		}
+		return node;
+	}
+
+	/**
+	 * Places a node in the open list with its current weighted priority,
+	 * replacing any entry it already had.
+	 * 
+	 * @param node
+	 *            the node.
+	 */
+	private void insertOpen(Node node) {
+		node.open = new OpenEntry(node, node.g + weight * node.h);
+		open.add(node.open);
+	}
+
+	/**
+	 * Returns the current suboptimality bound: the cost of the best goal over
+	 * the lowest unweighted f-value of any state that may still need to be
+	 * expanded, capped at the current weight.
+	 * 
+	 * @return the suboptimality bound, or infinity if no goal has been found.
+	 */
+	private double currentBound() {
+		if (goalNode == null) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double minF = goalNode.g;
+		for (OpenEntry entry : open) {
+			if (entry.node.open == entry) {
+				minF = Math.min(minF, entry.node.g + entry.node.h);
+			}
+		}
+		for (Node node : inconsistent) {
+			minF = Math.min(minF, node.g + node.h);
+		}
+		if (minF <= 0) {
+			return goalNode.g <= 0 ? 1 : weight;
+		}
+		return Math.max(1, Math.min(weight, goalNode.g / minF));
+	}
+
+	/**
+	 * Publishes the best goal found by a search that was stopped part way
+	 * through, if it improves on the last solution. The bound of the last
+	 * solution still applies, scaled down by the improvement in cost.
+	 */
+	private void publishInterrupted() {
+		Solution<S> last = bestSolution;
+		if (goalNode == null
+				|| (last != null && last.getCost() <= goalNode.g)) {
+			return;
+		}
+		double bound = Double.POSITIVE_INFINITY;
+		if (last != null) {
+			bound = Math.max(1, last.getBound() * goalNode.g / last.getCost());
+		}
+		publish(bound);
+	}
+
+	/**
+	 * Publishes the current best goal as a solution with the given bound, if
+	 * it is better than the last solution published.
+	 * 
+	 * @param bound
+	 *            the suboptimality bound.
+	 */
+	private void publish(double bound) {
+		Solution<S> last = bestSolution;
+		if (last != null && last.getCost() <= goalNode.g
+				&& last.getBound() <= bound) {
+			return;
+		}
+		List<S> path = new ArrayList<S>();
+		for (Node node = goalNode; node != null; node = node.parent) {
+			path.add(node.state);
+		}
+		Collections.reverse(path);
+		Solution<S> solution = new Solution<S>(path, goalNode.g, weight,
+				bound, System.nanoTime() - startTime);
+		solutions.add(solution);
+		bestSolution = solution;
+	}
+
+	@Override
+	public boolean goalFound() {
+		return bestSolution != null;
+	}
+
+	@Override
+	public S getGoalState() {
+		List<S> path = bestSolution.getPath();
+		return path.get(path.size() - 1);
+	}
+
+	@Override
+	public int getGoalDepth() {
+		return bestSolution.getPath().size() - 1;
+	}
+
+	@Override
+	public double getGoalCost() {
+		return bestSolution.getCost();
+	}
+
+	@Override
+	public List<S> getGoalPath() {
+		return new ArrayList<S>(bestSolution.getPath());
+	}
+}
@@ -0,0 +1,222 @@
+package search.algorithms.async;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.BiConsumer;
+
+import search.algorithms.AbstractSearchAlgorithm;
+import search.algorithms.SearchResult;
+import search.algorithms.metrics.MetricsRegistry;
+import search.states.State;
+
+/**
+ * Runs searches in the background, returning a future for the result of
+ * each. Every search runs on a thread of its own; where the JVM supports
+ * virtual threads they are used, so that very many searches may be waiting
+ * at once, and otherwise a fixed pool of ordinary threads is used instead.
+ * Either way, no more than a set number of searches run at the same time.
+ * 
+ * Each submitted search must be a separate instance, which is not used
+ * again until its future completes. Cancelling a future cancels its search.
+ * If a metrics registry is set, each search is recorded in it as it finishes,
+ * by the simple names of its class and of the class of its root state.
+ * 
+ * @author lackofcheese
+ */
+public class AsyncSearcher {
+	/** Runs the searches. */
+	private final ExecutorService executor;
+	/** Limits the number of searches running on virtual threads. */
+	private final Semaphore permits;
+	/** Records the finished searches, or null if they are not recorded. */
+	private volatile MetricsRegistry metrics;
+
+	/**
+	 * Constructs a searcher that runs as many searches at once as there are
+	 * processors.
+	 */
+	public AsyncSearcher() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructs a searcher that runs at most the given number of searches at
+	 * once.
+	 * 
+	 * @param maxConcurrent
+	 *            the largest number of searches to run at once.
+	 */
+	public AsyncSearcher(int maxConcurrent) {
+		if (maxConcurrent < 1) {
+			throw new IllegalArgumentException(
+					"At least one search must be allowed to run");
+		}
+		ExecutorService virtual = createVirtualExecutor();
+		if (virtual != null) {
+			this.executor = virtual;
+			this.permits = new Semaphore(maxConcurrent);
+		} else {
+			this.executor = Executors.newFixedThreadPool(maxConcurrent,
+					new ThreadFactory() {
+						@Override
+						public Thread newThread(Runnable r) {
+							Thread thread = new Thread(r, "async-search");
+							thread.setDaemon(true);
+							return thread;
+						}
+					});
+			this.permits = null;
+		}
+	}
+
+	/**
+	 * Creates an executor that runs each task on a new virtual thread.
+	 * 
+	 * @return the executor, or null if virtual threads are not available.
+	 */
+	private static ExecutorService createVirtualExecutor() {
+		try {
+			Method factory = Executors.class
+					.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return null;
+		} catch (UnsupportedOperationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns whether searches are run on virtual threads.
+	 * 
+	 * @return true if virtual threads are used.
+	 */
+	public boolean usesVirtualThreads() {
+		return permits != null;
+	}
+
+	/**
+	 * Sets the registry in which to record searches as they finish; null
+	 * stops them being recorded.
+	 * 
+	 * @param metrics
+	 *            the metrics registry.
+	 */
+	public void setMetricsRegistry(MetricsRegistry metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Returns the registry in which searches are recorded as they finish.
+	 * 
+	 * @return the metrics registry, or null if there is none.
+	 */
+	public MetricsRegistry getMetricsRegistry() {
+		return metrics;
+	}
+
+	/**
+	 * Submits a search to be run in the background.
+	 * 
+	 * @param algorithm
+	 *            the search, which must not be used by anything else until
+	 *            the returned future completes.
+	 * @return a future for the result of the search; it completes
+	 *         exceptionally if the search throws anything, including an Error.
+	 * @throws RejectedExecutionException
+	 *             if the searcher has been shut down.
+	 */
+	public <S extends State> CompletableFuture<SearchResult<S>> submit(
+			final AbstractSearchAlgorithm<S> algorithm) {
+		final CompletableFuture<SearchResult<S>> future =
+				new CompletableFuture<SearchResult<S>>();
+		future.whenComplete(new BiConsumer<SearchResult<S>, Throwable>() {
+			@Override
+			public void accept(SearchResult<S> result, Throwable error) {
+				if (future.isCancelled()) {
+					algorithm.getCancelHandle().cancel();
+				}
+			}
+		});
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				if (permits == null) {
+					runSearch(algorithm, future);
+					return;
+				}
+				try {
+					permits.acquire();
+				} catch (InterruptedException e) {
+					future.completeExceptionally(e);
+					return;
+				}
+				try {
+					runSearch(algorithm, future);
+				} finally {
+					permits.release();
+				}
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * Runs a search, unless its future has already completed, and completes
+	 * the future with its result; the search is recorded first, so that it
+	 * is counted by the time the future completes. If the search throws
+	 * anything, the future completes exceptionally; an Error is then thrown
+	 * on, after the future has completed.
+	 * 
+	 * @param algorithm
+	 *            the search.
+	 * @param future
+	 *            the future for its result.
+	 */
+	private <S extends State> void runSearch(
+			AbstractSearchAlgorithm<S> algorithm,
+			CompletableFuture<SearchResult<S>> future) {
+		if (future.isDone()) {
+			return;
+		}
+		MetricsRegistry metrics = this.metrics;
+		try {
+			long startTime = System.nanoTime();
+			algorithm.search();
+			SearchResult<S> result = SearchResult.of(algorithm,
+					System.nanoTime() - startTime);
+			if (metrics != null) {
+				metrics.record(algorithm.getClass().getSimpleName(),
+						algorithm.getRoot().getClass().getSimpleName(), result);
+			}
+			future.complete(result);
+		} catch (Throwable e) {
+			try {
+				if (metrics != null) {
+					metrics.forSearch(algorithm.getClass().getSimpleName(),
+							algorithm.getRoot().getClass().getSimpleName())
+							.recordFailure();
+				}
+			} finally {
+				future.completeExceptionally(e);
+			}
+			if (e instanceof Error) {
+				// Errors such as OutOfMemoryError still reach the thread.
+				throw (Error) e;
+			}
+		}
+	}
+
+	/**
+	 * Stops accepting new searches; those already submitted still run, and
+	 * may be stopped by cancelling their futures.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+}
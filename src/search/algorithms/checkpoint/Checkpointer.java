@@ -0,0 +1,335 @@
+package search.algorithms.checkpoint;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import search.states.State;
+import search.states.StateSerializer;
+
+/**
+ * Periodically saves the progress of a search to a binary file, and reads it
+ * back so that the search can be resumed.
+ * 
+ * A search asks isDue() as it goes, which only reads the clock once every
+ * few steps; when a checkpoint is due, it takes a snapshot and passes it to
+ * submit(). The snapshot is written out by a background thread, first to a
+ * temporary file which then replaces the checkpoint file, so that the file
+ * always holds a complete checkpoint. If a new snapshot arrives while an
+ * older one is still waiting to be written, only the newer one is written.
+ * 
+ * @author lackofcheese
+ * @param <S>
+ *            the type of state used.
+ */
+public class Checkpointer<S extends State> {
+	/** Identifies a checkpoint file. */
+	private static final int MAGIC = 0x53434B50;
+	/** The version of the checkpoint file format. */
+	private static final int VERSION = 1;
+	/** The number of calls to isDue() between checks of the clock. */
+	private static final int CLOCK_CHECK_INTERVAL = 1024;
+	/** The size of the file buffers, in bytes. */
+	private static final int BUFFER_BYTES = 1 << 16;
+
+	/** The checkpoint file. */
+	private final File file;
+	/** Writes and reads the states. */
+	private final StateSerializer<S> serializer;
+	/** The time between checkpoints, in nanoseconds. */
+	private final long intervalNanos;
+
+	/** The time the next checkpoint is due, from System.nanoTime(). */
+	private long nextDue;
+	/** The number of calls to isDue() until the clock is next checked. */
+	private int clockCountdown = CLOCK_CHECK_INTERVAL;
+	/** The snapshot waiting to be written, if any. */
+	private final AtomicReference<SearchCheckpoint<S>> pending =
+			new AtomicReference<SearchCheckpoint<S>>();
+	/** The thread that writes the snapshots. */
+	private final ExecutorService writer;
+	/** The number of checkpoints written so far. */
+	private volatile long written;
+	/** The error from the last failed write, or null if there was none. */
+	private volatile IOException lastError;
+
+	/**
+	 * Constructs a checkpointer with the given parameters.
+	 * 
+	 * @param file
+	 *            the checkpoint file.
+	 * @param serializer
+	 *            writes and reads the states.
+	 * @param interval
+	 *            the time between checkpoints.
+	 * @param unit
+	 *            the unit of the interval.
+	 */
+	public Checkpointer(File file, StateSerializer<S> serializer,
+			long interval, TimeUnit unit) {
+		this.file = file;
+		this.serializer = serializer;
+		this.intervalNanos = unit.toNanos(interval);
+		this.nextDue = System.nanoTime() + intervalNanos;
+		this.writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "checkpoint-writer");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Returns the checkpoint file.
+	 * 
+	 * @return the checkpoint file.
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Returns true if a checkpoint is due; this is cheap enough to be called
+	 * on every step of a search.
+	 * 
+	 * @return true if a checkpoint should be taken now.
+	 */
+	public boolean isDue() {
+		if (--clockCountdown > 0) {
+			return false;
+		}
+		clockCountdown = CLOCK_CHECK_INTERVAL;
+		long now = System.nanoTime();
+		if (now - nextDue < 0) {
+			return false;
+		}
+		nextDue = now + intervalNanos;
+		return true;
+	}
+
+	/**
+	 * Queues a snapshot to be written by the background thread, replacing
+	 * any snapshot that is still waiting; this returns straight away.
+	 * 
+	 * @param checkpoint
+	 *            the snapshot; it must not be modified afterwards.
+	 */
+	public void submit(SearchCheckpoint<S> checkpoint) {
+		if (pending.getAndSet(checkpoint) == null) {
+			writer.execute(new Runnable() {
+				@Override
+				public void run() {
+					SearchCheckpoint<S> next = pending.getAndSet(null);
+					if (next == null) {
+						return;
+					}
+					try {
+						write(next);
+						written++;
+						lastError = null;
+					} catch (IOException e) {
+						lastError = e;
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Waits until every submitted snapshot has been written.
+	 * 
+	 * @throws IOException
+	 *             if the last write failed.
+	 * @throws InterruptedException
+	 *             if the wait is interrupted.
+	 */
+	public void flush() throws IOException, InterruptedException {
+		try {
+			writer.submit(new Runnable() {
+				@Override
+				public void run() {
+				}
+			}).get();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+		if (lastError != null) {
+			throw lastError;
+		}
+	}
+
+	/**
+	 * Writes any remaining snapshot, and stops the background thread.
+	 * 
+	 * @throws IOException
+	 *             if the last write failed.
+	 * @throws InterruptedException
+	 *             if the wait is interrupted.
+	 */
+	public void close() throws IOException, InterruptedException {
+		try {
+			flush();
+		} finally {
+			writer.shutdown();
+		}
+	}
+
+	/**
+	 * Returns the number of checkpoints written so far.
+	 * 
+	 * @return the number of checkpoints written.
+	 */
+	public long getWrittenCount() {
+		return written;
+	}
+
+	/**
+	 * Returns the error from the last write, if it failed.
+	 * 
+	 * @return the error, or null if the last write succeeded.
+	 */
+	public IOException getLastError() {
+		return lastError;
+	}
+
+	/**
+	 * Returns true if the checkpoint file exists.
+	 * 
+	 * @return true if there is a checkpoint to resume from.
+	 */
+	public boolean exists() {
+		return file.exists();
+	}
+
+	/**
+	 * Writes a snapshot to a temporary file, and then moves it over the
+	 * checkpoint file.
+	 * 
+	 * @param checkpoint
+	 *            the snapshot.
+	 * @throws IOException
+	 *             if the file cannot be written.
+	 */
+	private void write(SearchCheckpoint<S> checkpoint) throws IOException {
+		File temp = new File(file.getPath() + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(temp), BUFFER_BYTES));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeUTF(checkpoint.getAlgorithm());
+			out.writeLong(checkpoint.getExpansions());
+			Map<String, Long> counters = checkpoint.getCounters();
+			out.writeInt(counters.size());
+			for (Map.Entry<String, Long> counter : counters.entrySet()) {
+				out.writeUTF(counter.getKey());
+				out.writeLong(counter.getValue());
+			}
+			writeEntries(checkpoint.getOpen(), out);
+			writeEntries(checkpoint.getClosed(), out);
+		} finally {
+			out.close();
+		}
+		Files.move(temp.toPath(), file.toPath(),
+				StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Writes a list of entries.
+	 * 
+	 * @param entries
+	 *            the entries.
+	 * @param out
+	 *            the output to write to.
+	 * @throws IOException
+	 *             if the output cannot be written.
+	 */
+	private void writeEntries(List<SearchCheckpoint.Entry<S>> entries,
+			DataOutputStream out) throws IOException {
+		out.writeInt(entries.size());
+		for (SearchCheckpoint.Entry<S> entry : entries) {
+			serializer.write(entry.getState(), out);
+			out.writeBoolean(entry.getPred() != null);
+			if (entry.getPred() != null) {
+				serializer.write(entry.getPred(), out);
+			}
+			out.writeInt(entry.getDepth());
+			out.writeDouble(entry.getTotalCost());
+			out.writeDouble(entry.getHeuristicEstimate());
+			out.writeInt(entry.getData());
+		}
+	}
+
+	/**
+	 * Reads the latest checkpoint from the checkpoint file.
+	 * 
+	 * @return the checkpoint.
+	 * @throws IOException
+	 *             if the file cannot be read, or is not a checkpoint file.
+	 */
+	public SearchCheckpoint<S> read() throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(file), BUFFER_BYTES));
+		try {
+			if (in.readInt() != MAGIC) {
+				throw new IOException(file + " is not a checkpoint file");
+			}
+			int version = in.readInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported checkpoint version "
+						+ version);
+			}
+			SearchCheckpoint<S> checkpoint = new SearchCheckpoint<S>(
+					in.readUTF(), in.readLong());
+			int counters = in.readInt();
+			for (int i = 0; i < counters; i++) {
+				checkpoint.putCounter(in.readUTF(), in.readLong());
+			}
+			readEntries(checkpoint.getOpen(), in);
+			readEntries(checkpoint.getClosed(), in);
+			return checkpoint;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Reads a list of entries.
+	 * 
+	 * @param entries
+	 *            the list to add the entries to.
+	 * @param in
+	 *            the input to read from.
+	 * @throws IOException
+	 *             if the input cannot be read.
+	 */
+	private void readEntries(List<SearchCheckpoint.Entry<S>> entries,
+			DataInputStream in) throws IOException {
+		int count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			S state = serializer.read(in);
+			S pred = in.readBoolean() ? serializer.read(in) : null;
+			entries.add(new SearchCheckpoint.Entry<S>(state, pred,
+					in.readInt(), in.readDouble(), in.readDouble(),
+					in.readInt()));
+		}
+	}
+}
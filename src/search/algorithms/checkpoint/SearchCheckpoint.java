@@ -0,0 +1,268 @@
+package search.algorithms.checkpoint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import search.states.State;
+
+/**
+ * A snapshot of the progress of a search, from which it can be resumed. This
+ * holds the entries of the open list and the closed set, along with the
+ * number of steps taken and any counters specific to the algorithm.
+ * 
+ * Taking a snapshot still costs time and memory in proportion to the size of
+ * the search. To keep that cost down, a search may give the snapshot views
+ * of the open list and closed set, which build their entries only as they
+ * are read, e.g. by the Checkpointer's background thread as it writes them
+ * out; the search then need only copy a reference to each state, as states
+ * are immutable.
+ * 
+ * @author lackofcheese
+ * @param <S>
+ *            the type of state used.
+ */
+public class SearchCheckpoint<S extends State> {
+	/**
+	 * A single entry of the open list or closed set. Closed set entries use
+	 * only the state and its predecessor.
+	 * 
+	 * @author lackofcheese
+	 * @param <S>
+	 *            the type of state used.
+	 */
+	public static class Entry<S extends State> {
+		/** The state. */
+		private final S state;
+		/** The predecessor of the state, or null if there is none. */
+		private final S pred;
+		/** The depth in the search tree. */
+		private final int depth;
+		/** The cost to reach the state. */
+		private final double totalCost;
+		/** The heuristic estimate for the state. */
+		private final double heuristicEstimate;
+		/** Any additional data used by the search, encoded as an int. */
+		private final int data;
+
+		/**
+		 * Constructs an entry with the given values.
+		 * 
+		 * @param state
+		 *            the state.
+		 * @param pred
+		 *            the predecessor of the state, or null.
+		 * @param depth
+		 *            the depth in the search tree.
+		 * @param totalCost
+		 *            the cost to reach the state.
+		 * @param heuristicEstimate
+		 *            the heuristic estimate for the state.
+		 * @param data
+		 *            any additional data, encoded as an int.
+		 */
+		public Entry(S state, S pred, int depth, double totalCost,
+				double heuristicEstimate, int data) {
+			this.state = state;
+			this.pred = pred;
+			this.depth = depth;
+			this.totalCost = totalCost;
+			this.heuristicEstimate = heuristicEstimate;
+			this.data = data;
+		}
+
+		/**
+		 * Constructs an entry holding only a state and its predecessor.
+		 * 
+		 * @param state
+		 *            the state.
+		 * @param pred
+		 *            the predecessor of the state, or null.
+		 */
+		public Entry(S state, S pred) {
+			this(state, pred, 0, 0, 0, 0);
+		}
+
+		/**
+		 * Returns the state.
+		 * 
+		 * @return the state.
+		 */
+		public S getState() {
+			return state;
+		}
+
+		/**
+		 * Returns the predecessor of the state.
+		 * 
+		 * @return the predecessor, or null if there is none.
+		 */
+		public S getPred() {
+			return pred;
+		}
+
+		/**
+		 * Returns the depth in the search tree.
+		 * 
+		 * @return the depth.
+		 */
+		public int getDepth() {
+			return depth;
+		}
+
+		/**
+		 * Returns the cost to reach the state.
+		 * 
+		 * @return the cost so far.
+		 */
+		public double getTotalCost() {
+			return totalCost;
+		}
+
+		/**
+		 * Returns the heuristic estimate for the state.
+		 * 
+		 * @return the heuristic estimate.
+		 */
+		public double getHeuristicEstimate() {
+			return heuristicEstimate;
+		}
+
+		/**
+		 * Returns the additional data used by the search.
+		 * 
+		 * @return the encoded data.
+		 */
+		public int getData() {
+			return data;
+		}
+	}
+
+	/** The name of the algorithm that took the snapshot. */
+	private final String algorithm;
+	/** The number of steps taken by the search. */
+	private final long expansions;
+	/** Counters specific to the algorithm, by name. */
+	private final Map<String, Long> counters =
+			new LinkedHashMap<String, Long>();
+	/** The entries of the open list, in queue order where that matters. */
+	private List<Entry<S>> open = new ArrayList<Entry<S>>();
+	/** The entries of the closed set. */
+	private List<Entry<S>> closed = new ArrayList<Entry<S>>();
+
+	/**
+	 * Constructs an empty checkpoint.
+	 * 
+	 * @param algorithm
+	 *            the name of the algorithm.
+	 * @param expansions
+	 *            the number of steps taken so far.
+	 */
+	public SearchCheckpoint(String algorithm, long expansions) {
+		this.algorithm = algorithm;
+		this.expansions = expansions;
+	}
+
+	/**
+	 * Returns the name of the algorithm that took the snapshot.
+	 * 
+	 * @return the name of the algorithm.
+	 */
+	public String getAlgorithm() {
+		return algorithm;
+	}
+
+	/**
+	 * Returns the number of steps the search had taken.
+	 * 
+	 * @return the number of steps taken.
+	 */
+	public long getExpansions() {
+		return expansions;
+	}
+
+	/**
+	 * Sets a counter specific to the algorithm.
+	 * 
+	 * @param name
+	 *            the name of the counter.
+	 * @param value
+	 *            the value of the counter.
+	 */
+	public void putCounter(String name, long value) {
+		counters.put(name, value);
+	}
+
+	/**
+	 * Returns the value of a counter specific to the algorithm.
+	 * 
+	 * @param name
+	 *            the name of the counter.
+	 * @return the value of the counter.
+	 * @throws IllegalArgumentException
+	 *             if the checkpoint has no such counter.
+	 */
+	public long getCounter(String name) {
+		Long value = counters.get(name);
+		if (value == null) {
+			throw new IllegalArgumentException("Checkpoint has no counter "
+					+ name);
+		}
+		return value;
+	}
+
+	/**
+	 * Returns all of the counters specific to the algorithm.
+	 * 
+	 * @return an unmodifiable view of the counters.
+	 */
+	public Map<String, Long> getCounters() {
+		return Collections.unmodifiableMap(counters);
+	}
+
+	/**
+	 * Returns the entries of the open list; unless they were replaced by
+	 * setOpen(), this list may be added to.
+	 * 
+	 * @return the open list entries.
+	 */
+	public List<Entry<S>> getOpen() {
+		return open;
+	}
+
+	/**
+	 * Replaces the entries of the open list, e.g. with a view that builds
+	 * them as they are read; the list must not change once the checkpoint
+	 * has been submitted.
+	 * 
+	 * @param open
+	 *            the open list entries.
+	 */
+	public void setOpen(List<Entry<S>> open) {
+		this.open = open;
+	}
+
+	/**
+	 * Returns the entries of the closed set; unless they were replaced by
+	 * setClosed(), this list may be added to.
+	 * 
+	 * @return the closed set entries.
+	 */
+	public List<Entry<S>> getClosed() {
+		return closed;
+	}
+
+	/**
+	 * Replaces the entries of the closed set, e.g. with a view that builds
+	 * them as they are read; the list must not change once the checkpoint
+	 * has been submitted.
+	 * 
+	 * @param closed
+	 *            the closed set entries.
+	 */
+	public void setClosed(List<Entry<S>> closed) {
+		this.closed = closed;
+	}
+}
@@ -8,6 +8,7 @@ import java.util.Set;
 import java.util.Stack;
 
 import search.algorithms.QueueSearch;
+import search.algorithms.checkpoint.SearchCheckpoint;
 import search.goals.GoalTest;
 import search.sfs.SuccessorFunction;
 import search.states.State;
@@ -20,14 +21,137 @@ import search.states.State;
  * put back on the stack under their successors, with a boolean flag so that
  * they are known to have been expanded.
  * 
+ * Successors are put on the stack one at a time, when the search comes back
+ * to the state that generated them, so that no entries are made for those
+ * which are never reached. They are tried in the order given by a
+ * SuccessorOrdering, if there is one, and otherwise in the order the
+ * successor function returns them.
+ * 
  * This search avoids cycles, but can still search the same state multiple times
- * if it reaches that state via different paths.
+ * if it reaches that state via different paths, unless it is given a
+ * TranspositionTable.
  * 
  * @author lackofcheese
  * @param <S>
  *            the type of state used.
  */
 public class DepthFirstSearch<S extends State> extends QueueSearch<S, Boolean> {
+	/**
+	 * The successors of a state on the current path which have not yet been
+	 * tried.
+	 * 
+	 * @author lackofcheese
+	 */
+	private class SuccessorCursor {
+		/** The successors. */
+		private final List<S> states;
+		/** The cost of the move to each successor. */
+		private final double[] costs;
+		/** The rank of each successor, if they are ordered. */
+		private final double[] ranks;
+		/** The number of successors not yet tried; these come first. */
+		private int remaining;
+
+		/**
+		 * Constructs a cursor over the successors of the given state.
+		 * 
+		 * @param state
+		 *            the state.
+		 * @param succMap
+		 *            its successors, with the cost of the move to each.
+		 */
+		public SuccessorCursor(S state, Map<S, Double> succMap) {
+			states = new ArrayList<S>(succMap.keySet());
+			remaining = states.size();
+			costs = new double[remaining];
+			ranks = ordering == null ? null : new double[remaining];
+			for (int i = 0; i < remaining; i++) {
+				S child = states.get(i);
+				costs[i] = succMap.get(child);
+				if (ranks != null) {
+					ranks[i] = ordering.rank(state, child, costs[i]);
+				}
+			}
+		}
+
+		/**
+		 * Constructs an empty cursor.
+		 */
+		public SuccessorCursor() {
+			states = new ArrayList<S>(0);
+			costs = null;
+			ranks = null;
+		}
+
+		/**
+		 * Removes the next successor to try from the cursor, and moves it to
+		 * the end of the untried successors.
+		 * 
+		 * @return the index of the successor, or -1 if there are none left.
+		 */
+		public int next() {
+			if (remaining == 0) {
+				return -1;
+			}
+			int best = 0;
+			if (ranks != null) {
+				for (int i = 1; i < remaining; i++) {
+					if (ranks[i] < ranks[best]) {
+						best = i;
+					}
+				}
+			}
+			remaining--;
+			swap(best, remaining);
+			return remaining;
+		}
+
+		/**
+		 * Swaps two successors.
+		 * 
+		 * @param i
+		 *            the index of the first successor.
+		 * @param j
+		 *            the index of the second successor.
+		 */
+		private void swap(int i, int j) {
+			S state = states.get(i);
+			states.set(i, states.get(j));
+			states.set(j, state);
+			double cost = costs[i];
+			costs[i] = costs[j];
+			costs[j] = cost;
+			if (ranks != null) {
+				double rank = ranks[i];
+				ranks[i] = ranks[j];
+				ranks[j] = rank;
+			}
+		}
+
+		/**
+		 * Returns the successors not yet tried, last to be tried first.
+		 * 
+		 * @param parent
+		 *            the entry of the state the successors belong to.
+		 * @return entries for the successors.
+		 */
+		public List<QueueEntry> untried(QueueEntry parent) {
+			// Taking every successor in turn leaves them sorted with the first
+			// to be tried at the end; they are then put back.
+			int saved = remaining;
+			while (next() >= 0) {
+			}
+			remaining = saved;
+			List<QueueEntry> entries = new ArrayList<QueueEntry>(saved);
+			for (int i = 0; i < saved; i++) {
+				entries.add(new QueueEntry(states.get(i), parent.getState(),
+						parent.getDepth() + 1, parent.getTotalCost()
+								+ costs[i], 0.0, false));
+			}
+			return entries;
+		}
+	}
+
 	/**
 	 * Constructs a depth first search with the given parameters.
 	 * 
@@ -49,12 +173,72 @@ public class DepthFirstSearch<S extends State> extends QueueSearch<S, Boolean> {
 	protected Set<S> pathSet;
 	/** The stack of states to be processed. */
 	protected Stack<QueueEntry> queue;
+	/** The untried successors of each state on the current path. */
+	private Stack<SuccessorCursor> cursors;
+	/** The table of expanded states, or null if there is none. */
+	private TranspositionTable<S> transpositions;
+	/** The order in which to try successors, or null for no order. */
+	private SuccessorOrdering<S> ordering;
+
+	/**
+	 * Sets the order in which the successors of each state are tried. Null
+	 * tries them in the order the successor function returns them.
+	 * 
+	 * @param ordering
+	 *            the successor ordering.
+	 */
+	public void setSuccessorOrdering(SuccessorOrdering<S> ordering) {
+		this.ordering = ordering;
+	}
+
+	/**
+	 * Returns the order in which the successors of each state are tried.
+	 * 
+	 * @return the successor ordering, or null if there is none.
+	 */
+	public SuccessorOrdering<S> getSuccessorOrdering() {
+		return ordering;
+	}
+
+	/**
+	 * Sets a transposition table, which stops the search from expanding a
+	 * state again if it has already searched below it deeply enough. Null
+	 * turns this off.
+	 * 
+	 * @param transpositions
+	 *            the transposition table.
+	 */
+	public void setTranspositionTable(TranspositionTable<S> transpositions) {
+		this.transpositions = transpositions;
+	}
+
+	/**
+	 * Returns the transposition table.
+	 * 
+	 * @return the transposition table, or null if there is none.
+	 */
+	public TranspositionTable<S> getTranspositionTable() {
+		return transpositions;
+	}
+
+	/**
+	 * Returns the depth the search may still go below a state at the given
+	 * depth; this is unlimited for a plain depth-first search.
+	 * 
+	 * @param depth
+	 *            the depth of the state.
+	 * @return the remaining depth.
+	 */
+	protected int remainingDepth(int depth) {
+		return Integer.MAX_VALUE;
+	}
 
 	@Override
 	protected void initSearch() {
 		queue = new Stack<QueueEntry>();
 		pathStack = new Stack<S>();
 		pathSet = new HashSet<S>();
+		cursors = new Stack<SuccessorCursor>();
 		this.enqueue(new QueueEntry(getRoot(), null, 0, 0.0, 0.0, false));
 	}
 
@@ -73,15 +257,78 @@ public class DepthFirstSearch<S extends State> extends QueueSearch<S, Boolean> {
 		return queue.isEmpty();
 	}
 
+	@Override
+	protected int queueSize() {
+		return queue.size();
+	}
+
+	/**
+	 * {@inheritDoc} Successors are only put on the stack when they are about
+	 * to be tried, so the untried successors of each state on the path are
+	 * included after its entry, as if they had all been put on the stack.
+	 */
+	@Override
+	protected Iterable<QueueEntry> queueContents() {
+		List<QueueEntry> contents = new ArrayList<QueueEntry>();
+		int level = 0;
+		for (QueueEntry qe : queue) {
+			contents.add(qe);
+			if (qe.getData()) {
+				contents.addAll(cursors.get(level++).untried(qe));
+			}
+		}
+		return contents;
+	}
+
+	@Override
+	protected int closedSize() {
+		return pathSet.size();
+	}
+
+	@Override
+	protected int encodeData(Boolean data) {
+		return data ? 1 : 0;
+	}
+
+	@Override
+	protected Boolean decodeData(int data) {
+		return data != 0;
+	}
+
+	@Override
+	protected List<SearchCheckpoint.Entry<S>> snapshotClosed() {
+		List<SearchCheckpoint.Entry<S>> closed =
+				new ArrayList<SearchCheckpoint.Entry<S>>(pathStack.size());
+		for (S s : pathStack) {
+			closed.add(new SearchCheckpoint.Entry<S>(s, null));
+		}
+		return closed;
+	}
+
+	@Override
+	protected void restoreClosed(List<SearchCheckpoint.Entry<S>> closed) {
+		// The untried successors were saved on the stack, so the states on
+		// the path have none left to try.
+		for (SearchCheckpoint.Entry<S> entry : closed) {
+			pathStack.push(entry.getState());
+			pathSet.add(entry.getState());
+			cursors.push(new SuccessorCursor());
+		}
+	}
+
 	@Override
 	public boolean processCurrentEntry() {
 		/*
-		 * If the current entry was already expanded, we are backtracking; this
-		 * means it cannot be the goal, and is no longer on the path.
+		 * If the current entry was already expanded, we are coming back to it;
+		 * its next successor is tried, or if there are none left, it cannot
+		 * be the goal, and is no longer on the path.
 		 */
 		if (currentEntry.getData()) {
-			S state = pathStack.pop();
-			pathSet.remove(state);
+			if (!enqueueNextSuccessor(currentEntry)) {
+				S state = pathStack.pop();
+				pathSet.remove(state);
+				cursors.pop();
+			}
 			return false;
 		}
 
@@ -93,26 +340,62 @@ public class DepthFirstSearch<S extends State> extends QueueSearch<S, Boolean> {
 			return true;
 		}
 
-		// It's not the goal state, so we expand it.
+		// It's not the goal state, so we expand it, unless it has already been
+		// searched to at least the same depth.
 		int currentDepth = currentEntry.getDepth();
 		double currentCost = currentEntry.getTotalCost();
-		// To remember the path, we re-queue the state under its successors, and
-		// add it to the path.
-		this.enqueue(new QueueEntry(currentState, currentEntry.getPred(),
-				currentDepth, currentCost, 0.0, true));
+		if (transpositions != null
+				&& !transpositions.visit(currentState,
+						remainingDepth(currentDepth))) {
+			this.countDuplicate();
+			return false;
+		}
+		if (ordering != null) {
+			ordering.expanded(currentState, pathStack);
+		}
+		// To remember the path, we add the state to it, and re-queue it under
+		// its first successor.
 		pathStack.push(currentState);
 		pathSet.add(currentState);
+		cursors.push(new SuccessorCursor(currentState,
+				successorsOf(currentState)));
+		QueueEntry expanded = new QueueEntry(currentState,
+				currentEntry.getPred(), currentDepth, currentCost, 0.0, true);
+		if (!enqueueNextSuccessor(expanded)) {
+			pathStack.pop();
+			pathSet.remove(currentState);
+			cursors.pop();
+		}
+		return false;
+	}
 
-		// Retrieve and process the successors.
-		Map<S, Double> succMap = getSF().getSuccessors(currentState);
-		for (Map.Entry<S, Double> entry : succMap.entrySet()) {
-			S s2 = entry.getKey();
+	/**
+	 * Puts the entry of the state at the end of the path back on the stack,
+	 * with its next successor above it; successors already on the path, or
+	 * which enqueue() does not accept, are skipped.
+	 * 
+	 * @param expanded
+	 *            the entry of the state at the end of the path.
+	 * @return true if there was a successor, or false if it has none left.
+	 */
+	private boolean enqueueNextSuccessor(QueueEntry expanded) {
+		SuccessorCursor cursor = cursors.peek();
+		for (int index = cursor.next(); index >= 0; index = cursor.next()) {
+			S s2 = cursor.states.get(index);
 			if (pathSet.contains(s2)) {
+				this.countDuplicate();
 				continue;
 			}
-			// Enqueue the successors.
-			this.enqueue(new QueueEntry(s2, currentState, currentDepth + 1,
-					currentCost + entry.getValue(), 0.0, false));
+			queue.push(expanded);
+			QueueEntry child = new QueueEntry(s2, expanded.getState(),
+					expanded.getDepth() + 1, expanded.getTotalCost()
+							+ cursor.costs[index], 0.0, false);
+			this.enqueue(child);
+			if (queue.peek() == child) {
+				return true;
+			}
+			// The successor was not queued, e.g. as it is beyond a depth limit.
+			queue.pop();
 		}
 		return false;
 	}
@@ -1,5 +1,6 @@
 package search.algorithms.depthfirst;
 
+import search.algorithms.checkpoint.SearchCheckpoint;
 import search.goals.GoalTest;
 import search.sfs.SuccessorFunction;
 import search.states.State;
@@ -15,6 +16,8 @@ import search.states.State;
 public class DepthLimitedSearch<S extends State> extends DepthFirstSearch<S> {
 	/** The depth limit for the search. */
 	private int depthLimit;
+	/** True if any state was left out because of the depth limit. */
+	private boolean cutoffOccurred;
 
 	/**
 	 * Constructs a depth-limited search with the given parameters.
@@ -43,6 +46,44 @@ public class DepthLimitedSearch<S extends State> extends DepthFirstSearch<S> {
 		return depthLimit;
 	}
 
+	/**
+	 * Returns true if the last search left out any states because they were
+	 * beyond the depth limit. If it did not, and no goal was found, then a
+	 * deeper search would not find a goal either.
+	 * 
+	 * @return true if the depth limit cut off part of the search.
+	 */
+	public boolean cutoffOccurred() {
+		return cutoffOccurred;
+	}
+
+	@Override
+	protected void initSearch() {
+		cutoffOccurred = false;
+		super.initSearch();
+	}
+
+	@Override
+	protected void saveCounters(SearchCheckpoint<S> checkpoint) {
+		checkpoint.putCounter("depthLimit", depthLimit);
+		checkpoint.putCounter("cutoffOccurred", cutoffOccurred ? 1 : 0);
+	}
+
+	@Override
+	protected void restoreCounters(SearchCheckpoint<S> checkpoint) {
+		if (checkpoint.getCounter("depthLimit") != depthLimit) {
+			throw new IllegalArgumentException("Checkpoint has depth limit "
+					+ checkpoint.getCounter("depthLimit") + ", not "
+					+ depthLimit);
+		}
+		cutoffOccurred = checkpoint.getCounter("cutoffOccurred") != 0;
+	}
+
+	@Override
+	protected int remainingDepth(int depth) {
+		return depthLimit - depth;
+	}
+
 	/**
 	 * {@inheritDoc} As a modification, the state is not enqueued if it is
 	 * beyond the depth limit.
@@ -51,6 +92,8 @@ public class DepthLimitedSearch<S extends State> extends DepthFirstSearch<S> {
 	protected void enqueue(QueueEntry qe) {
 		if (qe.getDepth() <= depthLimit) {
 			queue.push(qe);
+		} else {
+			cutoffOccurred = true;
 		}
 	}
 }
@@ -0,0 +1,39 @@
+package search.algorithms.depthfirst;
+
+import java.util.List;
+
+import search.heuristics.Heuristic;
+import search.states.State;
+
+/**
+ * Tries the successors with the lowest estimated total cost first, i.e. the
+ * cost of the move plus the heuristic estimate from the successor.
+ * 
+ * @author lackofcheese
+ * @param <S>
+ *            the type of state used.
+ */
+public class HeuristicOrdering<S extends State> implements
+		SuccessorOrdering<S> {
+	/** The heuristic. */
+	private final Heuristic<S> heuristic;
+
+	/**
+	 * Constructs an ordering using the given heuristic.
+	 * 
+	 * @param heuristic
+	 *            the heuristic.
+	 */
+	public HeuristicOrdering(Heuristic<S> heuristic) {
+		this.heuristic = heuristic;
+	}
+
+	@Override
+	public double rank(S parent, S child, double cost) {
+		return cost + heuristic.estimate(child);
+	}
+
+	@Override
+	public void expanded(S state, List<S> path) {
+	}
+}
@@ -0,0 +1,104 @@
+package search.algorithms.depthfirst;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import search.heuristics.Heuristic;
+import search.states.State;
+
+/**
+ * A history heuristic for single-agent depth-first search. Whenever the
+ * search expands a state with a lower heuristic estimate than any it has
+ * expanded before, every state on the path to it is credited; successors are
+ * then ranked by their estimate less a bonus for each credit they have
+ * earned, so that the search returns first to the lines that have come
+ * closest to the goal.
+ * 
+ * The history is kept for as long as the ordering is used, so when it is
+ * shared by the iterations of an IterativeDeepeningSearch, each iteration
+ * starts with what the earlier ones learned. To bound its memory, the history
+ * is forgotten once it holds too many states.
+ * 
+ * @author lackofcheese
+ * @param <S>
+ *            the type of state used.
+ */
+public class HistoryOrdering<S extends State> implements SuccessorOrdering<S> {
+	/** The default largest number of states to hold a history for. */
+	public static final int DEFAULT_MAX_ENTRIES = 1 << 20;
+
+	/** The heuristic. */
+	private final Heuristic<S> heuristic;
+	/** The reduction in rank for each credit. */
+	private final double creditWeight;
+	/** The largest number of states to hold a history for. */
+	private final int maxEntries;
+	/** The number of credits earned by each state. */
+	private final Map<S, Integer> credits = new HashMap<S, Integer>();
+	/** The lowest estimate of any state expanded so far. */
+	private double bestEstimate = Double.POSITIVE_INFINITY;
+
+	/**
+	 * Constructs a history ordering with the given parameters.
+	 * 
+	 * @param heuristic
+	 *            the heuristic.
+	 * @param creditWeight
+	 *            the reduction in rank for each credit, in the same units as
+	 *            the heuristic.
+	 * @param maxEntries
+	 *            the largest number of states to hold a history for.
+	 */
+	public HistoryOrdering(Heuristic<S> heuristic, double creditWeight,
+			int maxEntries) {
+		this.heuristic = heuristic;
+		this.creditWeight = creditWeight;
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * Constructs a history ordering in which each credit is worth a unit of
+	 * the heuristic.
+	 * 
+	 * @param heuristic
+	 *            the heuristic.
+	 */
+	public HistoryOrdering(Heuristic<S> heuristic) {
+		this(heuristic, 1.0, DEFAULT_MAX_ENTRIES);
+	}
+
+	@Override
+	public double rank(S parent, S child, double cost) {
+		Integer count = credits.get(child);
+		double bonus = count == null ? 0 : count * creditWeight;
+		return cost + heuristic.estimate(child) - bonus;
+	}
+
+	@Override
+	public void expanded(S state, List<S> path) {
+		double estimate = heuristic.estimate(state);
+		if (estimate >= bestEstimate) {
+			return;
+		}
+		bestEstimate = estimate;
+		if (credits.size() + path.size() + 1 > maxEntries) {
+			credits.clear();
+		}
+		for (S s : path) {
+			credit(s);
+		}
+		credit(state);
+	}
+
+	/**
+	 * Gives a state one more credit.
+	 * 
+	 * @param s
+	 *            the state.
+	 */
+	private void credit(S s) {
+		Integer count = credits.get(s);
+		credits.put(s, count == null ? 1 : count + 1);
+	}
+}
@@ -0,0 +1,226 @@
+package search.algorithms.depthfirst;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import search.algorithms.AbstractSearchAlgorithm;
+import search.goals.EqualGoalTest;
+import search.goals.GoalTest;
+import search.sfs.MoveModel;
+import search.sfs.MoveModelSF;
+import search.states.State;
+
+/**
+ * An Iterative Deepening Search which walks the state space with a move
+ * model, applying and undoing moves on a single working state rather than
+ * creating a new state for every successor.
+ * 
+ * The inverse of the last move is never tried, as it would only lead back to
+ * the previous state; unlike DepthFirstSearch, longer cycles on the current
+ * path are not checked for, since that would need the states on the path to
+ * be stored. They are still bounded by the depth limit.
+ * 
+ * If the goal test is an EqualGoalTest, the working state is compared with
+ * the goal directly; otherwise, it is converted into a state to be tested.
+ * 
+ * @author lackofcheese
+ * @param <S>
+ *            the type of state used.
+ * @param <W>
+ *            the type of the mutable working state.
+ */
+public class InPlaceIterativeDeepeningSearch<S extends State, W> extends
+		AbstractSearchAlgorithm<S> {
+	/** The outcome of searching below a state: a goal was found. */
+	private static final int FOUND = 0;
+	/** The outcome of searching below a state: the depth limit was hit. */
+	private static final int CUTOFF = 1;
+	/** The outcome of searching below a state: there is no goal below it. */
+	private static final int FAILED = 2;
+	/** The outcome of searching below a state: the search was stopped. */
+	private static final int STOPPED = 3;
+
+	/** The move model. */
+	private final MoveModel<S, W> model;
+	/** The goal state, if the goal test is an EqualGoalTest. */
+	private final S goalState;
+
+	/** The working state. */
+	private W working;
+	/** The moves applicable at each depth; getMaxMoves() per depth. */
+	private int[] moveBuffer;
+	/** Receives the applicable moves before they are copied into place. */
+	private int[] scratchMoves;
+	/** The moves on the current path. */
+	private int[] pathMoves;
+	/** The moves on the path to the goal, or null if none was found. */
+	private int[] goalMoves;
+	/** The cost of the path to the goal. */
+	private double goalCost;
+
+	/**
+	 * Constructs an in-place IDS with the given parameters.
+	 * 
+	 * @param root
+	 *            the initial state.
+	 * @param goalTest
+	 *            a test for the goal state.
+	 * @param model
+	 *            the move model.
+	 */
+	@SuppressWarnings("unchecked")
+	public InPlaceIterativeDeepeningSearch(S root, GoalTest<S> goalTest,
+			MoveModel<S, W> model) {
+		super(root, goalTest, new MoveModelSF<S, W>(model));
+		this.model = model;
+		if (goalTest instanceof EqualGoalTest) {
+			this.goalState = ((EqualGoalTest<S>) goalTest).getGoalState();
+		} else {
+			this.goalState = null;
+		}
+	}
+
+	@Override
+	public void search() {
+		beginSearch();
+		goalMoves = null;
+		working = model.createWorking(getRoot());
+		int maxMoves = model.getMaxMoves();
+		scratchMoves = new int[maxMoves];
+		for (int depthLimit = 0;; depthLimit++) {
+			moveBuffer = new int[(depthLimit + 1) * maxMoves];
+			pathMoves = new int[depthLimit];
+			long startTime = System.nanoTime();
+			long startExpansions = getExpansions();
+			long startGenerated = getStatistics().getGenerated();
+			notifyIterationStarted(depthLimit);
+			int outcome = searchBelow(0, depthLimit, MoveModel.NO_MOVE, 0);
+			addIteration(depthLimit, getExpansions() - startExpansions,
+					getStatistics().getGenerated() - startGenerated,
+					System.nanoTime() - startTime);
+			if (outcome != STOPPED) {
+				notifyIterationFinished(depthLimit, getExpansions()
+						- startExpansions);
+			}
+			if (outcome == FOUND) {
+				endSearch(true);
+				return;
+			} else if (outcome == FAILED) {
+				endSearch(false);
+				return;
+			} else if (outcome == STOPPED) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Searches below the working state, which is at the given depth; the
+	 * working state is left unchanged afterwards, unless a goal is found.
+	 * 
+	 * @param depth
+	 *            the depth of the working state.
+	 * @param depthLimit
+	 *            the depth limit.
+	 * @param lastMove
+	 *            the move that led to the working state, or NO_MOVE.
+	 * @param cost
+	 *            the cost of the path to the working state.
+	 * @return FOUND, CUTOFF, FAILED or STOPPED.
+	 */
+	private int searchBelow(int depth, int depthLimit, int lastMove,
+			double cost) {
+		if (!withinBudget(1, depth + 1)) {
+			return STOPPED;
+		}
+		if (getSearchListener() != null) {
+			// The working state is only copied out when someone is watching.
+			notifyExpanded(model.toState(working), depth);
+		}
+		if (isGoal()) {
+			goalMoves = new int[depth];
+			System.arraycopy(pathMoves, 0, goalMoves, 0, depth);
+			goalCost = cost;
+			return FOUND;
+		}
+		int maxMoves = model.getMaxMoves();
+		int offset = depth * maxMoves;
+		int count = model.getMoves(working, scratchMoves);
+		int skip = lastMove == MoveModel.NO_MOVE ? MoveModel.NO_MOVE : model
+				.inverse(lastMove);
+		if (depth == depthLimit) {
+			// No move is applied here, so none is counted as generated; any
+			// move other than the way back leads past the limit.
+			for (int i = 0; i < count; i++) {
+				if (scratchMoves[i] != skip) {
+					return CUTOFF;
+				}
+			}
+			return FAILED;
+		}
+		countGenerated(count);
+		System.arraycopy(scratchMoves, 0, moveBuffer, offset, count);
+		boolean cutoff = false;
+		for (int i = 0; i < count; i++) {
+			int move = moveBuffer[offset + i];
+			if (move == skip) {
+				countDuplicate();
+				continue;
+			}
+			double moveCost = model.apply(working, move);
+			pathMoves[depth] = move;
+			int outcome = searchBelow(depth + 1, depthLimit, move, cost
+					+ moveCost);
+			if (outcome == FOUND || outcome == STOPPED) {
+				return outcome;
+			}
+			model.undo(working, move);
+			cutoff |= outcome == CUTOFF;
+		}
+		return cutoff ? CUTOFF : FAILED;
+	}
+
+	/**
+	 * Returns true if the working state is a goal.
+	 * 
+	 * @return true if the working state is a goal.
+	 */
+	private boolean isGoal() {
+		if (goalState != null) {
+			return model.matches(working, goalState);
+		}
+		return getGoalTest().isGoal(model.toState(working));
+	}
+
+	@Override
+	public boolean goalFound() {
+		return goalMoves != null;
+	}
+
+	@Override
+	public S getGoalState() {
+		return model.toState(working);
+	}
+
+	@Override
+	public int getGoalDepth() {
+		return goalMoves.length;
+	}
+
+	@Override
+	public double getGoalCost() {
+		return goalCost;
+	}
+
+	@Override
+	public List<S> getGoalPath() {
+		List<S> path = new ArrayList<S>();
+		W w = model.createWorking(getRoot());
+		path.add(model.toState(w));
+		for (int move : goalMoves) {
+			model.apply(w, move);
+			path.add(model.toState(w));
+		}
+		return path;
+	}
+}
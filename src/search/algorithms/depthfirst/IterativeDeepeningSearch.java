@@ -4,6 +4,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 import search.algorithms.AbstractSearchAlgorithm;
+import search.algorithms.SearchListenerAdapter;
+import search.algorithms.SearchStatistics;
+import search.algorithms.SearchStatus;
+import search.algorithms.checkpoint.Checkpointer;
+import search.algorithms.checkpoint.SearchCheckpoint;
 import search.goals.GoalTest;
 import search.sfs.SuccessorFunction;
 import search.states.State;
@@ -18,6 +23,10 @@ import search.states.State;
  */
 public class IterativeDeepeningSearch<S extends State> extends
 		AbstractSearchAlgorithm<S> {
+	/** The checkpoint counter for the steps taken by earlier iterations. */
+	private static final String EXPANSIONS_COUNTER =
+			"iterativeDeepening.expansions";
+
 	/**
 	 * Constructs an IDS with the given parameters.
 	 * 
@@ -43,25 +52,209 @@ public class IterativeDeepeningSearch<S extends State> extends
 	private double goalCost;
 	/** The path taken to reach the goal state (if found). */
 	private List<S> goalPath;
+	/** Saves the progress of the search, or null if this is not wanted. */
+	private Checkpointer<S> checkpointer;
+	/** The table of expanded states, or null if there is none. */
+	private TranspositionTable<S> transpositions;
+	/** The order in which to try successors, or null for no order. */
+	private SuccessorOrdering<S> ordering;
 
+	/**
+	 * Sets the checkpointer used to save the progress of the search
+	 * periodically; each checkpoint holds the progress of the current
+	 * depth-limited search. Null turns checkpointing off.
+	 * 
+	 * @param checkpointer
+	 *            the checkpointer.
+	 */
+	public void setCheckpointer(Checkpointer<S> checkpointer) {
+		this.checkpointer = checkpointer;
+	}
+
+	/**
+	 * Returns the checkpointer used to save the progress of the search.
+	 * 
+	 * @return the checkpointer, or null if there is none.
+	 */
+	public Checkpointer<S> getCheckpointer() {
+		return checkpointer;
+	}
+
+	/**
+	 * Sets a transposition table to be shared by the depth-limited searches;
+	 * it is cleared before each one. Null turns this off.
+	 * 
+	 * @param transpositions
+	 *            the transposition table.
+	 */
+	public void setTranspositionTable(TranspositionTable<S> transpositions) {
+		this.transpositions = transpositions;
+	}
+
+	/**
+	 * Returns the transposition table shared by the depth-limited searches.
+	 * 
+	 * @return the transposition table, or null if there is none.
+	 */
+	public TranspositionTable<S> getTranspositionTable() {
+		return transpositions;
+	}
+
+	/**
+	 * Sets the order in which the depth-limited searches try the successors
+	 * of each state; the same ordering is used by every iteration. Null tries
+	 * them in the order the successor function returns them.
+	 * 
+	 * @param ordering
+	 *            the successor ordering.
+	 */
+	public void setSuccessorOrdering(SuccessorOrdering<S> ordering) {
+		this.ordering = ordering;
+	}
+
+	/**
+	 * Returns the order in which the successors of each state are tried.
+	 * 
+	 * @return the successor ordering, or null if there is none.
+	 */
+	public SuccessorOrdering<S> getSuccessorOrdering() {
+		return ordering;
+	}
+
+	/**
+	 * {@inheritDoc} Each depth-limited search is given whatever remains of the
+	 * limits, and shares the cancel handle. If a depth-limited search is not
+	 * cut off by its depth limit and still finds no goal, there is no goal to
+	 * be found, and the search concludes.
+	 */
 	@Override
 	public void search() {
+		this.beginSearch();
+		this.runIterations(0, null);
+	}
+
+	/**
+	 * Resumes a search from a checkpoint taken during one of its
+	 * depth-limited searches; that depth-limited search is resumed, and the
+	 * search then carries on with deeper ones as usual.
+	 * 
+	 * @param checkpoint
+	 *            the checkpoint.
+	 * @throws IllegalArgumentException
+	 *             if the checkpoint was not taken by this kind of search.
+	 */
+	public void resume(SearchCheckpoint<S> checkpoint) {
+		this.beginSearch(checkpoint.getCounter(EXPANSIONS_COUNTER));
+		this.runIterations((int) checkpoint.getCounter("depthLimit"),
+				checkpoint);
+	}
+
+	/**
+	 * Runs depth-limited searches with increasing depth limits until the
+	 * search concludes.
+	 * 
+	 * @param firstDepth
+	 *            the depth limit of the first depth-limited search.
+	 * @param checkpoint
+	 *            a checkpoint to resume the first depth-limited search from,
+	 *            or null to start it afresh.
+	 */
+	private void runIterations(int firstDepth, SearchCheckpoint<S> checkpoint) {
 		this.goalFound = false;
+		long startTime = System.nanoTime();
 
-		for (int maxDepth = 0;; maxDepth++) {
-			System.out.println("Depth: " + maxDepth);
-			DepthLimitedSearch<S> dls = new DepthLimitedSearch<S>(maxDepth,
-					getRoot(), getGoalTest(), getSF());
-			dls.search();
+		for (int maxDepth = firstDepth;; maxDepth++) {
+			this.notifyIterationStarted(maxDepth);
+			DepthLimitedSearch<S> dls = createIteration(maxDepth);
+			dls.setLimits(getLimits().remaining(System.nanoTime() - startTime,
+					getExpansions()));
+			dls.setCancelHandle(getCancelHandle());
+			dls.setCheckpointer(checkpointer);
+			dls.setSuccessorOrdering(ordering);
+			if (getSearchListener() != null) {
+				dls.setSearchListener(new ExpansionForwarder());
+			}
+			if (transpositions != null) {
+				transpositions.clear();
+				dls.setTranspositionTable(transpositions);
+			}
+			long iterationStart = System.nanoTime();
+			if (checkpoint != null) {
+				dls.resume(checkpoint);
+				checkpoint = null;
+			} else {
+				dls.search();
+			}
+			SearchStatistics dlsStatistics = dls.getStatistics();
+			this.addStatistics(dlsStatistics);
+			this.addIteration(maxDepth, dls.getExpansions(),
+					dlsStatistics.getGenerated(), System.nanoTime()
+							- iterationStart);
+			this.addSteps(dls.getExpansions());
+			if (dls.goalFound()
+					|| dls.getStatus() == SearchStatus.NO_SOLUTION) {
+				this.notifyIterationFinished(maxDepth, dls.getExpansions());
+			}
 			if (dls.goalFound()) {
 				this.goalFound = true;
 				this.goalState = dls.getGoalState();
 				this.goalCost = dls.getGoalCost();
 				this.goalDepth = dls.getGoalDepth();
 				this.goalPath = dls.getGoalPath();
+				this.endSearch(true);
+				return;
+			}
+			if (dls.getStatus() != SearchStatus.NO_SOLUTION) {
+				// The depth-limited search was cancelled or ran out of budget.
+				this.setStatus(dls.getStatus());
 				return;
 			}
+			if (!dls.cutoffOccurred()) {
+				this.endSearch(false);
+				return;
+			}
+			if (!withinBudget(0, dlsStatistics.getPeakStored())) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Passes the expansions and budget checks of a depth-limited search on
+	 * to the listener of this search.
+	 */
+	private class ExpansionForwarder extends SearchListenerAdapter<S> {
+		@Override
+		public void stateExpanded(AbstractSearchAlgorithm<S> search, S state,
+				int depth) {
+			notifyExpanded(search, state, depth);
 		}
+
+		@Override
+		public void budgetChecked(AbstractSearchAlgorithm<S> search,
+				long expansions) {
+			notifyBudgetChecked(search, expansions);
+		}
+	}
+
+	/**
+	 * Creates the depth-limited search for one iteration; its checkpoints
+	 * also record the steps taken by the earlier iterations.
+	 * 
+	 * @param depthLimit
+	 *            the depth limit.
+	 * @return the depth-limited search.
+	 */
+	private DepthLimitedSearch<S> createIteration(int depthLimit) {
+		final long earlierExpansions = getExpansions();
+		return new DepthLimitedSearch<S>(depthLimit, getRoot(), getGoalTest(),
+				getSF()) {
+			@Override
+			protected void saveCounters(SearchCheckpoint<S> checkpoint) {
+				super.saveCounters(checkpoint);
+				checkpoint.putCounter(EXPANSIONS_COUNTER, earlierExpansions);
+			}
+		};
 	}
 
 	@Override
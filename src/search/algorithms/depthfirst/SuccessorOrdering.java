@@ -0,0 +1,40 @@
+package search.algorithms.depthfirst;
+
+import java.util.List;
+
+import search.states.State;
+
+/**
+ * Decides the order in which a depth-first search tries the successors of a
+ * state; successors are ranked, and the lowest rank is tried first.
+ * 
+ * @author lackofcheese
+ * @param <S>
+ *            the type of state used.
+ */
+public interface SuccessorOrdering<S extends State> {
+	/**
+	 * Returns the rank of a successor; lower ranks are tried first.
+	 * 
+	 * @param parent
+	 *            the state being expanded.
+	 * @param child
+	 *            the successor.
+	 * @param cost
+	 *            the cost of the move from the parent to the successor.
+	 * @return the rank of the successor.
+	 */
+	public double rank(S parent, S child, double cost);
+
+	/**
+	 * Called when the search expands a state; this lets an ordering learn
+	 * from the search as it goes.
+	 * 
+	 * @param state
+	 *            the state being expanded.
+	 * @param path
+	 *            the states on the path from the root to it, not including
+	 *            the state itself; this must not be modified.
+	 */
+	public void expanded(S state, List<S> path);
+}
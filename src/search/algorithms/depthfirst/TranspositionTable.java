@@ -0,0 +1,126 @@
+package search.algorithms.depthfirst;
+
+import java.util.Arrays;
+
+import search.states.State;
+import search.states.StateCodec;
+
+/**
+ * A fixed-size, lossy table of the states expanded by a depth-first search,
+ * which lets the search skip a state it reaches again by another path.
+ * 
+ * For each state, the table records the largest remaining depth with which it
+ * has been expanded; if the state is reached again with no more remaining
+ * depth than that, everything below it has already been searched, and it is
+ * pruned. As a state is never pruned unless its subtree has been searched to
+ * at least the same depth, no solution within the depth limit is lost.
+ * 
+ * States are keyed by their codes, so entries never collide falsely; the
+ * table can therefore only be used for states that have a StateCodec. Each
+ * code maps to a bucket of two slots; when both are taken by other states,
+ * the entry with less remaining depth is replaced, since it saves the least
+ * work. The table is emptied in constant time by clear(), which
+ * IterativeDeepeningSearch calls before each iteration, because the entries
+ * only hold for the depth limit they were made under.
+ * 
+ * @author lackofcheese
+ * @param <S>
+ *            the type of state used.
+ */
+public class TranspositionTable<S extends State> {
+	/** Converts states to codes. */
+	private final StateCodec<S> codec;
+	/** The code held in each slot. */
+	private final long[] codes;
+	/** The remaining depth with which each slot's state was expanded. */
+	private final int[] remaining;
+	/** The generation of each slot; slots of older generations are empty. */
+	private final int[] generations;
+	/** The shift that turns a hash into a bucket index. */
+	private final int shift;
+	/** The current generation. */
+	private int generation = 1;
+	/** The number of states pruned so far. */
+	private long pruned;
+
+	/**
+	 * Constructs a table with room for the given number of states.
+	 * 
+	 * @param codec
+	 *            converts states to codes.
+	 * @param capacity
+	 *            the number of slots; this is rounded up to a power of 2.
+	 */
+	public TranspositionTable(StateCodec<S> codec, int capacity) {
+		this.codec = codec;
+		int slots = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		this.codes = new long[slots];
+		this.remaining = new int[slots];
+		this.generations = new int[slots];
+		this.shift = 64 - Integer.numberOfTrailingZeros(slots / 2);
+	}
+
+	/**
+	 * Records that a state is about to be expanded with the given remaining
+	 * depth, unless it has already been expanded with at least as much.
+	 * 
+	 * @param s
+	 *            the state.
+	 * @param depthLeft
+	 *            the remaining depth below the state.
+	 * @return true if the state should be expanded, or false if it should be
+	 *         pruned.
+	 */
+	public boolean visit(S s, int depthLeft) {
+		long code = codec.encode(s);
+		int first = shift == 64 ? 0
+				: (int) ((code * 0x9E3779B97F4A7C15L) >>> shift) << 1;
+		int second = first + 1;
+		int slot;
+		if (generations[first] == generation && codes[first] == code) {
+			slot = first;
+		} else if (generations[second] == generation && codes[second] == code) {
+			slot = second;
+		} else {
+			// Not present; use an empty slot, or replace the shallower entry.
+			if (generations[first] != generation) {
+				slot = first;
+			} else if (generations[second] != generation) {
+				slot = second;
+			} else {
+				slot = remaining[first] <= remaining[second] ? first : second;
+			}
+			codes[slot] = code;
+			remaining[slot] = depthLeft;
+			generations[slot] = generation;
+			return true;
+		}
+		if (remaining[slot] >= depthLeft) {
+			pruned++;
+			return false;
+		}
+		remaining[slot] = depthLeft;
+		return true;
+	}
+
+	/**
+	 * Empties the table.
+	 */
+	public void clear() {
+		generation++;
+		if (generation == 0) {
+			// The generation has wrapped around, so the old stamps must go.
+			Arrays.fill(generations, 0);
+			generation = 1;
+		}
+	}
+
+	/**
+	 * Returns the number of states pruned since the table was created.
+	 * 
+	 * @return the number of states pruned.
+	 */
+	public long getPrunedCount() {
+		return pruned;
+	}
+}
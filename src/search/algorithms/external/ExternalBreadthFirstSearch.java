@@ -0,0 +1,475 @@
+package search.algorithms.external;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import search.algorithms.AbstractSearchAlgorithm;
+import search.goals.GoalTest;
+import search.sfs.SuccessorFunction;
+import search.states.State;
+import search.states.StateCodec;
+
+/**
+ * An external-memory breadth-first search, which keeps its frontier on disk
+ * rather than in memory, so that it can sweep state spaces far larger than
+ * the heap.
+ * 
+ * Each layer of the search is stored as a file of sorted, distinct state codes,
+ * one long per state, so only states with a StateCodec can be searched this
+ * way. To build the next layer, the current layer is read sequentially and the
+ * codes of the successors are collected in a fixed-size buffer, which is sorted
+ * and written out as a run whenever it fills up. The runs are then merged, and
+ * duplicates are removed by a streaming merge against the current and previous
+ * layers. This duplicate detection is only complete if every move can be
+ * undone, i.e. the successor function is undirected; the same assumption is
+ * used to reconstruct the path to the goal from the layer files once it has
+ * been found.
+ * 
+ * The layer files are kept in a temporary directory for the duration of the
+ * search, and deleted afterwards. All file access goes through large direct
+ * NIO buffers, so that the disk is only read and written sequentially.
+ * 
+ * @author lackofcheese
+ * @param <S>
+ *            the type of state used.
+ */
+public class ExternalBreadthFirstSearch<S extends State> extends
+		AbstractSearchAlgorithm<S> {
+	/** The default number of codes held in memory before a run is written. */
+	public static final int DEFAULT_SORT_BUFFER_SIZE = 1 << 22;
+	/** The size of the buffer used for each open file, in bytes. */
+	private static final int IO_BUFFER_BYTES = 1 << 20;
+	/** The maximum number of runs merged at once. */
+	private static final int MAX_FAN_IN = 64;
+
+	/** Orders run readers by their next value. */
+	private static final Comparator<LongRunReader> BY_NEXT_VALUE =
+			new Comparator<LongRunReader>() {
+				@Override
+				public int compare(LongRunReader r1, LongRunReader r2) {
+					return Long.compare(r1.peek(), r2.peek());
+				}
+			};
+
+	/** Converts states to and from codes. */
+	private StateCodec<S> codec;
+	/** The directory in which to create the working files. */
+	private File directory;
+	/** The number of codes held in memory before a run is written. */
+	private int sortBufferSize = DEFAULT_SORT_BUFFER_SIZE;
+
+	/** The working directory of the current search. */
+	private File workDir;
+	/** The number of runs written so far in the current search. */
+	private int runCount;
+	/** The number of states in each layer of the last search. */
+	private List<Long> layerSizes = new ArrayList<Long>();
+	/** The path to the goal, or null if no goal was found. */
+	private List<S> goalPath;
+	/** The cost of the path to the goal. */
+	private double goalCost;
+
+	/**
+	 * Constructs an external-memory breadth-first search with the given
+	 * parameters.
+	 * 
+	 * @param root
+	 *            the initial state.
+	 * @param goalTest
+	 *            a test for goal states.
+	 * @param sf
+	 *            the successor function; every move must be reversible.
+	 * @param codec
+	 *            the codec used to write states to disk.
+	 * @param directory
+	 *            the directory in which to create the working files.
+	 */
+	public ExternalBreadthFirstSearch(S root, GoalTest<S> goalTest,
+			SuccessorFunction<S> sf, StateCodec<S> codec, File directory) {
+		super(root, goalTest, sf);
+		this.codec = codec;
+		this.directory = directory;
+	}
+
+	/**
+	 * Sets the number of state codes held in memory while generating a
+	 * layer; when this many have been collected, they are sorted and written
+	 * out as a run.
+	 * 
+	 * @param sortBufferSize
+	 *            the number of codes to buffer; this must be positive.
+	 */
+	public void setSortBufferSize(int sortBufferSize) {
+		if (sortBufferSize < 1) {
+			throw new IllegalArgumentException("Invalid buffer size: "
+					+ sortBufferSize);
+		}
+		this.sortBufferSize = sortBufferSize;
+	}
+
+	/**
+	 * Returns the number of state codes held in memory while generating a
+	 * layer.
+	 * 
+	 * @return the size of the sort buffer.
+	 */
+	public int getSortBufferSize() {
+		return sortBufferSize;
+	}
+
+	/**
+	 * Returns the number of distinct states in each layer generated by the
+	 * last search, starting with the root layer.
+	 * 
+	 * @return the layer sizes.
+	 */
+	public List<Long> getLayerSizes() {
+		return new ArrayList<Long>(layerSizes);
+	}
+
+	/**
+	 * Runs the search. Any failure to read or write the working files is
+	 * thrown as an UncheckedIOException.
+	 */
+	@Override
+	public void search() {
+		beginSearch();
+		layerSizes.clear();
+		goalPath = null;
+		runCount = 0;
+		try {
+			workDir = Files.createTempDirectory(directory.toPath(), "bfs")
+					.toFile();
+			try {
+				searchLayers();
+			} finally {
+				for (File file : workDir.listFiles()) {
+					file.delete();
+				}
+				workDir.delete();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Generates the layers one at a time until a goal is found, the state
+	 * space is exhausted, or the search is stopped.
+	 * 
+	 * @throws IOException
+	 *             if the working files cannot be read or written.
+	 */
+	private void searchLayers() throws IOException {
+		LongRunWriter rootWriter = new LongRunWriter(layerFile(0), 8);
+		rootWriter.write(codec.encode(getRoot()));
+		rootWriter.close();
+		layerSizes.add(1L);
+
+		long[] buffer = new long[sortBufferSize];
+		for (int depth = 0;; depth++) {
+			List<File> runs = new ArrayList<File>();
+			int count = 0;
+			LongRunReader reader = new LongRunReader(layerFile(depth),
+					IO_BUFFER_BYTES);
+			try {
+				while (reader.hasNext()) {
+					long code = reader.next();
+					S s = codec.decode(code);
+					if (getGoalTest().isGoal(s)) {
+						reconstructPath(code, depth);
+						endSearch(true);
+						return;
+					}
+					if (!withinBudget(1, count)) {
+						return;
+					}
+					notifyExpanded(s, depth);
+					for (S s2 : successorsOf(s).keySet()) {
+						if (count == buffer.length) {
+							runs.add(writeRun(buffer, count));
+							count = 0;
+						}
+						buffer[count++] = codec.encode(s2);
+					}
+				}
+			} finally {
+				reader.close();
+			}
+			if (count > 0) {
+				runs.add(writeRun(buffer, count));
+			}
+
+			long size = mergeLayer(runs, depth);
+			if (size == 0) {
+				endSearch(false);
+				return;
+			}
+			layerSizes.add(size);
+		}
+	}
+
+	/**
+	 * Returns the file holding the given layer.
+	 * 
+	 * @param depth
+	 *            the depth of the layer.
+	 * @return the file for that layer.
+	 */
+	private File layerFile(int depth) {
+		return new File(workDir, "layer-" + depth + ".bin");
+	}
+
+	/**
+	 * Sorts the given codes, and writes the distinct ones to a new run file.
+	 * 
+	 * @param codes
+	 *            the buffer of codes.
+	 * @param count
+	 *            the number of codes in the buffer.
+	 * @return the run file.
+	 * @throws IOException
+	 *             if the file cannot be written.
+	 */
+	private File writeRun(long[] codes, int count) throws IOException {
+		Arrays.sort(codes, 0, count);
+		File file = new File(workDir, "run-" + (runCount++) + ".bin");
+		LongRunWriter writer = new LongRunWriter(file, IO_BUFFER_BYTES);
+		try {
+			for (int i = 0; i < count; i++) {
+				if (i == 0 || codes[i] != codes[i - 1]) {
+					writer.write(codes[i]);
+				}
+			}
+		} finally {
+			writer.close();
+		}
+		return file;
+	}
+
+	/**
+	 * Merges the runs generated from the given layer into the next layer,
+	 * leaving out any codes that are in the given layer or the one before.
+	 * The run files are deleted afterwards.
+	 * 
+	 * @param runs
+	 *            the run files.
+	 * @param depth
+	 *            the depth of the layer that was expanded.
+	 * @return the number of codes in the new layer.
+	 * @throws IOException
+	 *             if the files cannot be read or written.
+	 */
+	private long mergeLayer(List<File> runs, int depth) throws IOException {
+		while (runs.size() > MAX_FAN_IN) {
+			List<File> merged = new ArrayList<File>();
+			for (int i = 0; i < runs.size(); i += MAX_FAN_IN) {
+				List<File> group = runs.subList(i,
+						Math.min(i + MAX_FAN_IN, runs.size()));
+				File file = new File(workDir, "run-" + (runCount++) + ".bin");
+				merge(group, Collections.<File> emptyList(), file);
+				merged.add(file);
+			}
+			runs = merged;
+		}
+		List<File> exclude = new ArrayList<File>();
+		exclude.add(layerFile(depth));
+		if (depth > 0) {
+			exclude.add(layerFile(depth - 1));
+		}
+		return merge(runs, exclude, layerFile(depth + 1));
+	}
+
+	/**
+	 * Merges sorted runs into a single sorted run of distinct codes, leaving
+	 * out any codes present in the given sorted exclusion files. The input
+	 * runs are deleted afterwards.
+	 * 
+	 * @param runs
+	 *            the runs to merge.
+	 * @param exclude
+	 *            the files of codes to leave out.
+	 * @param output
+	 *            the file to write.
+	 * @return the number of codes written.
+	 * @throws IOException
+	 *             if the files cannot be read or written.
+	 */
+	private long merge(List<File> runs, List<File> exclude, File output)
+			throws IOException {
+		List<LongRunReader> open = new ArrayList<LongRunReader>();
+		LongRunWriter writer = null;
+		try {
+			PriorityQueue<LongRunReader> heap =
+					new PriorityQueue<LongRunReader>(Math.max(1, runs.size()),
+							BY_NEXT_VALUE);
+			for (File run : runs) {
+				LongRunReader reader = new LongRunReader(run, IO_BUFFER_BYTES);
+				open.add(reader);
+				if (reader.hasNext()) {
+					heap.add(reader);
+				}
+			}
+			LongRunReader[] excluded = new LongRunReader[exclude.size()];
+			for (int i = 0; i < excluded.length; i++) {
+				excluded[i] = new LongRunReader(exclude.get(i),
+						IO_BUFFER_BYTES);
+				open.add(excluded[i]);
+			}
+
+			writer = new LongRunWriter(output, IO_BUFFER_BYTES);
+			boolean first = true;
+			long last = 0;
+			while (!heap.isEmpty()) {
+				LongRunReader reader = heap.remove();
+				long code = reader.next();
+				if (reader.hasNext()) {
+					heap.add(reader);
+				}
+				if (!first && code == last) {
+					countDuplicate();
+					continue;
+				}
+				first = false;
+				last = code;
+				if (contains(excluded, code)) {
+					countDuplicate();
+				} else {
+					writer.write(code);
+				}
+			}
+		} finally {
+			if (writer != null) {
+				writer.close();
+			}
+			for (LongRunReader reader : open) {
+				reader.close();
+			}
+		}
+		for (File run : runs) {
+			run.delete();
+		}
+		return writer.getCount();
+	}
+
+	/**
+	 * Returns true if any of the given readers contains the given code. Codes
+	 * must be checked in increasing order, as the readers are advanced past
+	 * all smaller codes.
+	 * 
+	 * @param readers
+	 *            the readers of sorted codes.
+	 * @param code
+	 *            the code to look for.
+	 * @return true if the code is present.
+	 * @throws IOException
+	 *             if the files cannot be read.
+	 */
+	private boolean contains(LongRunReader[] readers, long code)
+			throws IOException {
+		boolean found = false;
+		for (LongRunReader reader : readers) {
+			while (reader.hasNext() && reader.peek() < code) {
+				reader.next();
+			}
+			if (reader.hasNext() && reader.peek() == code) {
+				found = true;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Reconstructs the path to the goal by working backwards through the
+	 * layer files, finding a predecessor of each state in the layer before.
+	 * 
+	 * @param goalCode
+	 *            the code of the goal state.
+	 * @param depth
+	 *            the depth of the goal state.
+	 * @throws IOException
+	 *             if the layer files cannot be read.
+	 */
+	private void reconstructPath(long goalCode, int depth) throws IOException {
+		List<S> path = new ArrayList<S>();
+		S current = codec.decode(goalCode);
+		path.add(current);
+		for (int d = depth - 1; d >= 0; d--) {
+			// As moves are reversible, the predecessors of a state are its
+			// successors.
+			Map<S, Double> succMap = getSF().getSuccessors(current);
+			long[] candidates = new long[succMap.size()];
+			int i = 0;
+			for (S s2 : succMap.keySet()) {
+				candidates[i++] = codec.encode(s2);
+			}
+			Arrays.sort(candidates);
+			S pred = null;
+			LongRunReader reader = new LongRunReader(layerFile(d),
+					IO_BUFFER_BYTES);
+			try {
+				while (pred == null && reader.hasNext()) {
+					long code = reader.next();
+					if (Arrays.binarySearch(candidates, code) >= 0) {
+						pred = codec.decode(code);
+					}
+				}
+			} finally {
+				reader.close();
+			}
+			if (pred == null) {
+				throw new IllegalStateException("No predecessor of " + current
+						+ " at depth " + d + "; are all moves reversible?");
+			}
+			path.add(pred);
+			current = pred;
+		}
+		Collections.reverse(path);
+
+		goalCost = 0;
+		for (int j = 1; j < path.size(); j++) {
+			Double cost = getSF().getSuccessors(path.get(j - 1)).get(
+					path.get(j));
+			if (cost == null) {
+				throw new IllegalStateException("Move from " + path.get(j - 1)
+						+ " to " + path.get(j) + " is not reversible");
+			}
+			goalCost += cost;
+		}
+		goalPath = path;
+	}
+
+	@Override
+	public boolean goalFound() {
+		return goalPath != null;
+	}
+
+	@Override
+	public S getGoalState() {
+		return goalPath.get(goalPath.size() - 1);
+	}
+
+	@Override
+	public int getGoalDepth() {
+		return goalPath.size() - 1;
+	}
+
+	@Override
+	public double getGoalCost() {
+		return goalCost;
+	}
+
+	@Override
+	public List<S> getGoalPath() {
+		return new ArrayList<S>(goalPath);
+	}
+}
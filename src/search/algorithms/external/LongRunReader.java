@@ -0,0 +1,102 @@
+package search.algorithms.external;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a sequence of longs written by a LongRunWriter, through a large
+ * direct buffer, with one value of lookahead so that several runs can be
+ * merged.
+ * 
+ * @author lackofcheese
+ */
+class LongRunReader implements Closeable {
+	/** The channel to the file. */
+	private final FileChannel channel;
+	/** The buffer holding values read but not yet returned. */
+	private final ByteBuffer buffer;
+	/** True if there is a next value. */
+	private boolean hasNext;
+	/** The next value. */
+	private long next;
+
+	/**
+	 * Opens the given file for reading.
+	 * 
+	 * @param file
+	 *            the file to read.
+	 * @param bufferBytes
+	 *            the size of the buffer, in bytes.
+	 * @throws IOException
+	 *             if the file cannot be opened or read.
+	 */
+	public LongRunReader(File file, int bufferBytes) throws IOException {
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		this.buffer = ByteBuffer.allocateDirect(bufferBytes);
+		buffer.limit(0);
+		advance();
+	}
+
+	/**
+	 * Returns true if there are more values to read.
+	 * 
+	 * @return true if there is a next value.
+	 */
+	public boolean hasNext() {
+		return hasNext;
+	}
+
+	/**
+	 * Returns the next value without consuming it; this must only be called
+	 * if hasNext() returns true.
+	 * 
+	 * @return the next value.
+	 */
+	public long peek() {
+		return next;
+	}
+
+	/**
+	 * Returns the next value and moves past it; this must only be called if
+	 * hasNext() returns true.
+	 * 
+	 * @return the next value.
+	 * @throws IOException
+	 *             if the file cannot be read.
+	 */
+	public long next() throws IOException {
+		long value = next;
+		advance();
+		return value;
+	}
+
+	/**
+	 * Loads the next value, refilling the buffer if it has run out.
+	 * 
+	 * @throws IOException
+	 *             if the file cannot be read.
+	 */
+	private void advance() throws IOException {
+		if (buffer.remaining() < 8) {
+			buffer.compact();
+			int read = 0;
+			while (buffer.hasRemaining() && read >= 0) {
+				read = channel.read(buffer);
+			}
+			buffer.flip();
+		}
+		hasNext = buffer.remaining() >= 8;
+		if (hasNext) {
+			next = buffer.getLong();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
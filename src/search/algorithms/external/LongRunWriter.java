@@ -0,0 +1,89 @@
+package search.algorithms.external;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a sequence of longs to a file through a large direct buffer, so that
+ * the file is written with a few large sequential writes.
+ * 
+ * @author lackofcheese
+ */
+class LongRunWriter implements Closeable {
+	/** The channel to the file. */
+	private final FileChannel channel;
+	/** The buffer holding values not yet written. */
+	private final ByteBuffer buffer;
+	/** The number of values written. */
+	private long count;
+
+	/**
+	 * Creates the given file, replacing any existing file, and opens it for
+	 * writing.
+	 * 
+	 * @param file
+	 *            the file to write.
+	 * @param bufferBytes
+	 *            the size of the buffer, in bytes.
+	 * @throws IOException
+	 *             if the file cannot be opened.
+	 */
+	public LongRunWriter(File file, int bufferBytes) throws IOException {
+		this.channel = FileChannel.open(file.toPath(),
+				StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		this.buffer = ByteBuffer.allocateDirect(bufferBytes);
+	}
+
+	/**
+	 * Appends a value to the file.
+	 * 
+	 * @param value
+	 *            the value.
+	 * @throws IOException
+	 *             if the buffer cannot be written out.
+	 */
+	public void write(long value) throws IOException {
+		if (buffer.remaining() < 8) {
+			flush();
+		}
+		buffer.putLong(value);
+		count++;
+	}
+
+	/**
+	 * Returns the number of values written so far.
+	 * 
+	 * @return the number of values written.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Writes out the contents of the buffer.
+	 * 
+	 * @throws IOException
+	 *             if the write fails.
+	 */
+	private void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,398 @@
+package search.algorithms.frontier;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import search.algorithms.AbstractSearchAlgorithm;
+import search.algorithms.SearchListener;
+import search.algorithms.SearchStatus;
+import search.goals.GoalTest;
+import search.heuristics.Heuristic;
+import search.sfs.SuccessorFunction;
+import search.states.State;
+
+/**
+ * A best-first frontier search, which finds the same optimal paths as A* (or
+ * uniform cost search, if no heuristic is given) while only holding the open
+ * list in memory.
+ * 
+ * States are forgotten as soon as they are expanded. To stop them from being
+ * generated again, each open state remembers which of its neighbours have
+ * already been expanded, and the moves back to those neighbours are skipped.
+ * As the search tree is not kept, each open state instead remembers the edge
+ * on its path that crosses a threshold cost, roughly halfway to the goal.
+ * Once the goal is found, the path is rebuilt by divide and conquer: the two
+ * halves either side of that edge are searched for again in the same way,
+ * until they are single moves.
+ * 
+ * This requires every move to be reversible at the same cost, every cost to
+ * be positive, and the heuristic to be consistent. For the searches between
+ * intermediate states, the heuristic is adapted as h(s) - h(t), which is a
+ * consistent lower bound on the cost from s to t.
+ * 
+ * @author lackofcheese
+ * @param <S>
+ *            the type of state used.
+ */
+public class FrontierSearch<S extends State> extends
+		AbstractSearchAlgorithm<S> {
+	/**
+	 * A state on the open list.
+	 * 
+	 * @author lackofcheese
+	 */
+	private class Node {
+		/** The state. */
+		private S state;
+		/** The cost of the best path found to the state. */
+		private double g;
+		/** The heuristic estimate for the state. */
+		private double h;
+		/** The neighbours which have already been expanded. */
+		private List<S> used = new ArrayList<S>(2);
+		/** The last state on the path below the threshold, or null. */
+		private S relayBefore;
+		/** The cost to reach relayBefore. */
+		private double relayBeforeG;
+		/** The first state on the path at or above the threshold, or null. */
+		private S relayAfter;
+		/** The cost to reach relayAfter. */
+		private double relayAfterG;
+
+		/**
+		 * Constructs a node.
+		 * 
+		 * @param state
+		 *            the state.
+		 * @param g
+		 *            the cost to reach the state.
+		 * @param h
+		 *            the heuristic estimate.
+		 */
+		public Node(S state, double g, double h) {
+			this.state = state;
+			this.g = g;
+			this.h = h;
+		}
+	}
+
+	/**
+	 * An entry in the priority queue; entries for nodes that have since been
+	 * expanded or given a better path are skipped.
+	 * 
+	 * @author lackofcheese
+	 */
+	private class QueueItem implements Comparable<QueueItem> {
+		/** The node. */
+		private Node node;
+		/** The cost of the node when this entry was made. */
+		private double g;
+
+		/**
+		 * Constructs an entry for the node's current cost.
+		 * 
+		 * @param node
+		 *            the node.
+		 */
+		public QueueItem(Node node) {
+			this.node = node;
+			this.g = node.g;
+		}
+
+		@Override
+		public int compareTo(QueueItem other) {
+			int result = Double.compare(g + node.h, other.g + other.node.h);
+			if (result != 0) {
+				return result;
+			}
+			return Double.compare(other.g, g);
+		}
+	}
+
+	/**
+	 * The outcome of a single search between two points.
+	 * 
+	 * @author lackofcheese
+	 */
+	private class Leg {
+		/** The state that was found. */
+		private S end;
+		/** The cost to reach it. */
+		private double cost;
+		/** The node for the state, holding the threshold edge. */
+		private Node node;
+
+		/**
+		 * Constructs the outcome of a search.
+		 * 
+		 * @param node
+		 *            the node that was found.
+		 */
+		public Leg(Node node) {
+			this.end = node.state;
+			this.cost = node.g;
+			this.node = node;
+		}
+	}
+
+	/** The relative error allowed when comparing path costs. */
+	private static final double TOLERANCE = 1e-9;
+
+	/** The path to the goal, or null if no goal was found. */
+	private List<S> goalPath;
+	/** The cost of the path to the goal. */
+	private double goalCost;
+	/** The largest number of states held on the open list at once. */
+	private int peakOpenSize;
+
+	/**
+	 * Constructs a frontier search with the given parameters.
+	 * 
+	 * @param root
+	 *            the initial state.
+	 * @param goalTest
+	 *            a test for goal states.
+	 * @param sf
+	 *            the successor function; every move must be reversible.
+	 * @param heuristic
+	 *            the heuristic function; this must be consistent.
+	 */
+	public FrontierSearch(S root, GoalTest<S> goalTest,
+			SuccessorFunction<S> sf, Heuristic<S> heuristic) {
+		super(root, goalTest, sf, heuristic);
+	}
+
+	/**
+	 * Constructs a uniform cost frontier search with the given parameters.
+	 * 
+	 * @param root
+	 *            the initial state.
+	 * @param goalTest
+	 *            a test for goal states.
+	 * @param sf
+	 *            the successor function; every move must be reversible.
+	 */
+	public FrontierSearch(S root, GoalTest<S> goalTest,
+			SuccessorFunction<S> sf) {
+		super(root, goalTest, sf);
+	}
+
+	/**
+	 * Returns the largest number of states held in memory at once by the
+	 * last search, including the searches used to rebuild the path.
+	 * 
+	 * @return the peak size of the open list.
+	 */
+	public int getPeakOpenSize() {
+		return peakOpenSize;
+	}
+
+	@Override
+	public void search() {
+		beginSearch();
+		goalPath = null;
+		peakOpenSize = 0;
+
+		// The heuristic gives a lower bound on the cost, so half of it is a
+		// first guess at the halfway point.
+		S root = getRoot();
+		Leg leg = searchLeg(root, null, heuristicEstimate(root) / 2);
+		if (leg == null) {
+			if (getStatus() == SearchStatus.RUNNING) {
+				endSearch(false);
+			}
+			return;
+		}
+		List<S> path = new ArrayList<S>();
+		path.add(root);
+		if (!buildPath(root, leg.end, leg.cost, leg, path)) {
+			return;
+		}
+		goalPath = path;
+		goalCost = leg.cost;
+		endSearch(true);
+	}
+
+	/**
+	 * Appends the states of an optimal path from one state to another to the
+	 * given list, leaving out the first state.
+	 * 
+	 * @param start
+	 *            the first state.
+	 * @param end
+	 *            the last state.
+	 * @param cost
+	 *            the cost of an optimal path between them.
+	 * @param known
+	 *            a search already made between them, or null.
+	 * @param path
+	 *            the list to add to.
+	 * @return true if the path was added, or false if the search was stopped
+	 *         before it could be.
+	 */
+	private boolean buildPath(S start, S end, double cost, Leg known,
+			List<S> path) {
+		if (start.equals(end)) {
+			return true;
+		}
+		Double edge = getSF().getSuccessors(start).get(end);
+		if (edge != null && Math.abs(edge - cost) <= TOLERANCE * (1 + cost)) {
+			path.add(end);
+			return true;
+		}
+		Leg leg = known;
+		if (leg == null || leg.node.relayAfter == null
+				|| leg.node.relayAfterG < cost / 4) {
+			// There is no usable split yet; now that the cost is known, the
+			// threshold can be placed exactly halfway.
+			leg = searchLeg(start, end, cost / 2);
+			if (leg == null) {
+				return false;
+			}
+			if (leg.node.relayAfter == null) {
+				throw new IllegalStateException("No path from " + start
+						+ " to " + end + " crosses cost " + cost / 2);
+			}
+		}
+		Node split = leg.node;
+		S before = split.relayBefore;
+		S after = split.relayAfter;
+		double afterG = split.relayAfterG;
+		if (!buildPath(start, before, split.relayBeforeG, null, path)) {
+			return false;
+		}
+		path.add(after);
+		return buildPath(after, end, cost - afterG, null, path);
+	}
+
+	/**
+	 * Runs a frontier search from the given state, recording for each state
+	 * the edge on its path that crosses the given threshold.
+	 * 
+	 * @param start
+	 *            the state to search from.
+	 * @param target
+	 *            the state to search for, or null to search for a goal.
+	 * @param threshold
+	 *            the cost at which to record the edge.
+	 * @return the outcome of the search, or null if the target was not found;
+	 *         the status is set if that is because the search was stopped.
+	 */
+	private Leg searchLeg(S start, S target, double threshold) {
+		double targetH = target == null ? 0 : heuristicEstimate(target);
+		Map<S, Node> open = new HashMap<S, Node>();
+		PriorityQueue<QueueItem> queue = new PriorityQueue<QueueItem>();
+		Node first = new Node(start, 0, estimate(start, targetH));
+		open.put(start, first);
+		queue.add(new QueueItem(first));
+
+		while (!queue.isEmpty()) {
+			QueueItem item = queue.remove();
+			Node node = item.node;
+			if (item.g != node.g || open.get(node.state) != node) {
+				continue;
+			}
+			if (target == null ? getGoalTest().isGoal(node.state)
+					: node.state.equals(target)) {
+				return new Leg(node);
+			}
+			if (!withinBudget(1, open.size())) {
+				return null;
+			}
+			open.remove(node.state);
+			notifyExpanded(node.state, SearchListener.UNKNOWN_DEPTH);
+
+			Map<S, Double> succMap = successorsOf(node.state);
+			for (Map.Entry<S, Double> entry : succMap.entrySet()) {
+				S s2 = entry.getKey();
+				if (node.used.contains(s2)) {
+					countDuplicate();
+					continue;
+				}
+				double g = node.g + entry.getValue();
+				Node child = open.get(s2);
+				if (child == null) {
+					child = new Node(s2, g, estimate(s2, targetH));
+					open.put(s2, child);
+				} else if (g >= child.g) {
+					child.used.add(node.state);
+					countDuplicate();
+					continue;
+				}
+				child.used.add(node.state);
+				child.g = g;
+				setRelay(child, node, threshold);
+				queue.add(new QueueItem(child));
+			}
+			peakOpenSize = Math.max(peakOpenSize, open.size());
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the heuristic estimate for a state; when searching for an
+	 * intermediate state, this is reduced by the estimate for that state.
+	 * 
+	 * @param s
+	 *            the state.
+	 * @param targetH
+	 *            the estimate for the state searched for, or zero.
+	 * @return the estimate.
+	 */
+	private double estimate(S s, double targetH) {
+		return Math.max(0, heuristicEstimate(s) - targetH);
+	}
+
+	/**
+	 * Records the threshold edge for a node reached from the given parent;
+	 * this is either the edge between them, or the parent's edge.
+	 * 
+	 * @param child
+	 *            the node reached.
+	 * @param parent
+	 *            the node it was reached from.
+	 * @param threshold
+	 *            the threshold cost.
+	 */
+	private void setRelay(Node child, Node parent, double threshold) {
+		if (parent.g < threshold && child.g >= threshold) {
+			child.relayBefore = parent.state;
+			child.relayBeforeG = parent.g;
+			child.relayAfter = child.state;
+			child.relayAfterG = child.g;
+		} else {
+			child.relayBefore = parent.relayBefore;
+			child.relayBeforeG = parent.relayBeforeG;
+			child.relayAfter = parent.relayAfter;
+			child.relayAfterG = parent.relayAfterG;
+		}
+	}
+
+	@Override
+	public boolean goalFound() {
+		return goalPath != null;
+	}
+
+	@Override
+	public S getGoalState() {
+		return goalPath.get(goalPath.size() - 1);
+	}
+
+	@Override
+	public int getGoalDepth() {
+		return goalPath.size() - 1;
+	}
+
+	@Override
+	public double getGoalCost() {
+		return goalCost;
+	}
+
+	@Override
+	public List<S> getGoalPath() {
+		return new ArrayList<S>(goalPath);
+	}
+}
@@ -0,0 +1,423 @@
+package search.algorithms.incremental;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import search.algorithms.AbstractSearchAlgorithm;
+import search.algorithms.SearchListener;
+import search.algorithms.SearchStatus;
+import search.goals.EqualGoalTest;
+import search.heuristics.Heuristic;
+import search.heuristics.ZeroHeuristic;
+import search.sfs.ReversibleSF;
+import search.states.State;
+
+/**
+ * An implementation of Lifelong Planning A* (LPA*), an incremental version of
+ * A* that keeps its search tree between searches.
+ * 
+ * When the costs of some edges change, the caller reports each changed edge via
+ * edgeChanged(); the next call to search() then repairs only the part of the
+ * shortest-path tree that is affected by the changes, rather than searching
+ * again from scratch. Any number of changes may be reported between searches,
+ * and they are handled together as a batch.
+ * 
+ * The first search expands the same states as an A* search would. The costs
+ * found are always the same as a fresh A* search would find, but the
+ * heuristic must be consistent for this to hold.
+ * 
+ * @author lackofcheese
+ * @param <S>
+ *            the type of state used.
+ */
+public class LPAStarSearch<S extends State> extends AbstractSearchAlgorithm<S> {
+	/**
+	 * The search information kept for each state that has been seen: the
+	 * g-value, which is the cost found by the last expansion, and the
+	 * rhs-value, which is a one-step lookahead based on the g-values of the
+	 * predecessors.
+	 * 
+	 * @author lackofcheese
+	 */
+	private class Vertex {
+		/** The state this vertex is for. */
+		private S state;
+		/** The cost to reach this state as of its last expansion. */
+		private double g = Double.POSITIVE_INFINITY;
+		/** The one-step lookahead cost to reach this state. */
+		private double rhs = Double.POSITIVE_INFINITY;
+		/** The current queue entry for this vertex, or null if not queued. */
+		private QueueItem queued = null;
+
+		/**
+		 * Creates a vertex for the given state, with infinite costs.
+		 * 
+		 * @param state
+		 *            the state.
+		 */
+		public Vertex(S state) {
+			this.state = state;
+		}
+	}
+
+	/**
+	 * An entry in the priority queue. Entries are never removed from the
+	 * middle of the queue; instead, a vertex forgets its entry and the entry
+	 * is discarded when it reaches the front of the queue.
+	 * 
+	 * @author lackofcheese
+	 */
+	private class QueueItem implements Comparable<QueueItem> {
+		/** The vertex this entry is for. */
+		private Vertex vertex;
+		/** The primary key; the estimated total cost. */
+		private double k1;
+		/** The secondary key; the cost so far. */
+		private double k2;
+
+		/**
+		 * Creates a queue entry for the given vertex, with the given keys.
+		 * 
+		 * @param vertex
+		 *            the vertex.
+		 * @param k1
+		 *            the primary key.
+		 * @param k2
+		 *            the secondary key.
+		 */
+		public QueueItem(Vertex vertex, double k1, double k2) {
+			this.vertex = vertex;
+			this.k1 = k1;
+			this.k2 = k2;
+		}
+
+		@Override
+		public int compareTo(QueueItem other) {
+			int result = Double.compare(k1, other.k1);
+			if (result != 0) {
+				return result;
+			}
+			return Double.compare(k2, other.k2);
+		}
+	}
+
+	/** The successor function, with predecessor lookups. */
+	private ReversibleSF<S> sf;
+	/** The goal state. */
+	private S goal;
+	/** The vertices for all of the states seen so far. */
+	private Map<S, Vertex> vertices;
+	/** The priority queue of locally inconsistent vertices. */
+	private PriorityQueue<QueueItem> queue;
+
+	/**
+	 * Constructs an LPA* search with the given parameters.
+	 * 
+	 * @param root
+	 *            the initial state.
+	 * @param goal
+	 *            the goal state.
+	 * @param sf
+	 *            the successor function; this must also provide the
+	 *            predecessors of each state.
+	 * @param heuristic
+	 *            the heuristic function; this should be consistent.
+	 */
+	public LPAStarSearch(S root, S goal, ReversibleSF<S> sf,
+			Heuristic<S> heuristic) {
+		super(root, new EqualGoalTest<S>(goal), sf, heuristic);
+		this.sf = sf;
+		this.goal = goal;
+	}
+
+	/**
+	 * Constructs an LPA* search with the given parameters, and no heuristic.
+	 * 
+	 * @param root
+	 *            the initial state.
+	 * @param goal
+	 *            the goal state.
+	 * @param sf
+	 *            the successor function; this must also provide the
+	 *            predecessors of each state.
+	 */
+	public LPAStarSearch(S root, S goal, ReversibleSF<S> sf) {
+		this(root, goal, sf, new ZeroHeuristic<S>());
+	}
+
+	/**
+	 * Reports that the cost of the edge from pred to succ has changed, or that
+	 * the edge has been added or removed. The successor function should
+	 * already reflect the new cost; the search tree is repaired on the next
+	 * call to search(). An edge from a state that has been seen may lead to a
+	 * state that has not; that state is then added to the search.
+	 * 
+	 * @param pred
+	 *            the predecessor state of the edge.
+	 * @param succ
+	 *            the successor state of the edge.
+	 */
+	public void edgeChanged(S pred, S succ) {
+		if (vertices == null) {
+			return;
+		}
+		Vertex v;
+		if (vertices.containsKey(pred)) {
+			v = getVertex(succ);
+		} else {
+			v = vertices.get(succ);
+		}
+		if (v != null) {
+			updateVertex(v);
+		}
+	}
+
+	/**
+	 * Runs the search; on the first call this is equivalent to an A* search,
+	 * and on later calls the previous results are repaired to account for any
+	 * edges that have changed in the meantime. If the search is stopped by
+	 * its limits or cancelled, the next call carries on from where it
+	 * stopped; a cancelled handle set by setCancelHandle() must first be
+	 * replaced, as it stays cancelled.
+	 */
+	@Override
+	public void search() {
+		beginSearch();
+		if (vertices == null) {
+			vertices = new HashMap<S, Vertex>();
+			queue = new PriorityQueue<QueueItem>();
+			Vertex start = getVertex(getRoot());
+			start.rhs = 0;
+			enqueue(start);
+		}
+
+		Vertex goalVertex = getVertex(goal);
+		while (true) {
+			QueueItem top = peek();
+			if (top == null
+					|| (compareKeys(top, goalVertex) >= 0
+							&& goalVertex.rhs == goalVertex.g)) {
+				endSearch(goalReachable());
+				return;
+			}
+			if (!withinBudget(1, vertices.size())) {
+				return;
+			}
+			queue.remove();
+			Vertex u = top.vertex;
+			u.queued = null;
+			notifyExpanded(u.state, SearchListener.UNKNOWN_DEPTH);
+			if (u.g > u.rhs) {
+				// Over-consistent; the new g-value can only lower the
+				// rhs-values of the successors.
+				u.g = u.rhs;
+				Map<S, Double> succMap = successorsOf(u.state);
+				for (Map.Entry<S, Double> entry : succMap.entrySet()) {
+					Vertex v = getVertex(entry.getKey());
+					double cost = u.g + entry.getValue();
+					if (cost < v.rhs && !v.state.equals(getRoot())) {
+						v.rhs = cost;
+						enqueue(v);
+					}
+				}
+			} else {
+				// Under-consistent; the successors may have relied on the old
+				// g-value, so they are recalculated in full.
+				u.g = Double.POSITIVE_INFINITY;
+				updateVertex(u);
+				Map<S, Double> succMap = successorsOf(u.state);
+				for (S s : succMap.keySet()) {
+					updateVertex(getVertex(s));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the vertex for the given state, creating it if necessary.
+	 * 
+	 * @param s
+	 *            the state.
+	 * @return the vertex for the state.
+	 */
+	private Vertex getVertex(S s) {
+		Vertex v = vertices.get(s);
+		if (v == null) {
+			v = new Vertex(s);
+			vertices.put(s, v);
+		}
+		return v;
+	}
+
+	/**
+	 * Recalculates the rhs-value of a vertex from its predecessors, and
+	 * updates its place in the queue accordingly.
+	 * 
+	 * @param v
+	 *            the vertex to update.
+	 */
+	private void updateVertex(Vertex v) {
+		if (!v.state.equals(getRoot())) {
+			double rhs = Double.POSITIVE_INFINITY;
+			Map<S, Double> predMap = sf.getPredecessors(v.state);
+			for (Map.Entry<S, Double> entry : predMap.entrySet()) {
+				Vertex p = vertices.get(entry.getKey());
+				if (p != null) {
+					rhs = Math.min(rhs, p.g + entry.getValue());
+				}
+			}
+			v.rhs = rhs;
+		}
+		enqueue(v);
+	}
+
+	/**
+	 * Places a vertex in the queue with its current key, replacing any entry
+	 * it already had; a vertex that is locally consistent is taken out of the
+	 * queue instead.
+	 * 
+	 * @param v
+	 *            the vertex.
+	 */
+	private void enqueue(Vertex v) {
+		if (v.g == v.rhs) {
+			v.queued = null;
+			return;
+		}
+		double k2 = Math.min(v.g, v.rhs);
+		v.queued = new QueueItem(v, k2 + heuristicEstimate(v.state), k2);
+		queue.add(v.queued);
+	}
+
+	/**
+	 * Returns the entry at the front of the queue, discarding any entries
+	 * that are no longer current.
+	 * 
+	 * @return the front entry of the queue, or null if it is empty.
+	 */
+	private QueueItem peek() {
+		QueueItem top;
+		while ((top = queue.peek()) != null && top.vertex.queued != top) {
+			queue.remove();
+		}
+		return top;
+	}
+
+	/**
+	 * Compares a queue entry against the key the given vertex currently has.
+	 * 
+	 * @param item
+	 *            the queue entry.
+	 * @param v
+	 *            the vertex.
+	 * @return the comparison result, as for compareTo.
+	 */
+	private int compareKeys(QueueItem item, Vertex v) {
+		double k2 = Math.min(v.g, v.rhs);
+		int result = Double.compare(item.k1,
+				k2 + heuristicEstimate(v.state));
+		if (result != 0) {
+			return result;
+		}
+		return Double.compare(item.k2, k2);
+	}
+
+	/**
+	 * Returns true if the current g-values give a finite cost for the goal.
+	 * 
+	 * @return true if the goal can currently be reached.
+	 */
+	private boolean goalReachable() {
+		Vertex v = vertices.get(goal);
+		return v != null && v.g < Double.POSITIVE_INFINITY;
+	}
+
+	@Override
+	public boolean goalFound() {
+		return getStatus() == SearchStatus.GOAL_FOUND;
+	}
+
+	/**
+	 * Checks that the last search found the goal, as the goal vertex is kept
+	 * even when it cannot be reached.
+	 * 
+	 * @throws IllegalStateException
+	 *             if no goal was found.
+	 */
+	private void checkGoalFound() {
+		if (!goalFound()) {
+			throw new IllegalStateException("No goal found; the status is "
+					+ getStatus());
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @throws IllegalStateException
+	 *             if no goal was found.
+	 */
+	@Override
+	public S getGoalState() {
+		checkGoalFound();
+		return goal;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @throws IllegalStateException
+	 *             if no goal was found.
+	 */
+	@Override
+	public int getGoalDepth() {
+		return getGoalPath().size() - 1;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @throws IllegalStateException
+	 *             if no goal was found.
+	 */
+	@Override
+	public double getGoalCost() {
+		checkGoalFound();
+		return vertices.get(goal).g;
+	}
+
+	/**
+	 * Returns the path to the goal, found by walking back from the goal along
+	 * predecessors whose g-values account for the cost of the path.
+	 * 
+	 * @throws IllegalStateException
+	 *             if no goal was found.
+	 */
+	@Override
+	public List<S> getGoalPath() {
+		checkGoalFound();
+		List<S> path = new ArrayList<S>();
+		Vertex v = vertices.get(goal);
+		path.add(v.state);
+		while (!v.state.equals(getRoot())) {
+			Vertex best = null;
+			double bestCost = Double.POSITIVE_INFINITY;
+			Map<S, Double> predMap = sf.getPredecessors(v.state);
+			for (Map.Entry<S, Double> entry : predMap.entrySet()) {
+				Vertex p = vertices.get(entry.getKey());
+				if (p != null && p.g + entry.getValue() < bestCost) {
+					best = p;
+					bestCost = p.g + entry.getValue();
+				}
+			}
+			v = best;
+			path.add(v.state);
+		}
+		Collections.reverse(path);
+		return path;
+	}
+}
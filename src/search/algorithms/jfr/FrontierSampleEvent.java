@@ -0,0 +1,40 @@
+package search.algorithms.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event sampling the size of the frontier of a running
+ * search; JfrSearchListener records at most one per sample period.
+ * 
+ * @author lackofcheese
+ */
+@Name("search.FrontierSample")
+@Label("Search Frontier Sample")
+@Category("Search")
+@Description("The size of the frontier of a running search")
+@StackTrace(false)
+class FrontierSampleEvent extends Event {
+	/** The class of the search algorithm. */
+	@Label("Algorithm")
+	String algorithm;
+	/** The problem domain being searched. */
+	@Label("Domain")
+	String domain;
+	/** The number of search steps taken so far. */
+	@Label("Expanded")
+	long expanded;
+	/** The number of states waiting to be expanded. */
+	@Label("Open")
+	long open;
+	/** The number of states held in memory. */
+	@Label("Stored")
+	long stored;
+	/** The depth of the last state expanded, or -1 if it is not known. */
+	@Label("Depth")
+	int depth;
+}
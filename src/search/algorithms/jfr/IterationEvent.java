@@ -0,0 +1,40 @@
+package search.algorithms.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A Flight Recorder event spanning one iteration of a search that runs in
+ * iterations, such as one depth of an iterative deepening search; by default
+ * only iterations taking 10ms or more are recorded.
+ * 
+ * @author lackofcheese
+ */
+@Name("search.Iteration")
+@Label("Search Iteration")
+@Category("Search")
+@Description("One iteration of an iterative search, e.g. one depth limit")
+@Threshold("10 ms")
+@StackTrace(false)
+class IterationEvent extends Event {
+	/** The class of the search algorithm. */
+	@Label("Algorithm")
+	String algorithm;
+	/** The problem domain being searched. */
+	@Label("Domain")
+	String domain;
+	/** The bound of the iteration, e.g. its depth limit. */
+	@Label("Bound")
+	double bound;
+	/** The number of search steps taken by the iteration. */
+	@Label("Expanded")
+	long expanded;
+	/** True if the iteration ran to its end, or false if it was cut short. */
+	@Label("Completed")
+	boolean completed;
+}
@@ -0,0 +1,228 @@
+package search.algorithms.jfr;
+
+import search.algorithms.AbstractSearchAlgorithm;
+import search.algorithms.SearchListener;
+import search.algorithms.SearchListenerAdapter;
+import search.algorithms.SearchStatistics;
+import search.algorithms.SearchStatus;
+import search.states.State;
+
+/**
+ * Records the progress of a search as Java Flight Recorder events, so that a
+ * slow search can be lined up against GC and CPU activity in a recording.
+ * Searches and their iterations are recorded as duration events, subject to
+ * the thresholds of their event types, and the size of the frontier is
+ * sampled at most once per sample period. The samples are taken when the
+ * search checks its limits, which every search does at each step, so that
+ * they are recorded for every algorithm; when no recording is running, each
+ * step costs only a comparison.
+ * 
+ * Every event is also passed on to another listener, if one is given. As it
+ * tracks the search it is attached to, a listener must not be shared by
+ * searches running at once.
+ * 
+ * @author lackofcheese
+ * @param <S>
+ *            the type of state used.
+ */
+public class JfrSearchListener<S extends State> implements SearchListener<S> {
+	/** The number of steps between checks of the clock. */
+	private static final int SAMPLE_CHECK_INTERVAL = 4096;
+	/** The default time between frontier samples, in nanoseconds. */
+	public static final long DEFAULT_SAMPLE_PERIOD_NANOS = 100000000L;
+
+	/** The problem domain being searched. */
+	private final String domain;
+	/** The listener to pass every event on to. */
+	private final SearchListener<S> delegate;
+	/** The least time between frontier samples, in nanoseconds. */
+	private long samplePeriodNanos = DEFAULT_SAMPLE_PERIOD_NANOS;
+
+	/** The event for the current search, or null if there is none. */
+	private SearchEvent searchEvent;
+	/** The event for the current iteration, or null if there is none. */
+	private IterationEvent iterationEvent;
+	/** The number of steps taken before the current iteration started. */
+	private long iterationStartExpansions;
+	/** The number of steps at which the clock is next checked. */
+	private long nextCheckExpansions;
+	/** The depth of the last state expanded, or UNKNOWN_DEPTH. */
+	private int lastDepth;
+	/** The time of the last frontier sample, from System.nanoTime(). */
+	private long lastSampleNanos;
+
+	/**
+	 * Constructs a listener for searches of the given domain.
+	 * 
+	 * @param domain
+	 *            the problem domain being searched, e.g. "8-puzzle".
+	 */
+	public JfrSearchListener(String domain) {
+		this(domain, null);
+	}
+
+	/**
+	 * Constructs a listener for searches of the given domain, which passes
+	 * every event on to another listener.
+	 * 
+	 * @param domain
+	 *            the problem domain being searched, e.g. "8-puzzle".
+	 * @param delegate
+	 *            the listener to pass events on to, or null for none.
+	 */
+	public JfrSearchListener(String domain, SearchListener<S> delegate) {
+		this.domain = domain;
+		if (delegate == null) {
+			delegate = new SearchListenerAdapter<S>();
+		}
+		this.delegate = delegate;
+	}
+
+	/**
+	 * Sets the least time between samples of the frontier size.
+	 * 
+	 * @param samplePeriodNanos
+	 *            the sample period, in nanoseconds.
+	 */
+	public void setSamplePeriodNanos(long samplePeriodNanos) {
+		this.samplePeriodNanos = samplePeriodNanos;
+	}
+
+	/**
+	 * Returns the least time between samples of the frontier size.
+	 * 
+	 * @return the sample period, in nanoseconds.
+	 */
+	public long getSamplePeriodNanos() {
+		return samplePeriodNanos;
+	}
+
+	/**
+	 * Returns a name for the algorithm of a search.
+	 * 
+	 * @param search
+	 *            the search.
+	 * @return the simple name of its class, or the full name if it has none.
+	 */
+	private static String algorithmName(AbstractSearchAlgorithm<?> search) {
+		String name = search.getClass().getSimpleName();
+		if (name.isEmpty()) {
+			name = search.getClass().getName();
+		}
+		return name;
+	}
+
+	@Override
+	public void searchStarted(AbstractSearchAlgorithm<S> search) {
+		delegate.searchStarted(search);
+		iterationEvent = null;
+		searchEvent = new SearchEvent();
+		searchEvent.begin();
+		nextCheckExpansions = search.getExpansions() + SAMPLE_CHECK_INTERVAL;
+		lastSampleNanos = System.nanoTime();
+		lastDepth = UNKNOWN_DEPTH;
+	}
+
+	@Override
+	public void stateExpanded(AbstractSearchAlgorithm<S> search, S state,
+			int depth) {
+		delegate.stateExpanded(search, state, depth);
+		lastDepth = depth;
+	}
+
+	@Override
+	public void budgetChecked(AbstractSearchAlgorithm<S> search,
+			long expansions) {
+		delegate.budgetChecked(search, expansions);
+		if (expansions < nextCheckExpansions) {
+			return;
+		}
+		nextCheckExpansions = expansions + SAMPLE_CHECK_INTERVAL;
+		long now = System.nanoTime();
+		if (now - lastSampleNanos < samplePeriodNanos) {
+			return;
+		}
+		lastSampleNanos = now;
+		FrontierSampleEvent event = new FrontierSampleEvent();
+		if (event.shouldCommit()) {
+			event.algorithm = algorithmName(search);
+			event.domain = domain;
+			event.expanded = expansions;
+			event.open = search.getOpenStates();
+			event.stored = search.getStoredStates();
+			event.depth = lastDepth;
+			event.commit();
+		}
+	}
+
+	@Override
+	public void iterationStarted(AbstractSearchAlgorithm<S> search,
+			double bound) {
+		delegate.iterationStarted(search, bound);
+		iterationEvent = new IterationEvent();
+		iterationEvent.bound = bound;
+		iterationStartExpansions = search.getExpansions();
+		iterationEvent.begin();
+	}
+
+	@Override
+	public void iterationFinished(AbstractSearchAlgorithm<S> search,
+			double bound, long expansions) {
+		delegate.iterationFinished(search, bound, expansions);
+		if (iterationEvent != null) {
+			finishIteration(search, expansions, true);
+		}
+	}
+
+	@Override
+	public void searchFinished(AbstractSearchAlgorithm<S> search,
+			SearchStatus status) {
+		delegate.searchFinished(search, status);
+		if (iterationEvent != null) {
+			finishIteration(search, search.getExpansions()
+					- iterationStartExpansions, false);
+		}
+		if (searchEvent == null) {
+			return;
+		}
+		SearchEvent event = searchEvent;
+		searchEvent = null;
+		event.end();
+		if (event.shouldCommit()) {
+			SearchStatistics statistics = search.getStatistics();
+			event.algorithm = algorithmName(search);
+			event.domain = domain;
+			event.status = status.name();
+			event.expanded = statistics.getExpanded();
+			event.generated = statistics.getGenerated();
+			event.peakStored = statistics.getPeakStored();
+			event.commit();
+		}
+	}
+
+	/**
+	 * Ends the event for the current iteration, and records it if it passes
+	 * the threshold.
+	 * 
+	 * @param search
+	 *            the search.
+	 * @param expansions
+	 *            the number of steps taken by the iteration.
+	 * @param completed
+	 *            true if the iteration ran to its end, or false if the search
+	 *            stopped during it.
+	 */
+	private void finishIteration(AbstractSearchAlgorithm<S> search,
+			long expansions, boolean completed) {
+		IterationEvent event = iterationEvent;
+		iterationEvent = null;
+		event.end();
+		if (event.shouldCommit()) {
+			event.algorithm = algorithmName(search);
+			event.domain = domain;
+			event.expanded = expansions;
+			event.completed = completed;
+			event.commit();
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package search.algorithms.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event spanning the loading or building of the inputs to
+ * a search, such as a graph read from a file or a precomputed heuristic
+ * table. These happen once per problem, so every one is recorded; inputs
+ * that take no real work to build, such as a heuristic that is computed as
+ * it is used, are not worth an event.
+ * 
+ * <pre>
+ * LoadEvent event = new LoadEvent(&quot;graph&quot;, fileName);
+ * ... load the graph ...
+ * event.finish(numVertices + numEdges);
+ * </pre>
+ * 
+ * @author lackofcheese
+ */
+@Name("search.Load")
+@Label("Search Input Load")
+@Category("Search")
+@Description("The loading or building of a graph, heuristic table or instance")
+@StackTrace(false)
+public class LoadEvent extends Event {
+	/** What is being loaded, e.g. "graph" or "heuristic". */
+	@Label("Phase")
+	String phase;
+	/** Where it is loaded from, e.g. a file name. */
+	@Label("Source")
+	String source;
+	/** The number of items loaded, e.g. vertices and edges. */
+	@Label("Items")
+	long items;
+
+	/**
+	 * Constructs the event and starts its clock.
+	 * 
+	 * @param phase
+	 *            what is being loaded, e.g. "graph" or "heuristic".
+	 * @param source
+	 *            where it is loaded from, e.g. a file name.
+	 */
+	public LoadEvent(String phase, String source) {
+		this.phase = phase;
+		this.source = source;
+		begin();
+	}
+
+	/**
+	 * Stops the clock and records the event, if recording is enabled.
+	 * 
+	 * @param items
+	 *            the number of items loaded, e.g. vertices and edges.
+	 */
+	public void finish(long items) {
+		end();
+		if (shouldCommit()) {
+			this.items = items;
+			commit();
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package search.algorithms.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A Flight Recorder event spanning a whole search; by default only searches
+ * taking 20ms or more are recorded.
+ * 
+ * @author lackofcheese
+ */
+@Name("search.Search")
+@Label("Search")
+@Category("Search")
+@Description("A search from its start to its outcome")
+@Threshold("20 ms")
+@StackTrace(false)
+class SearchEvent extends Event {
+	/** The class of the search algorithm. */
+	@Label("Algorithm")
+	String algorithm;
+	/** The problem domain being searched. */
+	@Label("Domain")
+	String domain;
+	/** The outcome of the search. */
+	@Label("Status")
+	String status;
+	/** The number of search steps taken. */
+	@Label("Expanded")
+	long expanded;
+	/** The number of successors generated. */
+	@Label("Generated")
+	long generated;
+	/** The largest number of states held in memory at once. */
+	@Label("Peak Stored")
+	long peakStored;
+}
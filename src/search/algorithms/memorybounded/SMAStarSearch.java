@@ -0,0 +1,456 @@
+package search.algorithms.memorybounded;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import search.algorithms.AbstractSearchAlgorithm;
+import search.algorithms.SearchStatus;
+import search.goals.GoalTest;
+import search.heuristics.Heuristic;
+import search.sfs.SuccessorFunction;
+import search.states.State;
+
+/**
+ * An implementation of Simplified Memory-Bounded A* (SMA*), which behaves
+ * like A* but never holds more than a fixed number of nodes in memory.
+ * 
+ * When the node cap is reached, the worst leaf (highest f-value, and the
+ * shallowest of those) is dropped from the search tree, and its f-value is
+ * backed up into its parent; the parent is then queued again so that the
+ * dropped subtree is regenerated if it turns out to be the most promising
+ * after all. Children are given at least the f-value of their parent, so
+ * f-values never decrease along a path.
+ * 
+ * With an admissible heuristic, the solution found is optimal as long as
+ * the optimal path fits within the node cap. If no solution is found and
+ * some part of the tree had to be given up because it could not fit, the
+ * status of the search is BUDGET_EXHAUSTED rather than NO_SOLUTION.
+ * 
+ * @author lackofcheese
+ * @param <S>
+ *            the type of state used.
+ */
+public class SMAStarSearch<S extends State> extends AbstractSearchAlgorithm<S> {
+	/**
+	 * A node in the search tree.
+	 * 
+	 * @author lackofcheese
+	 */
+	private class Node {
+		/** The state. */
+		private S state;
+		/** The parent node, or null for the root. */
+		private Node parent;
+		/** The number of steps from the root. */
+		private int depth;
+		/** The cost of the path from the root. */
+		private double g;
+		/** The backed-up f-value; a lower bound on solutions through here. */
+		private double f;
+		/** The children held in memory, or null if not yet expanded. */
+		private List<Node> children;
+		/** The lowest f-value of any child that has been dropped. */
+		private double forgottenF = Double.POSITIVE_INFINITY;
+		/** The value this node is ordered by while in the open set. */
+		private double key;
+		/** True if this node is in the open set. */
+		private boolean inOpen;
+		/** A sequence number, used to break ties consistently. */
+		private long id;
+
+		/**
+		 * Constructs a node.
+		 * 
+		 * @param state
+		 *            the state.
+		 * @param parent
+		 *            the parent node.
+		 * @param g
+		 *            the cost from the root.
+		 * @param f
+		 *            the f-value.
+		 */
+		public Node(S state, Node parent, double g, double f) {
+			this.state = state;
+			this.parent = parent;
+			this.depth = parent == null ? 0 : parent.depth + 1;
+			this.g = g;
+			this.f = f;
+			this.id = nextId++;
+		}
+	}
+
+	/**
+	 * Orders the open set: lowest key first, and the deepest of those.
+	 */
+	private final Comparator<Node> openOrder = new Comparator<Node>() {
+		@Override
+		public int compare(Node n1, Node n2) {
+			int result = Double.compare(n1.key, n2.key);
+			if (result != 0) {
+				return result;
+			}
+			return compareTies(n1, n2);
+		}
+	};
+
+	/**
+	 * Orders the leaves from best to worst: lowest f-value first, and the
+	 * deepest of those.
+	 */
+	private final Comparator<Node> leafOrder = new Comparator<Node>() {
+		@Override
+		public int compare(Node n1, Node n2) {
+			int result = Double.compare(n1.f, n2.f);
+			if (result != 0) {
+				return result;
+			}
+			return compareTies(n1, n2);
+		}
+	};
+
+	/** The maximum number of nodes held in memory. */
+	private int maxNodes;
+
+	/** The nodes to be expanded, or to have dropped children regenerated. */
+	private TreeSet<Node> open;
+	/** The nodes with no children in memory. */
+	private TreeSet<Node> leaves;
+	/** The root node. */
+	private Node rootNode;
+	/** The node being expanded. */
+	private Node expanding;
+	/** The number of nodes held in memory. */
+	private int nodeCount;
+	/** The next node sequence number. */
+	private long nextId;
+	/** True if part of the tree was given up for lack of memory. */
+	private boolean memoryCutoff;
+	/** The number of nodes dropped during the last search. */
+	private long dropped;
+	/** The goal node found by the last search, or null if there is none. */
+	private Node goalNode;
+
+	/**
+	 * Constructs an SMA* search with the given parameters.
+	 * 
+	 * @param root
+	 *            the initial state.
+	 * @param goalTest
+	 *            a test for goal states.
+	 * @param sf
+	 *            the successor function.
+	 * @param heuristic
+	 *            the heuristic function; this should be admissible.
+	 * @param maxNodes
+	 *            the maximum number of nodes to hold in memory; this must be
+	 *            at least 1.
+	 */
+	public SMAStarSearch(S root, GoalTest<S> goalTest, SuccessorFunction<S> sf,
+			Heuristic<S> heuristic, int maxNodes) {
+		super(root, goalTest, sf, heuristic);
+		if (maxNodes < 1) {
+			throw new IllegalArgumentException("Node cap must be at least 1");
+		}
+		this.maxNodes = maxNodes;
+	}
+
+	/**
+	 * Returns the maximum number of nodes held in memory.
+	 * 
+	 * @return the node cap.
+	 */
+	public int getMaxNodes() {
+		return maxNodes;
+	}
+
+	/**
+	 * Returns the number of nodes dropped to free memory during the last
+	 * search.
+	 * 
+	 * @return the number of nodes dropped.
+	 */
+	public long getDroppedCount() {
+		return dropped;
+	}
+
+	/**
+	 * Compares two nodes with equal keys; the deeper node comes first, and
+	 * after that the older node.
+	 * 
+	 * @param n1
+	 *            the first node.
+	 * @param n2
+	 *            the second node.
+	 * @return a negative number, zero, or a positive number as the first node
+	 *         comes before, equal to, or after the second.
+	 */
+	private int compareTies(Node n1, Node n2) {
+		if (n1.depth != n2.depth) {
+			return n1.depth > n2.depth ? -1 : 1;
+		}
+		return n1.id < n2.id ? -1 : (n1.id == n2.id ? 0 : 1);
+	}
+
+	@Override
+	public void search() {
+		beginSearch();
+		open = new TreeSet<Node>(openOrder);
+		leaves = new TreeSet<Node>(leafOrder);
+		nextId = 0;
+		memoryCutoff = false;
+		dropped = 0;
+		goalNode = null;
+
+		rootNode = new Node(getRoot(), null, 0,
+				heuristicEstimate(getRoot()));
+		nodeCount = 1;
+		addOpen(rootNode);
+		leaves.add(rootNode);
+
+		while (true) {
+			if (open.isEmpty()
+					|| open.first().key == Double.POSITIVE_INFINITY) {
+				if (memoryCutoff) {
+					setStatus(SearchStatus.BUDGET_EXHAUSTED);
+				} else {
+					endSearch(false);
+				}
+				return;
+			}
+			Node best = open.first();
+			if (best.children == null && getGoalTest().isGoal(best.state)) {
+				goalNode = best;
+				endSearch(true);
+				return;
+			}
+			if (!withinBudget(1, nodeCount)) {
+				return;
+			}
+			removeOpen(best);
+			notifyExpanded(best.state, best.depth);
+			expand(best);
+		}
+	}
+
+	/**
+	 * Expands the given node, or regenerates its dropped children if it has
+	 * already been expanded, dropping the worst leaves to make room.
+	 * 
+	 * @param node
+	 *            the node to expand.
+	 */
+	private void expand(Node node) {
+		expanding = node;
+		boolean regenerating = node.children != null;
+		double minF = regenerating ? node.forgottenF : node.f;
+		leaves.remove(node);
+		Set<S> present = new HashSet<S>();
+		if (regenerating) {
+			for (Node child : node.children) {
+				present.add(child.state);
+			}
+		} else {
+			node.children = new ArrayList<Node>();
+		}
+
+		List<Node> generated = new ArrayList<Node>();
+		Map<S, Double> succMap = successorsOf(node.state);
+		for (Map.Entry<S, Double> entry : succMap.entrySet()) {
+			S s2 = entry.getKey();
+			if (present.contains(s2) || onPath(node, s2)) {
+				countDuplicate();
+				continue;
+			}
+			double g = node.g + entry.getValue();
+			double f = Math.max(g + heuristicEstimate(s2), minF);
+			generated.add(new Node(s2, node, g, f));
+		}
+		Collections.sort(generated, leafOrder);
+
+		// Add the children best first; the first must be given room, but
+		// the others only replace leaves that are worse than they are.
+		node.forgottenF = Double.POSITIVE_INFINITY;
+		boolean cutoff = false;
+		for (int i = 0; i < generated.size(); i++) {
+			Node child = generated.get(i);
+			if (nodeCount >= maxNodes) {
+				Node worst = worstLeaf();
+				if (worst != null
+						&& (i == 0 || leafOrder.compare(worst, child) > 0)) {
+					drop(worst);
+				}
+			}
+			if (nodeCount >= maxNodes) {
+				cutoff = i == 0 && node.children.isEmpty();
+				node.forgottenF = Math.min(node.forgottenF, child.f);
+				break;
+			}
+			node.children.add(child);
+			nodeCount++;
+			addOpen(child);
+			leaves.add(child);
+		}
+		if (cutoff) {
+			// Not even one child fits alongside the path to this node.
+			memoryCutoff = true;
+			node.forgottenF = Double.POSITIVE_INFINITY;
+		}
+		expanding = null;
+
+		backUp(node);
+		if (node.children.isEmpty()) {
+			leaves.add(node);
+		}
+		if (node.forgottenF < Double.POSITIVE_INFINITY) {
+			addOpen(node);
+		}
+	}
+
+	/**
+	 * Returns true if the given state is on the path from the root to the
+	 * given node.
+	 * 
+	 * @param node
+	 *            the node.
+	 * @param s
+	 *            the state.
+	 * @return true if the state is an ancestor of the node, or its state.
+	 */
+	private boolean onPath(Node node, S s) {
+		for (Node n = node; n != null; n = n.parent) {
+			if (n.state.equals(s)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the worst leaf that may be dropped, or null if there is none.
+	 * 
+	 * @return the worst leaf other than the root.
+	 */
+	private Node worstLeaf() {
+		Iterator<Node> it = leaves.descendingIterator();
+		while (it.hasNext()) {
+			Node n = it.next();
+			if (n != rootNode) {
+				return n;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Drops a leaf from memory, backing up its f-value into its parent and
+	 * queueing the parent so that the leaf can be regenerated.
+	 * 
+	 * @param leaf
+	 *            the leaf to drop.
+	 */
+	private void drop(Node leaf) {
+		leaves.remove(leaf);
+		if (leaf.inOpen) {
+			removeOpen(leaf);
+		}
+		Node parent = leaf.parent;
+		parent.children.remove(leaf);
+		nodeCount--;
+		dropped++;
+		if (leaf.f < parent.forgottenF) {
+			boolean queued = parent.inOpen;
+			if (queued) {
+				removeOpen(parent);
+			}
+			parent.forgottenF = leaf.f;
+			if (queued || parent != expanding) {
+				addOpen(parent);
+			}
+		}
+		if (parent.children.isEmpty() && parent != expanding) {
+			leaves.add(parent);
+		}
+	}
+
+	/**
+	 * Updates the f-value of the given node from its children, and passes any
+	 * change on to its ancestors.
+	 * 
+	 * @param node
+	 *            the node whose children have changed.
+	 */
+	private void backUp(Node node) {
+		for (Node n = node; n != null; n = n.parent) {
+			double f = n.forgottenF;
+			for (Node child : n.children) {
+				f = Math.min(f, child.f);
+			}
+			if (n != node && f == n.f) {
+				return;
+			}
+			n.f = f;
+		}
+	}
+
+	/**
+	 * Adds a node to the open set, keyed by its own f-value if it has not
+	 * been expanded, and by its lowest dropped child otherwise.
+	 * 
+	 * @param node
+	 *            the node to add.
+	 */
+	private void addOpen(Node node) {
+		node.key = node.children == null ? node.f : node.forgottenF;
+		node.inOpen = true;
+		open.add(node);
+	}
+
+	/**
+	 * Removes a node from the open set.
+	 * 
+	 * @param node
+	 *            the node to remove.
+	 */
+	private void removeOpen(Node node) {
+		open.remove(node);
+		node.inOpen = false;
+	}
+
+	@Override
+	public boolean goalFound() {
+		return goalNode != null;
+	}
+
+	@Override
+	public S getGoalState() {
+		return goalNode.state;
+	}
+
+	@Override
+	public int getGoalDepth() {
+		return goalNode.depth;
+	}
+
+	@Override
+	public double getGoalCost() {
+		return goalNode.g;
+	}
+
+	@Override
+	public List<S> getGoalPath() {
+		List<S> path = new ArrayList<S>();
+		for (Node n = goalNode; n != null; n = n.parent) {
+			path.add(n.state);
+		}
+		Collections.reverse(path);
+		return path;
+	}
+}
@@ -0,0 +1,199 @@
+package search.algorithms.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies, in nanoseconds, from which percentiles can be
+ * read. Values are counted in buckets whose width grows with the value, so
+ * that every percentile is within about 3% of the true value, over the whole
+ * range of a long, in a fixed array of counters.
+ * 
+ * Latencies may be recorded by any number of threads at once; recording
+ * takes no locks and allocates nothing. A snapshot may be taken while values
+ * are being recorded; it then holds some of the concurrent values and not
+ * others.
+ * 
+ * @author lackofcheese
+ */
+public final class LatencyHistogram {
+	/** The number of bits of each value that pick its sub-bucket. */
+	private static final int SUB_BUCKET_BITS = 5;
+	/** The number of buckets for each power of two. */
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	/** The number of buckets needed to cover every non-negative long. */
+	private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS)
+			* SUB_BUCKET_COUNT;
+
+	/** The number of values in each bucket. */
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+	/** The sum of the values. */
+	private final LongAdder sum = new LongAdder();
+	/** The largest value. */
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a latency.
+	 * 
+	 * @param nanos
+	 *            the latency, in nanoseconds; negative values count as zero.
+	 */
+	public void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		buckets.incrementAndGet(bucketIndex(nanos));
+		sum.add(nanos);
+		long current = max.get();
+		while (nanos > current && !max.compareAndSet(current, nanos)) {
+			current = max.get();
+		}
+	}
+
+	/**
+	 * Returns the bucket that a value is counted in.
+	 * 
+	 * @param value
+	 *            the value, which must not be negative.
+	 * @return the index of its bucket.
+	 */
+	static int bucketIndex(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return ((shift + 1) << SUB_BUCKET_BITS)
+				+ (int) ((value >>> shift) - SUB_BUCKET_COUNT);
+	}
+
+	/**
+	 * Returns the largest value counted in a bucket.
+	 * 
+	 * @param index
+	 *            the index of the bucket.
+	 * @return the largest value in the bucket.
+	 */
+	static long bucketUpperBound(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int shift = (index >>> SUB_BUCKET_BITS) - 1;
+		long top = (index & (SUB_BUCKET_COUNT - 1)) + SUB_BUCKET_COUNT;
+		// At the top bucket this wraps round to Long.MAX_VALUE, as it should.
+		return ((top + 1) << shift) - 1;
+	}
+
+	/**
+	 * Takes a snapshot of the values recorded so far.
+	 * 
+	 * @return the snapshot.
+	 */
+	public Snapshot snapshot() {
+		long[] counts = new long[BUCKET_COUNT];
+		long count = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] = buckets.get(i);
+			count += counts[i];
+		}
+		return new Snapshot(counts, count, sum.sum(), max.get());
+	}
+
+	/**
+	 * The values of a histogram at one point in time.
+	 */
+	public static final class Snapshot {
+		/** The number of values in each bucket. */
+		private final long[] counts;
+		/** The number of values. */
+		private final long count;
+		/** The sum of the values. */
+		private final long sum;
+		/** The largest value. */
+		private final long max;
+
+		/**
+		 * Constructs a snapshot.
+		 * 
+		 * @param counts
+		 *            the number of values in each bucket.
+		 * @param count
+		 *            the number of values.
+		 * @param sum
+		 *            the sum of the values.
+		 * @param max
+		 *            the largest value.
+		 */
+		private Snapshot(long[] counts, long count, long sum, long max) {
+			this.counts = counts;
+			this.count = count;
+			this.sum = sum;
+			this.max = max;
+		}
+
+		/**
+		 * Returns the number of values.
+		 * 
+		 * @return the number of values.
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * Returns the sum of the values.
+		 * 
+		 * @return the sum, in nanoseconds.
+		 */
+		public long getSum() {
+			return sum;
+		}
+
+		/**
+		 * Returns the largest value.
+		 * 
+		 * @return the largest value, in nanoseconds, or zero if there are
+		 *         none.
+		 */
+		public long getMax() {
+			return max;
+		}
+
+		/**
+		 * Returns the mean of the values.
+		 * 
+		 * @return the mean, in nanoseconds, or zero if there are none.
+		 */
+		public double getMean() {
+			return count == 0 ? 0 : (double) sum / count;
+		}
+
+		/**
+		 * Returns the value at a quantile, e.g. 0.99 for the 99th
+		 * percentile; this is the upper end of the bucket holding it, so it
+		 * may be slightly above the true value, but never above the largest.
+		 * 
+		 * @param quantile
+		 *            the quantile, from 0 to 1.
+		 * @return the value at the quantile, in nanoseconds, or zero if there
+		 *         are no values.
+		 */
+		public long getValueAtQuantile(double quantile) {
+			if (count == 0) {
+				return 0;
+			}
+			long rank = (long) Math.ceil(quantile * count);
+			if (rank < 1) {
+				rank = 1;
+			}
+			long seen = 0;
+			for (int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if (seen >= rank) {
+					return Math.min(bucketUpperBound(i), max);
+				}
+			}
+			return max;
+		}
+	}
+}
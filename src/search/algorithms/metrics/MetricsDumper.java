@@ -0,0 +1,161 @@
+package search.algorithms.metrics;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the metrics of a registry to local files periodically, on a
+ * background thread of its own, and once more when it is closed. The
+ * Prometheus file is replaced as a whole each time, so that a collector
+ * reading it never sees it half-written; each dump adds rows to the end of
+ * the CSV file, so that it holds the history of the run.
+ * 
+ * @author lackofcheese
+ */
+public class MetricsDumper {
+	/** The character set of the files. */
+	private static final Charset CHARSET = Charset.forName("UTF-8");
+
+	/** The registry to dump. */
+	private final MetricsRegistry registry;
+	/** The file to write in the Prometheus text format, or null for none. */
+	private final File prometheusFile;
+	/** The file to add CSV rows to, or null for none. */
+	private final File csvFile;
+	/** Runs the periodic dumps, or null if they have not been started. */
+	private ScheduledExecutorService scheduler;
+
+	/**
+	 * Constructs a dumper for the given registry.
+	 * 
+	 * @param registry
+	 *            the registry to dump.
+	 * @param prometheusFile
+	 *            the file to write in the Prometheus text format, or null
+	 *            for none.
+	 * @param csvFile
+	 *            the file to add CSV rows to, or null for none.
+	 */
+	public MetricsDumper(MetricsRegistry registry, File prometheusFile,
+			File csvFile) {
+		this.registry = registry;
+		this.prometheusFile = prometheusFile;
+		this.csvFile = csvFile;
+	}
+
+	/**
+	 * Starts dumping the metrics periodically.
+	 * 
+	 * @param periodMillis
+	 *            the time between dumps, in milliseconds.
+	 * @throws IllegalStateException
+	 *             if the dumps have already been started.
+	 */
+	public synchronized void start(long periodMillis) {
+		if (scheduler != null) {
+			throw new IllegalStateException("Already started");
+		}
+		scheduler = Executors.newSingleThreadScheduledExecutor(
+				new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "metrics-dumper");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		scheduler.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					dump();
+				} catch (IOException e) {
+					// Try again next time; the metrics are not lost.
+					System.err.println("Could not dump metrics: " + e);
+				}
+			}
+		}, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops the periodic dumps, and dumps the metrics one last time.
+	 * 
+	 * @throws IOException
+	 *             if there are issues writing the files.
+	 */
+	public void close() throws IOException {
+		synchronized (this) {
+			if (scheduler != null) {
+				scheduler.shutdown();
+				try {
+					scheduler.awaitTermination(1, TimeUnit.MINUTES);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				scheduler = null;
+			}
+		}
+		dump();
+	}
+
+	/**
+	 * Writes the metrics to the files now.
+	 * 
+	 * @throws IOException
+	 *             if there are issues writing the files.
+	 */
+	public synchronized void dump() throws IOException {
+		if (prometheusFile != null) {
+			File temp = new File(prometheusFile.getPath() + ".tmp");
+			Writer out = open(temp, false);
+			try {
+				registry.writePrometheus(out);
+			} finally {
+				out.close();
+			}
+			Files.move(temp.toPath(), prometheusFile.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		}
+		if (csvFile != null) {
+			boolean isNew = csvFile.length() == 0;
+			Writer out = open(csvFile, true);
+			try {
+				if (isNew) {
+					out.write(MetricsRegistry.CSV_HEADER);
+					out.write('\n');
+				}
+				registry.writeCsv(out, System.currentTimeMillis());
+			} finally {
+				out.close();
+			}
+		}
+	}
+
+	/**
+	 * Opens a file for writing.
+	 * 
+	 * @param file
+	 *            the file.
+	 * @param append
+	 *            true to add to the end of the file, or false to replace it.
+	 * @return a writer for the file.
+	 * @throws IOException
+	 *             if the file cannot be opened.
+	 */
+	private static Writer open(File file, boolean append) throws IOException {
+		return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(
+				file, append), CHARSET));
+	}
+}
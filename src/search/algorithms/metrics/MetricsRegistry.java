@@ -0,0 +1,303 @@
+package search.algorithms.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import search.algorithms.SearchResult;
+
+/**
+ * Holds the metrics for each kind of search run by a process, keyed by the
+ * algorithm and the problem domain, and writes them out in the Prometheus
+ * text format or as CSV.
+ * 
+ * Searches should be recorded when they finish, e.g.
+ * 
+ * <pre>
+ * SearchMetrics metrics = registry.forSearch(&quot;AStarSearch&quot;,
+ * 		&quot;8-puzzle&quot;);
+ * metrics.record(result);
+ * </pre>
+ * 
+ * Callers that record many searches may keep the SearchMetrics rather than
+ * look them up each time. Recording is safe from any number of threads at
+ * once.
+ * 
+ * @author lackofcheese
+ */
+public class MetricsRegistry {
+	/** The quantiles of the latency that are written out. */
+	private static final double[] QUANTILES = { 0.5, 0.99, 0.999 };
+	/** The header of the CSV output. */
+	public static final String CSV_HEADER = "timestamp,algorithm,domain,"
+			+ "solved,failed,budget_exhausted,cancelled,count,p50_us,p99_us,"
+			+ "p999_us,max_us,mean_us,expanded,nodes_per_second";
+
+	/** The metrics for each kind of search, by algorithm and domain. */
+	private final ConcurrentMap<String, SearchMetrics> metrics =
+			new ConcurrentHashMap<String, SearchMetrics>();
+
+	/**
+	 * Returns the metrics for a kind of search, creating them if need be.
+	 * 
+	 * @param algorithm
+	 *            the search algorithm, e.g. "AStarSearch".
+	 * @param domain
+	 *            the problem domain searched, e.g. "8-puzzle".
+	 * @return the metrics.
+	 */
+	public SearchMetrics forSearch(String algorithm, String domain) {
+		String key = algorithm + '\n' + domain;
+		SearchMetrics found = metrics.get(key);
+		if (found == null) {
+			found = new SearchMetrics(algorithm, domain);
+			SearchMetrics existing = metrics.putIfAbsent(key, found);
+			if (existing != null) {
+				found = existing;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Records the result of a finished search.
+	 * 
+	 * @param algorithm
+	 *            the search algorithm.
+	 * @param domain
+	 *            the problem domain searched.
+	 * @param result
+	 *            the result of the search.
+	 */
+	public void record(String algorithm, String domain,
+			SearchResult<?> result) {
+		forSearch(algorithm, domain).record(result);
+	}
+
+	/**
+	 * Returns the metrics for every kind of search recorded so far, sorted by
+	 * algorithm and then domain.
+	 * 
+	 * @return the metrics.
+	 */
+	public List<SearchMetrics> getAll() {
+		List<SearchMetrics> all = new ArrayList<SearchMetrics>(
+				metrics.values());
+		Collections.sort(all, new Comparator<SearchMetrics>() {
+			@Override
+			public int compare(SearchMetrics a, SearchMetrics b) {
+				int result = a.getAlgorithm().compareTo(b.getAlgorithm());
+				if (result == 0) {
+					result = a.getDomain().compareTo(b.getDomain());
+				}
+				return result;
+			}
+		});
+		return all;
+	}
+
+	/**
+	 * Returns the rate at which a kind of search expands states, taken over
+	 * the time spent searching; with searches running in parallel, the rate
+	 * of the process as a whole is higher.
+	 * 
+	 * @param metrics
+	 *            the metrics.
+	 * @param latency
+	 *            a snapshot of their latency histogram.
+	 * @return the number of steps taken per second of searching.
+	 */
+	private static double nodesPerSecond(SearchMetrics metrics,
+			LatencyHistogram.Snapshot latency) {
+		if (latency.getSum() == 0) {
+			return 0;
+		}
+		return metrics.getExpanded() * 1e9 / latency.getSum();
+	}
+
+	/**
+	 * Writes the metrics in the Prometheus text exposition format. The
+	 * latency of each kind of search is a summary in seconds, with its
+	 * largest value as a separate gauge.
+	 * 
+	 * @param out
+	 *            the writer to write to; it is not flushed.
+	 * @throws IOException
+	 *             if there are issues writing.
+	 */
+	public void writePrometheus(Writer out) throws IOException {
+		List<SearchMetrics> all = getAll();
+		List<LatencyHistogram.Snapshot> latencies =
+				new ArrayList<LatencyHistogram.Snapshot>(all.size());
+		for (SearchMetrics m : all) {
+			latencies.add(m.getLatency().snapshot());
+		}
+
+		out.write("# HELP search_latency_seconds The time taken by each "
+				+ "search.\n");
+		out.write("# TYPE search_latency_seconds summary\n");
+		for (int i = 0; i < all.size(); i++) {
+			String labels = labels(all.get(i));
+			LatencyHistogram.Snapshot latency = latencies.get(i);
+			for (double quantile : QUANTILES) {
+				out.write("search_latency_seconds{" + labels + ",quantile=\""
+						+ quantile + "\"} "
+						+ seconds(latency.getValueAtQuantile(quantile))
+						+ "\n");
+			}
+			out.write("search_latency_seconds_sum{" + labels + "} "
+					+ seconds(latency.getSum()) + "\n");
+			out.write("search_latency_seconds_count{" + labels + "} "
+					+ latency.getCount() + "\n");
+		}
+
+		out.write("# HELP search_latency_max_seconds The longest time taken "
+				+ "by a search.\n");
+		out.write("# TYPE search_latency_max_seconds gauge\n");
+		for (int i = 0; i < all.size(); i++) {
+			out.write("search_latency_max_seconds{" + labels(all.get(i))
+					+ "} " + seconds(latencies.get(i).getMax()) + "\n");
+		}
+
+		out.write("# HELP search_outcomes_total The number of searches "
+				+ "finished, by outcome.\n");
+		out.write("# TYPE search_outcomes_total counter\n");
+		for (SearchMetrics m : all) {
+			String labels = labels(m);
+			writeOutcome(out, labels, "solved", m.getSolved());
+			writeOutcome(out, labels, "failed", m.getFailed());
+			writeOutcome(out, labels, "budget_exhausted",
+					m.getBudgetExhausted());
+			writeOutcome(out, labels, "cancelled", m.getCancelled());
+		}
+
+		out.write("# HELP search_expanded_total The number of search steps "
+				+ "taken.\n");
+		out.write("# TYPE search_expanded_total counter\n");
+		for (SearchMetrics m : all) {
+			out.write("search_expanded_total{" + labels(m) + "} "
+					+ m.getExpanded() + "\n");
+		}
+
+		out.write("# HELP search_nodes_per_second The number of search steps "
+				+ "taken per second of searching.\n");
+		out.write("# TYPE search_nodes_per_second gauge\n");
+		for (int i = 0; i < all.size(); i++) {
+			out.write("search_nodes_per_second{" + labels(all.get(i)) + "} "
+					+ nodesPerSecond(all.get(i), latencies.get(i))
+					+ "\n");
+		}
+	}
+
+	/**
+	 * Writes one sample of the outcome counter.
+	 * 
+	 * @param out
+	 *            the writer to write to.
+	 * @param labels
+	 *            the labels of the kind of search.
+	 * @param outcome
+	 *            the outcome.
+	 * @param count
+	 *            the number of searches with the outcome.
+	 * @throws IOException
+	 *             if there are issues writing.
+	 */
+	private static void writeOutcome(Writer out, String labels,
+			String outcome, long count) throws IOException {
+		out.write("search_outcomes_total{" + labels + ",outcome=\"" + outcome
+				+ "\"} " + count + "\n");
+	}
+
+	/**
+	 * Writes the metrics as CSV, one row per kind of search, without a
+	 * header; the columns are those of CSV_HEADER, with times in
+	 * microseconds.
+	 * 
+	 * @param out
+	 *            the writer to write to; it is not flushed.
+	 * @param timestamp
+	 *            the time of the rows, in milliseconds since the epoch.
+	 * @throws IOException
+	 *             if there are issues writing.
+	 */
+	public void writeCsv(Writer out, long timestamp) throws IOException {
+		for (SearchMetrics m : getAll()) {
+			LatencyHistogram.Snapshot latency = m.getLatency().snapshot();
+			StringBuilder row = new StringBuilder();
+			row.append(timestamp);
+			row.append(',').append(csvField(m.getAlgorithm()));
+			row.append(',').append(csvField(m.getDomain()));
+			row.append(',').append(m.getSolved());
+			row.append(',').append(m.getFailed());
+			row.append(',').append(m.getBudgetExhausted());
+			row.append(',').append(m.getCancelled());
+			row.append(',').append(latency.getCount());
+			for (double quantile : QUANTILES) {
+				row.append(',').append(
+						latency.getValueAtQuantile(quantile) / 1000);
+			}
+			row.append(',').append(latency.getMax() / 1000);
+			row.append(',').append(latency.getMean() / 1000);
+			row.append(',').append(m.getExpanded());
+			row.append(',').append(nodesPerSecond(m, latency));
+			row.append('\n');
+			out.write(row.toString());
+		}
+	}
+
+	/**
+	 * Returns the Prometheus labels for a kind of search.
+	 * 
+	 * @param metrics
+	 *            the metrics of the kind of search.
+	 * @return the labels, without the enclosing braces.
+	 */
+	private static String labels(SearchMetrics metrics) {
+		return "algorithm=\"" + escapeLabel(metrics.getAlgorithm())
+				+ "\",domain=\"" + escapeLabel(metrics.getDomain()) + "\"";
+	}
+
+	/**
+	 * Escapes a Prometheus label value.
+	 * 
+	 * @param value
+	 *            the value.
+	 * @return the escaped value.
+	 */
+	private static String escapeLabel(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"")
+				.replace("\n", "\\n");
+	}
+
+	/**
+	 * Quotes a CSV field if it needs to be.
+	 * 
+	 * @param value
+	 *            the value of the field.
+	 * @return the field.
+	 */
+	private static String csvField(String value) {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+				&& value.indexOf('\n') < 0) {
+			return value;
+		}
+		return "\"" + value.replace("\"", "\"\"") + "\"";
+	}
+
+	/**
+	 * Converts nanoseconds to seconds.
+	 * 
+	 * @param nanos
+	 *            the time, in nanoseconds.
+	 * @return the time in seconds.
+	 */
+	private static double seconds(long nanos) {
+		return nanos / 1e9;
+	}
+}
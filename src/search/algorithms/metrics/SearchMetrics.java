@@ -0,0 +1,166 @@
+package search.algorithms.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import search.algorithms.SearchResult;
+import search.algorithms.SearchStatus;
+
+/**
+ * The metrics for one kind of search: a histogram of how long the searches
+ * took, counts of their outcomes, and the steps they took. These may be
+ * updated by any number of searches finishing at once.
+ * 
+ * @author lackofcheese
+ */
+public final class SearchMetrics {
+	/** The search algorithm. */
+	private final String algorithm;
+	/** The problem domain searched. */
+	private final String domain;
+	/** The time taken by each search. */
+	private final LatencyHistogram latency = new LatencyHistogram();
+	/** The number of searches that found a goal. */
+	private final LongAdder solved = new LongAdder();
+	/** The number of searches that found there was no goal, or failed. */
+	private final LongAdder failed = new LongAdder();
+	/** The number of searches that ran out of budget. */
+	private final LongAdder budgetExhausted = new LongAdder();
+	/** The number of searches that were cancelled. */
+	private final LongAdder cancelled = new LongAdder();
+	/** The number of search steps taken by all of the searches. */
+	private final LongAdder expanded = new LongAdder();
+
+	/**
+	 * Constructs an empty set of metrics.
+	 * 
+	 * @param algorithm
+	 *            the search algorithm.
+	 * @param domain
+	 *            the problem domain searched.
+	 */
+	SearchMetrics(String algorithm, String domain) {
+		this.algorithm = algorithm;
+		this.domain = domain;
+	}
+
+	/**
+	 * Returns the search algorithm.
+	 * 
+	 * @return the name of the algorithm.
+	 */
+	public String getAlgorithm() {
+		return algorithm;
+	}
+
+	/**
+	 * Returns the problem domain searched.
+	 * 
+	 * @return the name of the domain.
+	 */
+	public String getDomain() {
+		return domain;
+	}
+
+	/**
+	 * Records a finished search.
+	 * 
+	 * @param status
+	 *            the outcome of the search.
+	 * @param elapsedNanos
+	 *            the time taken, in nanoseconds.
+	 * @param expansions
+	 *            the number of search steps taken.
+	 */
+	public void record(SearchStatus status, long elapsedNanos,
+			long expansions) {
+		latency.record(elapsedNanos);
+		expanded.add(expansions);
+		switch (status) {
+		case GOAL_FOUND:
+			solved.increment();
+			break;
+		case BUDGET_EXHAUSTED:
+			budgetExhausted.increment();
+			break;
+		case CANCELLED:
+			cancelled.increment();
+			break;
+		default:
+			failed.increment();
+			break;
+		}
+	}
+
+	/**
+	 * Records the result of a finished search.
+	 * 
+	 * @param result
+	 *            the result of the search.
+	 */
+	public void record(SearchResult<?> result) {
+		record(result.getStatus(), result.getElapsedNanos(),
+				result.getExpansions());
+	}
+
+	/**
+	 * Records a search that failed by throwing an exception.
+	 */
+	public void recordFailure() {
+		failed.increment();
+	}
+
+	/**
+	 * Returns the histogram of the time taken by each search.
+	 * 
+	 * @return the latency histogram.
+	 */
+	public LatencyHistogram getLatency() {
+		return latency;
+	}
+
+	/**
+	 * Returns the number of searches that found a goal.
+	 * 
+	 * @return the number of searches solved.
+	 */
+	public long getSolved() {
+		return solved.sum();
+	}
+
+	/**
+	 * Returns the number of searches that found there was no goal, or threw
+	 * an exception.
+	 * 
+	 * @return the number of searches failed.
+	 */
+	public long getFailed() {
+		return failed.sum();
+	}
+
+	/**
+	 * Returns the number of searches that ran out of budget.
+	 * 
+	 * @return the number of searches that exhausted their budget.
+	 */
+	public long getBudgetExhausted() {
+		return budgetExhausted.sum();
+	}
+
+	/**
+	 * Returns the number of searches that were cancelled.
+	 * 
+	 * @return the number of searches cancelled.
+	 */
+	public long getCancelled() {
+		return cancelled.sum();
+	}
+
+	/**
+	 * Returns the number of search steps taken by all of the searches.
+	 * 
+	 * @return the number of steps taken.
+	 */
+	public long getExpanded() {
+		return expanded.sum();
+	}
+}
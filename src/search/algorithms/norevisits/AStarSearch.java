@@ -57,8 +57,8 @@ public class AStarSearch<S extends State> extends SearchWithoutRevisits<S> {
 	protected void initSearch() {
 		super.initSearch();
 		queue = new PriorityQueue<QueueEntry>();
-		this.enqueue(new QueueEntry(getRoot(), null, 0, 0.0, getHeuristic()
-				.estimate(getRoot()), null));
+		this.enqueue(new QueueEntry(getRoot(), null, 0, 0.0,
+				heuristicEstimate(getRoot()), null));
 	}
 
 	@Override
@@ -66,6 +66,16 @@ public class AStarSearch<S extends State> extends SearchWithoutRevisits<S> {
 		return queue.isEmpty();
 	}
 
+	@Override
+	protected int queueSize() {
+		return queue.size();
+	}
+
+	@Override
+	protected Iterable<QueueEntry> queueContents() {
+		return queue;
+	}
+
 	@Override
 	protected void enqueue(QueueEntry qe) {
 		queue.add(qe);
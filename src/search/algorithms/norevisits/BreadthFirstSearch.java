@@ -56,4 +56,14 @@ public class BreadthFirstSearch<S extends State> extends
 	protected boolean queueEmpty() {
 		return queue.isEmpty();
 	}
+
+	@Override
+	protected int queueSize() {
+		return queue.size();
+	}
+
+	@Override
+	protected Iterable<QueueEntry> queueContents() {
+		return queue;
+	}
 }
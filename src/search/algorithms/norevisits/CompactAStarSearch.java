@@ -0,0 +1,286 @@
+package search.algorithms.norevisits;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import search.algorithms.AbstractSearchAlgorithm;
+import search.goals.GoalTest;
+import search.heuristics.Heuristic;
+import search.sfs.SuccessorFunction;
+import search.states.State;
+import search.util.NodeArena;
+import search.util.ObjectIntMap;
+
+/**
+ * An implementation of an A* search that does not revisit states, storing its
+ * search tree in a NodeArena rather than as QueueEntry objects and a
+ * predecessor map.
+ * 
+ * Each distinct state is stored once, and given an int reference; the nodes
+ * in the arena refer to their states and parents by index, and the open list
+ * is a binary heap of node indices. This takes far less memory per generated
+ * node than AStarSearch, which allows larger searches to fit in the heap.
+ * 
+ * Costs are held as floats in the arena, so the order of expansion is only as
+ * precise as a float; the cost of the path found is recomputed exactly from
+ * the successor function.
+ * 
+ * @author lackofcheese
+ * @param <S>
+ *            the type of state used.
+ */
+public class CompactAStarSearch<S extends State> extends
+		AbstractSearchAlgorithm<S> {
+	/** The search tree nodes. */
+	private NodeArena arena;
+	/** The reference of each state that has been generated. */
+	private ObjectIntMap<S> stateRefs;
+	/** The states, indexed by reference. */
+	private List<S> states;
+	/** The node with the lowest cost for each state, indexed by reference. */
+	private int[] bestNode;
+	/** The references of the states that have been expanded. */
+	private BitSet closed;
+	/** The open list; a binary heap of node indices. */
+	private int[] heap;
+	/** The number of nodes on the open list. */
+	private int heapSize;
+	/** The goal node, or -1 if no goal has been found. */
+	private int goalNode = -1;
+
+	/**
+	 * Constructs a compact A* search with the given parameters.
+	 * 
+	 * @param root
+	 *            the initial state.
+	 * @param goalTest
+	 *            a test for goal states.
+	 * @param sf
+	 *            the successor function.
+	 * @param heuristic
+	 *            the heuristic function.
+	 */
+	public CompactAStarSearch(S root, GoalTest<S> goalTest,
+			SuccessorFunction<S> sf, Heuristic<S> heuristic) {
+		super(root, goalTest, sf, heuristic);
+	}
+
+	/**
+	 * Constructs a compact uniform cost search with the given parameters.
+	 * 
+	 * @param root
+	 *            the initial state.
+	 * @param goalTest
+	 *            a test for goal states.
+	 * @param sf
+	 *            the successor function.
+	 */
+	public CompactAStarSearch(S root, GoalTest<S> goalTest,
+			SuccessorFunction<S> sf) {
+		super(root, goalTest, sf);
+	}
+
+	/**
+	 * Returns the number of nodes generated by the last search.
+	 * 
+	 * @return the number of nodes in the arena.
+	 */
+	public int getNodeCount() {
+		return arena.size();
+	}
+
+	@Override
+	public void search() {
+		beginSearch();
+		arena = new NodeArena();
+		stateRefs = new ObjectIntMap<S>();
+		states = new ArrayList<S>();
+		bestNode = new int[1024];
+		closed = new BitSet();
+		heap = new int[1024];
+		heapSize = 0;
+		goalNode = -1;
+
+		S root = getRoot();
+		int rootRef = stateRef(root);
+		int rootNode = arena.add(NodeArena.NO_PARENT, 0,
+				heuristicEstimate(root), 0, rootRef);
+		bestNode[rootRef] = rootNode;
+		push(rootNode);
+
+		while (heapSize > 0) {
+			if (!withinBudget(1, heapSize, states.size())) {
+				return;
+			}
+			int node = pop();
+			int ref = arena.getStateRef(node);
+			if (closed.get(ref)) {
+				countDuplicate();
+				continue;
+			}
+			closed.set(ref);
+			S s = states.get(ref);
+			notifyExpanded(s, arena.getDepth(node));
+			if (getGoalTest().isGoal(s)) {
+				goalNode = node;
+				endSearch(true);
+				return;
+			}
+
+			float g = arena.getG(node);
+			int depth = arena.getDepth(node) + 1;
+			Map<S, Double> succMap = successorsOf(s);
+			for (Map.Entry<S, Double> entry : succMap.entrySet()) {
+				S s2 = entry.getKey();
+				int ref2 = stateRef(s2);
+				if (closed.get(ref2)) {
+					countDuplicate();
+					continue;
+				}
+				double g2 = g + entry.getValue();
+				int old = bestNode[ref2];
+				if (old >= 0 && arena.getG(old) <= (float) g2) {
+					countDuplicate();
+					continue;
+				}
+				int child = arena.add(node, g2, heuristicEstimate(s2),
+						depth, ref2);
+				bestNode[ref2] = child;
+				push(child);
+			}
+		}
+		endSearch(false);
+	}
+
+	/**
+	 * Returns the reference for a state, adding it to the state table if it
+	 * has not been seen before.
+	 * 
+	 * @param s
+	 *            the state.
+	 * @return the reference for the state.
+	 */
+	private int stateRef(S s) {
+		int ref = stateRefs.get(s, -1);
+		if (ref < 0) {
+			ref = states.size();
+			states.add(s);
+			stateRefs.put(s, ref);
+			if (ref == bestNode.length) {
+				int oldLength = bestNode.length;
+				bestNode = Arrays.copyOf(bestNode, oldLength * 2);
+				Arrays.fill(bestNode, oldLength, bestNode.length, -1);
+			}
+			bestNode[ref] = -1;
+		}
+		return ref;
+	}
+
+	/**
+	 * Returns true if the first node should be expanded before the second;
+	 * nodes are ordered by f-value, and then by the higher cost so far.
+	 * 
+	 * @param a
+	 *            the first node.
+	 * @param b
+	 *            the second node.
+	 * @return true if the first node comes first.
+	 */
+	private boolean before(int a, int b) {
+		float fa = arena.getF(a);
+		float fb = arena.getF(b);
+		if (fa != fb) {
+			return fa < fb;
+		}
+		return arena.getG(a) > arena.getG(b);
+	}
+
+	/**
+	 * Adds a node to the open list.
+	 * 
+	 * @param node
+	 *            the node.
+	 */
+	private void push(int node) {
+		if (heapSize == heap.length) {
+			heap = Arrays.copyOf(heap, heap.length * 2);
+		}
+		int i = heapSize++;
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (!before(node, heap[parent])) {
+				break;
+			}
+			heap[i] = heap[parent];
+			i = parent;
+		}
+		heap[i] = node;
+	}
+
+	/**
+	 * Removes the first node from the open list and returns it.
+	 * 
+	 * @return the first node.
+	 */
+	private int pop() {
+		int first = heap[0];
+		int last = heap[--heapSize];
+		int i = 0;
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= heapSize) {
+				break;
+			}
+			if (child + 1 < heapSize && before(heap[child + 1], heap[child])) {
+				child++;
+			}
+			if (!before(heap[child], last)) {
+				break;
+			}
+			heap[i] = heap[child];
+			i = child;
+		}
+		heap[i] = last;
+		return first;
+	}
+
+	@Override
+	public boolean goalFound() {
+		return goalNode >= 0;
+	}
+
+	@Override
+	public S getGoalState() {
+		return states.get(arena.getStateRef(goalNode));
+	}
+
+	@Override
+	public int getGoalDepth() {
+		return getGoalPath().size() - 1;
+	}
+
+	@Override
+	public double getGoalCost() {
+		List<S> path = getGoalPath();
+		double cost = 0;
+		for (int i = 1; i < path.size(); i++) {
+			cost += getSF().getSuccessors(path.get(i - 1)).get(path.get(i));
+		}
+		return cost;
+	}
+
+	@Override
+	public List<S> getGoalPath() {
+		List<S> path = new ArrayList<S>();
+		for (int node = goalNode; node != NodeArena.NO_PARENT; node = arena
+				.getParent(node)) {
+			path.add(states.get(arena.getStateRef(node)));
+		}
+		Collections.reverse(path);
+		return path;
+	}
+}
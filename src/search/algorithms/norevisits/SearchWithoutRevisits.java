@@ -1,5 +1,6 @@
 package search.algorithms.norevisits;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -7,6 +8,7 @@ import java.util.List;
 import java.util.Map;
 
 import search.algorithms.QueueSearch;
+import search.algorithms.checkpoint.SearchCheckpoint;
 import search.goals.GoalTest;
 import search.heuristics.Heuristic;
 import search.sfs.SuccessorFunction;
@@ -69,10 +71,50 @@ public abstract class SearchWithoutRevisits<S extends State> extends
 		predMap = new HashMap<S, S>();
 	}
 
+	@Override
+	protected int closedSize() {
+		return predMap.size();
+	}
+
+	/**
+	 * {@inheritDoc} The states and their predecessors are copied into a
+	 * single array of references, and the entries are built from that.
+	 */
+	@Override
+	protected List<SearchCheckpoint.Entry<S>> snapshotClosed() {
+		final Object[] pairs = new Object[predMap.size() * 2];
+		int i = 0;
+		for (Map.Entry<S, S> entry : predMap.entrySet()) {
+			pairs[i++] = entry.getKey();
+			pairs[i++] = entry.getValue();
+		}
+		return new AbstractList<SearchCheckpoint.Entry<S>>() {
+			@Override
+			@SuppressWarnings("unchecked")
+			public SearchCheckpoint.Entry<S> get(int index) {
+				return new SearchCheckpoint.Entry<S>((S) pairs[index * 2],
+						(S) pairs[index * 2 + 1]);
+			}
+
+			@Override
+			public int size() {
+				return pairs.length / 2;
+			}
+		};
+	}
+
+	@Override
+	protected void restoreClosed(List<SearchCheckpoint.Entry<S>> closed) {
+		for (SearchCheckpoint.Entry<S> entry : closed) {
+			predMap.put(entry.getState(), entry.getPred());
+		}
+	}
+
 	@Override
 	public boolean processCurrentEntry() {
 		S currentState = currentEntry.getState();
 		if (predMap.containsKey(currentState)) {
+			this.countDuplicate();
 			return false;
 		}
 		int currentDepth = currentEntry.getDepth();
@@ -82,13 +124,15 @@ public abstract class SearchWithoutRevisits<S extends State> extends
 			return true;
 		}
 
-		Map<S, Double> succMap = getSF().getSuccessors(currentState);
+		Map<S, Double> succMap = successorsOf(currentState);
 		for (Map.Entry<S, Double> entry : succMap.entrySet()) {
 			S s2 = entry.getKey();
-			if (!predMap.containsKey(s2)) {
+			if (predMap.containsKey(s2)) {
+				this.countDuplicate();
+			} else {
 				this.enqueue(new QueueEntry(s2, currentState, currentDepth + 1,
-						currentCost + entry.getValue(), getHeuristic()
-								.estimate(s2), null));
+						currentCost + entry.getValue(), heuristicEstimate(s2),
+						null));
 			}
 		}
 		return false;
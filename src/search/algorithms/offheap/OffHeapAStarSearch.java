@@ -0,0 +1,213 @@
+package search.algorithms.offheap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import search.algorithms.AbstractSearchAlgorithm;
+import search.algorithms.SearchStatus;
+import search.goals.GoalTest;
+import search.heuristics.Heuristic;
+import search.sfs.SuccessorFunction;
+import search.states.State;
+import search.states.StateCodec;
+
+/**
+ * An implementation of an A* search that does not revisit states, and which
+ * keeps its open list and closed set off the Java heap, as state codes in
+ * direct memory. The garbage collector never sees the nodes of the search, so
+ * very large searches run without long collection pauses. Each state is held
+ * as a single 64-bit code, so this only works for states with a StateCodec.
+ * 
+ * The open list takes 40 bytes per node and the closed set about 32 bytes per
+ * state; both are allocated in full when the search starts, and their sizes
+ * are limited by -XX:MaxDirectMemorySize rather than by -Xmx. If either of
+ * them fills up, the search stops with the status BUDGET_EXHAUSTED.
+ * 
+ * @author lackofcheese
+ * @param <S>
+ *            the type of state used.
+ */
+public class OffHeapAStarSearch<S extends State> extends
+		AbstractSearchAlgorithm<S> {
+	/** Converts states to and from codes. */
+	private final StateCodec<S> codec;
+	/** The largest number of nodes on the open list. */
+	private final long openCapacity;
+	/** The largest number of states in the closed set. */
+	private final long closedCapacity;
+
+	/** The path to the goal, or null if no goal was found. */
+	private List<S> goalPath;
+	/** The cost of the path to the goal. */
+	private double goalCost;
+
+	/**
+	 * Constructs an off-heap A* search with the given parameters.
+	 * 
+	 * @param root
+	 *            the initial state.
+	 * @param goalTest
+	 *            a test for goal states.
+	 * @param sf
+	 *            the successor function.
+	 * @param heuristic
+	 *            the heuristic function.
+	 * @param codec
+	 *            converts states to and from codes.
+	 * @param openCapacity
+	 *            the largest number of nodes on the open list.
+	 * @param closedCapacity
+	 *            the largest number of states in the closed set.
+	 */
+	public OffHeapAStarSearch(S root, GoalTest<S> goalTest,
+			SuccessorFunction<S> sf, Heuristic<S> heuristic,
+			StateCodec<S> codec, long openCapacity, long closedCapacity) {
+		super(root, goalTest, sf, heuristic);
+		this.codec = codec;
+		this.openCapacity = openCapacity;
+		this.closedCapacity = closedCapacity;
+	}
+
+	/**
+	 * Constructs an off-heap uniform cost search with the given parameters.
+	 * 
+	 * @param root
+	 *            the initial state.
+	 * @param goalTest
+	 *            a test for goal states.
+	 * @param sf
+	 *            the successor function.
+	 * @param codec
+	 *            converts states to and from codes.
+	 * @param openCapacity
+	 *            the largest number of nodes on the open list.
+	 * @param closedCapacity
+	 *            the largest number of states in the closed set.
+	 */
+	public OffHeapAStarSearch(S root, GoalTest<S> goalTest,
+			SuccessorFunction<S> sf, StateCodec<S> codec, long openCapacity,
+			long closedCapacity) {
+		super(root, goalTest, sf);
+		this.codec = codec;
+		this.openCapacity = openCapacity;
+		this.closedCapacity = closedCapacity;
+	}
+
+	@Override
+	public void search() {
+		beginSearch();
+		goalPath = null;
+		OffHeapOpenList open = new OffHeapOpenList(openCapacity);
+		OffHeapClosedTable closed = new OffHeapClosedTable(closedCapacity);
+		try {
+			runSearch(open, closed);
+		} finally {
+			open.release();
+			closed.release();
+		}
+	}
+
+	/**
+	 * Runs the search using the given structures.
+	 * 
+	 * @param open
+	 *            the open list.
+	 * @param closed
+	 *            the closed set.
+	 */
+	private void runSearch(OffHeapOpenList open, OffHeapClosedTable closed) {
+		S root = getRoot();
+		open.push(codec.encode(root), 0, 0, 0, heuristicEstimate(root));
+		while (!open.isEmpty()) {
+			if (!withinBudget(1, open.size(), closed.size())) {
+				return;
+			}
+			open.poll();
+			long code = open.getPolledCode();
+			int depth = open.getPolledDepth();
+			if (closed.contains(code)) {
+				countDuplicate();
+				continue;
+			}
+			if (closed.isFull()) {
+				setStatus(SearchStatus.BUDGET_EXHAUSTED);
+				return;
+			}
+			closed.add(code, open.getPolledPred(), depth > 0);
+			double cost = open.getPolledCost();
+			S s = codec.decode(code);
+			notifyExpanded(s, depth);
+			if (getGoalTest().isGoal(s)) {
+				goalPath = buildPath(closed, code);
+				goalCost = cost;
+				endSearch(true);
+				return;
+			}
+
+			Map<S, Double> succMap = successorsOf(s);
+			for (Map.Entry<S, Double> entry : succMap.entrySet()) {
+				S s2 = entry.getKey();
+				long code2 = codec.encode(s2);
+				if (closed.contains(code2)) {
+					countDuplicate();
+					continue;
+				}
+				if (open.isFull()) {
+					setStatus(SearchStatus.BUDGET_EXHAUSTED);
+					return;
+				}
+				open.push(code2, code, depth + 1, cost + entry.getValue(),
+						heuristicEstimate(s2));
+			}
+		}
+		endSearch(false);
+	}
+
+	/**
+	 * Follows the predecessors in the closed set back from the given state
+	 * to the root.
+	 * 
+	 * @param closed
+	 *            the closed set.
+	 * @param code
+	 *            the code of the last state.
+	 * @return the path from the root to the state.
+	 */
+	private List<S> buildPath(OffHeapClosedTable closed, long code) {
+		List<S> path = new ArrayList<S>();
+		path.add(codec.decode(code));
+		while (closed.hasPred(code)) {
+			code = closed.getPred(code);
+			path.add(codec.decode(code));
+		}
+		Collections.reverse(path);
+		return path;
+	}
+
+	@Override
+	public boolean goalFound() {
+		return goalPath != null;
+	}
+
+	@Override
+	public S getGoalState() {
+		return goalPath.get(goalPath.size() - 1);
+	}
+
+	@Override
+	public int getGoalDepth() {
+		return goalPath.size() - 1;
+	}
+
+	@Override
+	public double getGoalCost() {
+		return goalCost;
+	}
+
+	@Override
+	public List<S> getGoalPath() {
+		return new ArrayList<S>(goalPath);
+	}
+}
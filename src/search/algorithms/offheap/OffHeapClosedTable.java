@@ -0,0 +1,167 @@
+package search.algorithms.offheap;
+
+import search.util.OffHeapRecords;
+
+/**
+ * A hash table of expanded states held off the Java heap, mapping the code of
+ * each state to the code of its predecessor. It uses open addressing with
+ * linear probing, and is sized when it is created so that it is never more
+ * than three quarters full.
+ * 
+ * @author lackofcheese
+ */
+class OffHeapClosedTable {
+	/** The offset of the state code. */
+	private static final int CODE = 0;
+	/** The offset of the predecessor's code. */
+	private static final int PRED = 8;
+	/** The offset of the flags; nonzero if the slot is in use. */
+	private static final int FLAGS = 16;
+	/** The flag for a slot that is in use. */
+	private static final long USED = 1;
+	/** The flag for a state with a predecessor. */
+	private static final long HAS_PRED = 2;
+	/** The size of a slot, in bytes. */
+	static final int RECORD_BYTES = 24;
+
+	/** The slots. */
+	private final OffHeapRecords slots;
+	/** The number of slots minus one; the number of slots is a power of 2. */
+	private final long mask;
+	/** The largest number of states. */
+	private final long capacity;
+	/** The number of states held. */
+	private long size;
+
+	/**
+	 * Allocates a table with room for the given number of states.
+	 * 
+	 * @param capacity
+	 *            the largest number of states.
+	 */
+	public OffHeapClosedTable(long capacity) {
+		long slotCount = Long.highestOneBit(Math.max(capacity * 4 / 3, 1));
+		if (slotCount < capacity * 4 / 3) {
+			slotCount *= 2;
+		}
+		this.capacity = capacity;
+		this.mask = slotCount - 1;
+		this.slots = new OffHeapRecords(RECORD_BYTES, slotCount);
+	}
+
+	/**
+	 * Returns the number of states held.
+	 * 
+	 * @return the size of the table.
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * Returns true if there is no room for another state.
+	 * 
+	 * @return true if the table is full.
+	 */
+	public boolean isFull() {
+		return size == capacity;
+	}
+
+	/**
+	 * Returns the slot holding the given code, or the empty slot where it
+	 * would be put.
+	 * 
+	 * @param code
+	 *            the state code.
+	 * @return the slot.
+	 */
+	private long find(long code) {
+		long slot = mix(code) & mask;
+		while (slots.getLong(slot, FLAGS) != 0
+				&& slots.getLong(slot, CODE) != code) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Returns true if the table holds the given state.
+	 * 
+	 * @param code
+	 *            the state code.
+	 * @return true if the state has been added.
+	 */
+	public boolean contains(long code) {
+		return slots.getLong(find(code), FLAGS) != 0;
+	}
+
+	/**
+	 * Adds a state, unless it is already held; if it is not held, there must
+	 * be room for it.
+	 * 
+	 * @param code
+	 *            the state code.
+	 * @param pred
+	 *            the predecessor's code; ignored if hasPred is false.
+	 * @param hasPred
+	 *            false if the state is the root.
+	 * @return true if the state was added, or false if it was already held.
+	 */
+	public boolean add(long code, long pred, boolean hasPred) {
+		long slot = find(code);
+		if (slots.getLong(slot, FLAGS) != 0) {
+			return false;
+		}
+		slots.putLong(slot, CODE, code);
+		slots.putLong(slot, PRED, pred);
+		slots.putLong(slot, FLAGS, hasPred ? USED | HAS_PRED : USED);
+		size++;
+		return true;
+	}
+
+	/**
+	 * Returns true if the given state has a predecessor.
+	 * 
+	 * @param code
+	 *            the code of a state in the table.
+	 * @return false if the state is the root.
+	 */
+	public boolean hasPred(long code) {
+		return (slots.getLong(find(code), FLAGS) & HAS_PRED) != 0;
+	}
+
+	/**
+	 * Returns the predecessor of the given state.
+	 * 
+	 * @param code
+	 *            the code of a state in the table with a predecessor.
+	 * @return the predecessor's code.
+	 */
+	public long getPred(long code) {
+		return slots.getLong(find(code), PRED);
+	}
+
+	/**
+	 * Spreads the bits of a code, so that codes which differ only in their
+	 * high bits still fall into different slots.
+	 * 
+	 * @param code
+	 *            the state code.
+	 * @return the hash of the code.
+	 */
+	private static long mix(long code) {
+		code ^= code >>> 33;
+		code *= 0xff51afd7ed558ccdL;
+		code ^= code >>> 33;
+		code *= 0xc4ceb9fe1a85ec53L;
+		code ^= code >>> 33;
+		return code;
+	}
+
+	/**
+	 * Frees the memory held by the table.
+	 */
+	public void release() {
+		slots.release();
+	}
+}
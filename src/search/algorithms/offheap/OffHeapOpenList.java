@@ -0,0 +1,196 @@
+package search.algorithms.offheap;
+
+import search.util.OffHeapRecords;
+
+/**
+ * A binary heap of search nodes held off the Java heap. Each node holds the
+ * code of its state and of its predecessor, its depth, its cost so far and
+ * its heuristic estimate; nodes are ordered by cost plus estimate, and then
+ * by the higher cost so far.
+ * 
+ * @author lackofcheese
+ */
+class OffHeapOpenList {
+	/** The offset of the state code. */
+	private static final int CODE = 0;
+	/** The offset of the predecessor's code. */
+	private static final int PRED = 8;
+	/** The offset of the cost so far. */
+	private static final int G = 16;
+	/** The offset of the cost plus estimate. */
+	private static final int F = 24;
+	/** The offset of the depth. */
+	private static final int DEPTH = 32;
+	/** The size of a node, in bytes. */
+	static final int RECORD_BYTES = 40;
+
+	/**
+	 * The nodes, in heap order, followed by a scratch record which holds the
+	 * node being added or the node last removed.
+	 */
+	private final OffHeapRecords records;
+	/** The number of nodes that can be held. */
+	private final long capacity;
+	/** The number of nodes held. */
+	private long size;
+
+	/**
+	 * Allocates an open list with room for the given number of nodes.
+	 * 
+	 * @param capacity
+	 *            the largest number of nodes.
+	 */
+	public OffHeapOpenList(long capacity) {
+		this.capacity = capacity;
+		this.records = new OffHeapRecords(RECORD_BYTES, capacity + 1);
+	}
+
+	/**
+	 * Returns the number of nodes held.
+	 * 
+	 * @return the size of the open list.
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * Returns true if the open list is empty.
+	 * 
+	 * @return true if there are no nodes.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns true if there is no room for another node.
+	 * 
+	 * @return true if the open list is full.
+	 */
+	public boolean isFull() {
+		return size == capacity;
+	}
+
+	/**
+	 * Adds a node; there must be room for it.
+	 * 
+	 * @param code
+	 *            the code of the state.
+	 * @param pred
+	 *            the code of the predecessor; ignored for the root.
+	 * @param depth
+	 *            the depth of the node; zero for the root.
+	 * @param g
+	 *            the cost so far.
+	 * @param h
+	 *            the heuristic estimate.
+	 */
+	public void push(long code, long pred, int depth, double g, double h) {
+		long scratch = capacity;
+		records.putLong(scratch, CODE, code);
+		records.putLong(scratch, PRED, pred);
+		records.putDouble(scratch, G, g);
+		records.putDouble(scratch, F, g + h);
+		records.putInt(scratch, DEPTH, depth);
+		long i = size++;
+		while (i > 0) {
+			long parent = (i - 1) >>> 1;
+			if (!before(scratch, parent)) {
+				break;
+			}
+			records.copy(parent, i);
+			i = parent;
+		}
+		records.copy(scratch, i);
+	}
+
+	/**
+	 * Removes the first node; its fields can then be read with the
+	 * getPolled... methods until the next call to push() or poll().
+	 */
+	public void poll() {
+		long scratch = capacity;
+		records.copy(0, scratch);
+		long last = --size;
+		long i = 0;
+		while (true) {
+			long child = 2 * i + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && before(child + 1, child)) {
+				child++;
+			}
+			if (!before(child, last)) {
+				break;
+			}
+			records.copy(child, i);
+			i = child;
+		}
+		if (i != last) {
+			records.copy(last, i);
+		}
+	}
+
+	/**
+	 * Returns true if one node should come before another.
+	 * 
+	 * @param a
+	 *            the index of the first node.
+	 * @param b
+	 *            the index of the second node.
+	 * @return true if the first node comes first.
+	 */
+	private boolean before(long a, long b) {
+		double fa = records.getDouble(a, F);
+		double fb = records.getDouble(b, F);
+		if (fa != fb) {
+			return fa < fb;
+		}
+		return records.getDouble(a, G) > records.getDouble(b, G);
+	}
+
+	/**
+	 * Returns the state code of the node last removed.
+	 * 
+	 * @return the state code.
+	 */
+	public long getPolledCode() {
+		return records.getLong(capacity, CODE);
+	}
+
+	/**
+	 * Returns the predecessor code of the node last removed.
+	 * 
+	 * @return the predecessor's code.
+	 */
+	public long getPolledPred() {
+		return records.getLong(capacity, PRED);
+	}
+
+	/**
+	 * Returns the cost so far of the node last removed.
+	 * 
+	 * @return the cost so far.
+	 */
+	public double getPolledCost() {
+		return records.getDouble(capacity, G);
+	}
+
+	/**
+	 * Returns the depth of the node last removed.
+	 * 
+	 * @return the depth.
+	 */
+	public int getPolledDepth() {
+		return records.getInt(capacity, DEPTH);
+	}
+
+	/**
+	 * Frees the memory held by the open list.
+	 */
+	public void release() {
+		records.release();
+	}
+}
@@ -0,0 +1,308 @@
+package search.algorithms.portfolio;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import search.algorithms.AbstractSearchAlgorithm;
+import search.algorithms.CancelHandle;
+import search.algorithms.SearchStatus;
+import search.goals.GoalTest;
+import search.sfs.SuccessorFunction;
+import search.states.State;
+
+/**
+ * Runs a portfolio of searches on the same problem at once, each on its own
+ * thread, and takes the first acceptable result; the other searches are then
+ * cancelled. Since the best algorithm differs from one instance to the next,
+ * this gives a time close to that of whichever member suits the instance.
+ * 
+ * Each member is declared as optimal or not when it is added; an optimal
+ * member must only find least-cost goals, and must only conclude that there
+ * is no solution when none exists. If optimality is required, only a goal
+ * found by an optimal member is accepted; otherwise any goal is. Either way,
+ * an optimal member concluding that there is no solution ends the search.
+ * 
+ * The members must be distinct searches of the same problem as the
+ * portfolio, with the same root and goal test. Each is given the limits of
+ * the portfolio, and is cancelled along with it.
+ * 
+ * @author lackofcheese
+ * @param <S>
+ *            the type of state used.
+ */
+public class PortfolioSearch<S extends State> extends
+		AbstractSearchAlgorithm<S> {
+	/** How often to check for a cancellation, in milliseconds. */
+	private static final long POLL_INTERVAL_MILLIS = 10;
+
+	/**
+	 * A search in the portfolio.
+	 * 
+	 * @param <S>
+	 *            the type of state used.
+	 */
+	private static class Member<S extends State> {
+		/** The name reported if this member wins. */
+		private final String name;
+		/** The search itself. */
+		private final AbstractSearchAlgorithm<S> algorithm;
+		/** True if the search only finds least-cost goals. */
+		private final boolean optimal;
+		/** The exception or error thrown by the search, if any. */
+		private volatile Throwable failure;
+
+		/**
+		 * Constructs a member.
+		 * 
+		 * @param name
+		 *            the name of the member.
+		 * @param algorithm
+		 *            the search.
+		 * @param optimal
+		 *            true if the search only finds least-cost goals.
+		 */
+		public Member(String name, AbstractSearchAlgorithm<S> algorithm,
+				boolean optimal) {
+			this.name = name;
+			this.algorithm = algorithm;
+			this.optimal = optimal;
+		}
+	}
+
+	/** The searches in the portfolio. */
+	private final List<Member<S>> members = new ArrayList<Member<S>>();
+	/** True if only a goal found by an optimal member is accepted. */
+	private boolean requireOptimal = true;
+	/** The member whose result was accepted, or null if there is none. */
+	private Member<S> winner;
+
+	/**
+	 * Constructs an empty portfolio for the given problem; members are added
+	 * with addMember().
+	 * 
+	 * @param root
+	 *            the initial state.
+	 * @param goalTest
+	 *            a test for the goal state.
+	 * @param sf
+	 *            the successor function.
+	 */
+	public PortfolioSearch(S root, GoalTest<S> goalTest,
+			SuccessorFunction<S> sf) {
+		super(root, goalTest, sf);
+	}
+
+	/**
+	 * Adds a search to the portfolio.
+	 * 
+	 * @param name
+	 *            the name reported if this search wins.
+	 * @param algorithm
+	 *            the search, which must be of the same problem.
+	 * @param optimal
+	 *            true if the search only finds least-cost goals, and only
+	 *            concludes that there is no solution when none exists.
+	 */
+	public void addMember(String name, AbstractSearchAlgorithm<S> algorithm,
+			boolean optimal) {
+		members.add(new Member<S>(name, algorithm, optimal));
+	}
+
+	/**
+	 * Sets whether only goals found by optimal members are accepted; this is
+	 * true by default.
+	 * 
+	 * @param requireOptimal
+	 *            true to accept only goals found by optimal members.
+	 */
+	public void setRequireOptimal(boolean requireOptimal) {
+		this.requireOptimal = requireOptimal;
+	}
+
+	/**
+	 * Returns whether only goals found by optimal members are accepted.
+	 * 
+	 * @return true if only goals found by optimal members are accepted.
+	 */
+	public boolean isRequireOptimal() {
+		return requireOptimal;
+	}
+
+	/**
+	 * {@inheritDoc} The members are started together, and the first
+	 * acceptable result is taken; the others are then cancelled, and this
+	 * returns once every member has stopped. If no member gives an
+	 * acceptable result, no goal is reported, and the status is CANCELLED if
+	 * the portfolio was cancelled, BUDGET_EXHAUSTED if any member reached its
+	 * limits, and NO_SOLUTION otherwise.
+	 * 
+	 * @throws RuntimeException
+	 *             if no member gives an acceptable result and one of them
+	 *             threw an exception; the first such exception is rethrown.
+	 * @throws Error
+	 *             if no member gives an acceptable result and one of them
+	 *             threw an Error, such as an OutOfMemoryError; this is
+	 *             rethrown in the same way, rather than the members that
+	 *             failed being taken to have found no solution.
+	 */
+	@Override
+	public void search() {
+		this.beginSearch();
+		this.winner = null;
+		final CancelHandle membersHandle = new CancelHandle();
+		final BlockingQueue<Member<S>> finished =
+				new LinkedBlockingQueue<Member<S>>();
+		for (final Member<S> member : members) {
+			member.failure = null;
+			member.algorithm.setLimits(getLimits());
+			member.algorithm.setCancelHandle(membersHandle);
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						member.algorithm.search();
+					} catch (Throwable e) {
+						member.failure = e;
+					} finally {
+						finished.add(member);
+					}
+				}
+			}, "portfolio-" + member.name);
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		boolean interrupted = false;
+		Throwable failure = null;
+		long totalExpansions = 0;
+		for (int running = members.size(); running > 0;) {
+			Member<S> member;
+			try {
+				member = finished.poll(POLL_INTERVAL_MILLIS,
+						TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				interrupted = true;
+				membersHandle.cancel();
+				continue;
+			}
+			if (member == null) {
+				if (getCancelHandle().isCancelled()) {
+					membersHandle.cancel();
+				}
+				continue;
+			}
+			running--;
+			totalExpansions += member.algorithm.getExpansions();
+			this.addStatistics(member.algorithm.getStatistics());
+			if (member.failure != null) {
+				if (failure == null) {
+					failure = member.failure;
+				}
+			} else if (winner == null && accepts(member)) {
+				winner = member;
+				membersHandle.cancel();
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+
+		this.addSteps(totalExpansions);
+		if (winner != null) {
+			this.endSearch(winner.algorithm.goalFound());
+			return;
+		}
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		} else if (failure instanceof Error) {
+			throw (Error) failure;
+		} else if (failure != null) {
+			throw new RuntimeException(failure);
+		}
+		if (getCancelHandle().isCancelled() || interrupted) {
+			this.setStatus(SearchStatus.CANCELLED);
+			return;
+		}
+		for (Member<S> member : members) {
+			if (member.algorithm.getStatus() == SearchStatus.BUDGET_EXHAUSTED) {
+				this.setStatus(SearchStatus.BUDGET_EXHAUSTED);
+				return;
+			}
+		}
+		this.endSearch(false);
+	}
+
+	/**
+	 * Returns whether the result of a member that has stopped is acceptable.
+	 * 
+	 * @param member
+	 *            the member.
+	 * @return true if its result is acceptable.
+	 */
+	private boolean accepts(Member<S> member) {
+		AbstractSearchAlgorithm<S> algorithm = member.algorithm;
+		if (algorithm.goalFound()) {
+			return member.optimal || !requireOptimal;
+		}
+		return member.optimal
+				&& algorithm.getStatus() == SearchStatus.NO_SOLUTION;
+	}
+
+	/**
+	 * Returns the member whose result was accepted by the last search.
+	 * 
+	 * @return the winning search, or null if there was none.
+	 */
+	public AbstractSearchAlgorithm<S> getWinner() {
+		return winner == null ? null : winner.algorithm;
+	}
+
+	/**
+	 * Returns the name of the member whose result was accepted by the last
+	 * search.
+	 * 
+	 * @return the name of the winning search, or null if there was none.
+	 */
+	public String getWinnerName() {
+		return winner == null ? null : winner.name;
+	}
+
+	/**
+	 * {@inheritDoc} The winning member, if any, is also shown.
+	 */
+	@Override
+	public void verboseSearch() {
+		super.verboseSearch();
+		if (winner != null) {
+			System.out.println("Result from: " + winner.name);
+		}
+	}
+
+	@Override
+	public boolean goalFound() {
+		return winner != null && winner.algorithm.goalFound();
+	}
+
+	@Override
+	public S getGoalState() {
+		return winner.algorithm.getGoalState();
+	}
+
+	@Override
+	public int getGoalDepth() {
+		return winner.algorithm.getGoalDepth();
+	}
+
+	@Override
+	public double getGoalCost() {
+		return winner.algorithm.getGoalCost();
+	}
+
+	@Override
+	public List<S> getGoalPath() {
+		return winner.algorithm.getGoalPath();
+	}
+}
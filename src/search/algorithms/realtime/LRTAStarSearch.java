@@ -0,0 +1,421 @@
+package search.algorithms.realtime;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import search.algorithms.AbstractSearchAlgorithm;
+import search.goals.GoalTest;
+import search.heuristics.Heuristic;
+import search.sfs.SuccessorFunction;
+import search.states.State;
+import search.util.ObjectDoubleMap;
+
+/**
+ * A real-time search based on Learning Real-Time A* (LRTA*), with a bounded A*
+ * lookahead in the style of LSS-LRTA*.
+ * 
+ * Rather than planning a whole path before moving, the agent decides one move
+ * at a time. For each move it runs an A* search from its current state that
+ * expands at most a fixed number of states, updates the heuristic values of
+ * the expanded states based on the states at the edge of that lookahead, and
+ * then moves one step towards the most promising of those edge states. The
+ * work done per move is therefore bounded by the lookahead limit, regardless
+ * of the size of the problem.
+ * 
+ * The learned heuristic values are kept between calls to search(), so that
+ * repeated trials from the same root follow better and better paths; with an
+ * admissible heuristic, the trials converge to an optimal path.
+ * 
+ * @author lackofcheese
+ * @param <S>
+ *            the type of state used.
+ */
+public class LRTAStarSearch<S extends State> extends
+		AbstractSearchAlgorithm<S> {
+	/**
+	 * A node in the lookahead search tree.
+	 * 
+	 * @author lackofcheese
+	 */
+	private class Node implements Comparable<Node> {
+		/** The state. */
+		private S state;
+		/** The node this was generated from, or null for the current state. */
+		private Node parent;
+		/** The cost to reach this node from the current state. */
+		private double g;
+		/** The cost so far plus the learned heuristic estimate. */
+		private double f;
+		/** The number of moves from the current state. */
+		private int depth;
+
+		/**
+		 * Constructs a lookahead node.
+		 * 
+		 * @param state
+		 *            the state.
+		 * @param parent
+		 *            the parent node.
+		 * @param g
+		 *            the cost from the current state.
+		 * @param f
+		 *            the cost plus the heuristic estimate.
+		 */
+		public Node(S state, Node parent, double g, double f) {
+			this.state = state;
+			this.parent = parent;
+			this.g = g;
+			this.f = f;
+			this.depth = parent == null ? 0 : parent.depth + 1;
+		}
+
+		@Override
+		public int compareTo(Node other) {
+			return Double.compare(f, other.f);
+		}
+	}
+
+	/**
+	 * An entry in the queue used to back up heuristic values after the
+	 * lookahead.
+	 * 
+	 * @author lackofcheese
+	 */
+	private class Backup implements Comparable<Backup> {
+		/** The state. */
+		private S state;
+		/** The heuristic value of the state. */
+		private double h;
+
+		/**
+		 * Constructs a backup entry.
+		 * 
+		 * @param state
+		 *            the state.
+		 * @param h
+		 *            the heuristic value.
+		 */
+		public Backup(S state, double h) {
+			this.state = state;
+			this.h = h;
+		}
+
+		@Override
+		public int compareTo(Backup other) {
+			return Double.compare(h, other.h);
+		}
+	}
+
+	/** The maximum number of states expanded in each lookahead. */
+	private int lookahead;
+	/** The learned heuristic values; states not present use the heuristic. */
+	private ObjectDoubleMap<S> learned;
+
+	/** True if the goal was reached in the last trial. */
+	private boolean goalFound;
+	/** The path followed in the last trial. */
+	private List<S> goalPath;
+	/** The cost of the path followed in the last trial. */
+	private double goalCost;
+	/** The number of heuristic values raised in the last trial. */
+	private int updates;
+	/** The number of moves made in the last trial. */
+	private int steps;
+	/** The cost of the move most recently returned by nextMove(). */
+	private double lastMoveCost;
+	/** The number of states expanded by the most recent call to nextMove(). */
+	private int lastExpansions;
+	/** The longest time taken by a single move in the last trial. */
+	private long maxStepNanos;
+	/** The total time taken by moves in the last trial. */
+	private long totalStepNanos;
+
+	/**
+	 * Constructs a real-time search with the given parameters.
+	 * 
+	 * @param root
+	 *            the initial state.
+	 * @param goalTest
+	 *            a test for goal states.
+	 * @param sf
+	 *            the successor function.
+	 * @param heuristic
+	 *            the heuristic function; this should be admissible.
+	 * @param lookahead
+	 *            the maximum number of states to expand for each move; this
+	 *            must be at least 1.
+	 */
+	public LRTAStarSearch(S root, GoalTest<S> goalTest,
+			SuccessorFunction<S> sf, Heuristic<S> heuristic, int lookahead) {
+		super(root, goalTest, sf, heuristic);
+		if (lookahead < 1) {
+			throw new IllegalArgumentException("Lookahead must be at least 1");
+		}
+		this.lookahead = lookahead;
+		this.learned = new ObjectDoubleMap<S>();
+	}
+
+	/**
+	 * Returns the maximum number of states expanded for each move.
+	 * 
+	 * @return the lookahead limit.
+	 */
+	public int getLookahead() {
+		return lookahead;
+	}
+
+	/**
+	 * Returns the current heuristic value of a state, which is the learned
+	 * value if there is one, and the heuristic estimate otherwise.
+	 * 
+	 * @param s
+	 *            the state.
+	 * @return the current heuristic value of the state.
+	 */
+	public double getLearnedEstimate(S s) {
+		double h = learned.get(s, Double.NaN);
+		if (Double.isNaN(h)) {
+			return heuristicEstimate(s);
+		}
+		return h;
+	}
+
+	/**
+	 * Returns the number of states which have a learned heuristic value.
+	 * 
+	 * @return the size of the learned heuristic table.
+	 */
+	public int getLearnedCount() {
+		return learned.size();
+	}
+
+	/**
+	 * Runs one trial, in which the agent moves from the root state until it
+	 * reaches a goal. The learned heuristic values are kept, so calling this
+	 * again runs a further trial that benefits from what was learned. The
+	 * limits are checked after each move, and count the states expanded by
+	 * the lookahead searches.
+	 */
+	@Override
+	public void search() {
+		beginSearch();
+		goalFound = false;
+		goalPath = new ArrayList<S>();
+		goalCost = 0;
+		updates = 0;
+		steps = 0;
+		maxStepNanos = 0;
+		totalStepNanos = 0;
+
+		S current = getRoot();
+		goalPath.add(current);
+		while (!getGoalTest().isGoal(current)) {
+			long startTime = System.nanoTime();
+			S next = nextMove(current);
+			long stepTime = System.nanoTime() - startTime;
+			maxStepNanos = Math.max(maxStepNanos, stepTime);
+			totalStepNanos += stepTime;
+			if (next == null) {
+				endSearch(false);
+				return;
+			}
+			goalCost += lastMoveCost;
+			goalPath.add(next);
+			steps++;
+			current = next;
+			if (!withinBudget(lastExpansions, learned.size())) {
+				return;
+			}
+		}
+		goalFound = true;
+		endSearch(true);
+	}
+
+	/**
+	 * Decides on a single move from the given state, updating the learned
+	 * heuristic values along the way. The amount of work done is bounded by
+	 * the lookahead limit.
+	 * 
+	 * @param current
+	 *            the state the agent is in.
+	 * @return the state to move to, or null if no goal can be reached from
+	 *         the current state.
+	 */
+	public S nextMove(S current) {
+		PriorityQueue<Node> open = new PriorityQueue<Node>();
+		Map<S, Node> best = new HashMap<S, Node>();
+		Map<S, Map<S, Double>> expanded = new HashMap<S, Map<S, Double>>();
+		Node root = new Node(current, null, 0, getLearnedEstimate(current));
+		open.add(root);
+		best.put(current, root);
+
+		// A* search from the current state, expanding at most lookahead states.
+		Node target = null;
+		while (!open.isEmpty() && expanded.size() < lookahead) {
+			Node node = open.remove();
+			if (best.get(node.state) != node) {
+				continue;
+			}
+			if (node != root && getGoalTest().isGoal(node.state)) {
+				target = node;
+				break;
+			}
+			notifyExpanded(node.state, steps + node.depth);
+			Map<S, Double> succMap = successorsOf(node.state);
+			expanded.put(node.state, succMap);
+			for (Map.Entry<S, Double> entry : succMap.entrySet()) {
+				S s2 = entry.getKey();
+				double g = node.g + entry.getValue();
+				Node old = best.get(s2);
+				if (expanded.containsKey(s2) || (old != null && old.g <= g)) {
+					continue;
+				}
+				Node child = new Node(s2, node, g, g + getLearnedEstimate(s2));
+				best.put(s2, child);
+				open.add(child);
+			}
+		}
+
+		// The frontier of the lookahead is every generated state that was not
+		// expanded; its most promising member is where the agent heads next.
+		List<Node> frontier = new ArrayList<Node>();
+		for (Node node : best.values()) {
+			if (!expanded.containsKey(node.state)) {
+				frontier.add(node);
+				if (target == null || node.f < target.f) {
+					target = node;
+				}
+			}
+		}
+		lastExpansions = expanded.size();
+		learn(expanded, frontier);
+		if (target == null || target.f == Double.POSITIVE_INFINITY) {
+			return null;
+		}
+		Node step = target;
+		while (step.parent != root) {
+			step = step.parent;
+		}
+		lastMoveCost = step.g;
+		return step.state;
+	}
+
+	/**
+	 * Raises the heuristic values of the expanded states to the lowest cost of
+	 * reaching a frontier state plus that state's heuristic value, using a
+	 * Dijkstra-style sweep backwards from the frontier.
+	 * 
+	 * @param expanded
+	 *            the successors of each expanded state.
+	 * @param frontier
+	 *            the nodes at the edge of the lookahead.
+	 */
+	private void learn(Map<S, Map<S, Double>> expanded, List<Node> frontier) {
+		Map<S, List<S>> preds = new HashMap<S, List<S>>();
+		for (Map.Entry<S, Map<S, Double>> entry : expanded.entrySet()) {
+			for (S s2 : entry.getValue().keySet()) {
+				List<S> list = preds.get(s2);
+				if (list == null) {
+					list = new ArrayList<S>();
+					preds.put(s2, list);
+				}
+				list.add(entry.getKey());
+			}
+		}
+
+		ObjectDoubleMap<S> values = new ObjectDoubleMap<S>(expanded.size());
+		PriorityQueue<Backup> queue = new PriorityQueue<Backup>();
+		for (Node node : frontier) {
+			queue.add(new Backup(node.state, getLearnedEstimate(node.state)));
+		}
+		while (!queue.isEmpty()) {
+			Backup b = queue.remove();
+			List<S> list = preds.get(b.state);
+			if (list == null) {
+				continue;
+			}
+			for (S p : list) {
+				double h = expanded.get(p).get(b.state) + b.h;
+				if (h < values.get(p, Double.POSITIVE_INFINITY)) {
+					values.put(p, h);
+					queue.add(new Backup(p, h));
+				}
+			}
+		}
+
+		for (S s : expanded.keySet()) {
+			double h = values.get(s, Double.POSITIVE_INFINITY);
+			if (h > getLearnedEstimate(s)) {
+				learned.put(s, h);
+				updates++;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of heuristic values raised during the last trial;
+	 * once a trial raises none, further trials will follow the same path.
+	 * 
+	 * @return the number of heuristic updates in the last trial.
+	 */
+	public int getUpdateCount() {
+		return updates;
+	}
+
+	/**
+	 * Returns the number of moves made in the last trial.
+	 * 
+	 * @return the number of moves made in the last trial.
+	 */
+	public int getStepCount() {
+		return steps;
+	}
+
+	/**
+	 * Returns the longest time taken to decide on a single move during the
+	 * last trial.
+	 * 
+	 * @return the worst-case time per move, in nanoseconds.
+	 */
+	public long getMaxStepNanos() {
+		return maxStepNanos;
+	}
+
+	/**
+	 * Returns the average time taken to decide on a move during the last
+	 * trial.
+	 * 
+	 * @return the average time per move, in nanoseconds.
+	 */
+	public long getMeanStepNanos() {
+		return steps == 0 ? 0 : totalStepNanos / steps;
+	}
+
+	@Override
+	public boolean goalFound() {
+		return goalFound;
+	}
+
+	@Override
+	public S getGoalState() {
+		return goalPath.get(goalPath.size() - 1);
+	}
+
+	@Override
+	public int getGoalDepth() {
+		return steps;
+	}
+
+	@Override
+	public double getGoalCost() {
+		return goalCost;
+	}
+
+	@Override
+	public List<S> getGoalPath() {
+		return new ArrayList<S>(goalPath);
+	}
+}
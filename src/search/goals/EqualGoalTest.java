@@ -23,6 +23,15 @@ public class EqualGoalTest<S extends State> implements GoalTest<S> {
 		this.goalState = goalState;
 	}
 
+	/**
+	 * Returns the goal state.
+	 * 
+	 * @return the goal state.
+	 */
+	public S getGoalState() {
+		return goalState;
+	}
+
 	@Override
 	public boolean isGoal(S s) {
 		return s.equals(goalState);
@@ -0,0 +1,96 @@
+package search.sfs;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import search.states.Canonicalizer;
+import search.states.State;
+
+/**
+ * A successor function over canonical states, which lets any search treat
+ * equivalent states as one. The search should be started from the canonical
+ * form of the root, and its path can then be turned back into a path of the
+ * original domain with restorePath().
+ * 
+ * The goal test must accept a canonical state exactly when it accepts the
+ * states equivalent to it; e.g. an EqualGoalTest whose goal is its own only
+ * equivalent.
+ * 
+ * @author lackofcheese
+ * @param <S>
+ *            the type of state used.
+ */
+public class CanonicalSF<S extends State> implements SuccessorFunction<S> {
+	/** The successor function of the original domain. */
+	private final SuccessorFunction<S> sf;
+	/** Maps states to their canonical forms. */
+	private final Canonicalizer<S> canonicalizer;
+
+	/**
+	 * Constructs a canonical successor function.
+	 * 
+	 * @param sf
+	 *            the successor function of the original domain.
+	 * @param canonicalizer
+	 *            maps states to their canonical forms.
+	 */
+	public CanonicalSF(SuccessorFunction<S> sf,
+			Canonicalizer<S> canonicalizer) {
+		this.sf = sf;
+		this.canonicalizer = canonicalizer;
+	}
+
+	@Override
+	public Map<S, Double> getSuccessors(S s) {
+		Map<S, Double> map = new HashMap<S, Double>();
+		for (Map.Entry<S, Double> entry : sf.getSuccessors(s).entrySet()) {
+			S canonical = canonicalizer.canonical(entry.getKey());
+			Double cost = map.get(canonical);
+			if (cost == null || entry.getValue() < cost) {
+				map.put(canonical, entry.getValue());
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * Turns a path found over canonical states back into a path of the
+	 * original domain, starting from the given root; each state is replaced
+	 * by a successor of the previous one which has the same canonical form.
+	 * 
+	 * @param root
+	 *            the original root state.
+	 * @param canonicalPath
+	 *            the path found, starting with the canonical form of the
+	 *            root.
+	 * @return the path in the original domain.
+	 */
+	public List<S> restorePath(S root, List<S> canonicalPath) {
+		List<S> path = new ArrayList<S>(canonicalPath.size());
+		S current = root;
+		path.add(current);
+		for (int i = 1; i < canonicalPath.size(); i++) {
+			S target = canonicalPath.get(i);
+			S next = null;
+			double bestCost = Double.POSITIVE_INFINITY;
+			for (Map.Entry<S, Double> entry : sf.getSuccessors(current)
+					.entrySet()) {
+				if (entry.getValue() < bestCost
+						&& canonicalizer.canonical(entry.getKey()).equals(
+								target)) {
+					next = entry.getKey();
+					bestCost = entry.getValue();
+				}
+			}
+			if (next == null) {
+				throw new IllegalArgumentException("No successor of "
+						+ current + " is equivalent to " + target);
+			}
+			path.add(next);
+			current = next;
+		}
+		return path;
+	}
+}
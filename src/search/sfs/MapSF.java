@@ -8,41 +8,68 @@ import search.states.State;
 /**
  * A successor function implemented directly as a mapping.
  * 
+ * The reverse mapping is also kept, so that the predecessors of a state can be
+ * retrieved as well.
+ * 
  * @author lackofcheese
  * @param <S>
  *            the type of state used.
  */
-public class MapSF<S extends State> implements SuccessorFunction<S> {
+public class MapSF<S extends State> implements ReversibleSF<S> {
 	/** Stores the mapping of states to their successors and costs. */
 	private Map<S, Map<S, Double>> stateMap;
+	/** Stores the mapping of states to their predecessors and costs. */
+	private Map<S, Map<S, Double>> reverseMap;
 
 	/**
 	 * Constructor; creates a blank mapping where all states have no successors.
 	 */
 	public MapSF() {
 		this.stateMap = new HashMap<S, Map<S, Double>>();
+		this.reverseMap = new HashMap<S, Map<S, Double>>();
 	}
 
 	/**
-	 * Private method for retrieving the successors of a state, and adding that
-	 * state to the mapping if it is not yet present.
+	 * Private method for retrieving the edges of a state within the given
+	 * mapping, and adding that state to the mapping if it is not yet present.
 	 * 
+	 * @param edgeMap
+	 *            the mapping to look in.
 	 * @param s
 	 *            the state
-	 * @return a mapping of successor states to costs.
+	 * @return a mapping of adjacent states to costs.
 	 */
-	private Map<S, Double> get(S s) {
-		Map<S, Double> map = stateMap.get(s);
+	private Map<S, Double> get(Map<S, Map<S, Double>> edgeMap, S s) {
+		Map<S, Double> map = edgeMap.get(s);
 		if (map == null) {
 			map = new HashMap<S, Double>();
-			stateMap.put(s, map);
+			edgeMap.put(s, map);
 		}
 		return map;
 	}
 
+	/**
+	 * Private method for copying the edges of a state within the given
+	 * mapping. Unlike get(), this leaves the mapping unchanged, so that once
+	 * all of the edges have been added, several threads may search at once.
+	 * 
+	 * @param edgeMap
+	 *            the mapping to look in.
+	 * @param s
+	 *            the state
+	 * @return a new mapping of adjacent states to costs.
+	 */
+	private Map<S, Double> copy(Map<S, Map<S, Double>> edgeMap, S s) {
+		Map<S, Double> map = edgeMap.get(s);
+		if (map == null) {
+			return new HashMap<S, Double>();
+		}
+		return new HashMap<S, Double>(map);
+	}
+
 	/**
 	 * Adds an edge with a given cost from the predecessor state to the
-	 * successor state.
+	 * successor state. If the edge is already present, its cost is replaced.
 	 * 
 	 * @param pred
 	 *            the predecessor state
@@ -52,11 +79,37 @@ public class MapSF<S extends State> implements SuccessorFunction<S> {
 	 *            the cost of the edge between the two states.
 	 */
 	public void addSuccessor(S pred, S succ, double cost) {
-		this.get(pred).put(succ, cost);
+		this.get(stateMap, pred).put(succ, cost);
+		this.get(reverseMap, succ).put(pred, cost);
+	}
+
+	/**
+	 * Removes the edge from the predecessor state to the successor state, if
+	 * it is present.
+	 * 
+	 * @param pred
+	 *            the predecessor state
+	 * @param succ
+	 *            the successor state
+	 */
+	public void removeSuccessor(S pred, S succ) {
+		Map<S, Double> successors = stateMap.get(pred);
+		if (successors != null) {
+			successors.remove(succ);
+		}
+		Map<S, Double> predecessors = reverseMap.get(succ);
+		if (predecessors != null) {
+			predecessors.remove(pred);
+		}
 	}
 
 	@Override
 	public Map<S, Double> getSuccessors(S s) {
-		return new HashMap<S, Double>(this.get(s));
+		return this.copy(stateMap, s);
+	}
+
+	@Override
+	public Map<S, Double> getPredecessors(S s) {
+		return this.copy(reverseMap, s);
 	}
 }
@@ -0,0 +1,103 @@
+package search.sfs;
+
+import search.states.State;
+
+/**
+ * An operator-level view of a domain, for searches that walk the state space
+ * one move at a time. Rather than creating each successor as a new state, a
+ * search keeps a single mutable working state, and applies and undoes moves
+ * on it in place.
+ * 
+ * Moves are identified by small non-negative ints, and every move must have
+ * an inverse, which undoes it at the same cost; a search can skip the inverse
+ * of the move it has just made, since that would only lead back to the
+ * previous state.
+ * 
+ * @author lackofcheese
+ * @param <S>
+ *            the type of state used.
+ * @param <W>
+ *            the type of the mutable working state.
+ */
+public interface MoveModel<S extends State, W> {
+	/** Used in place of a move when there is none, e.g. at the root. */
+	public static final int NO_MOVE = -1;
+
+	/**
+	 * Creates a working state equal to the given state.
+	 * 
+	 * @param s
+	 *            the state.
+	 * @return a new working state.
+	 */
+	public W createWorking(S s);
+
+	/**
+	 * Returns an immutable state equal to the given working state.
+	 * 
+	 * @param w
+	 *            the working state.
+	 * @return the state.
+	 */
+	public S toState(W w);
+
+	/**
+	 * Returns true if the working state is equal to the given state; this
+	 * should not need to create a new state.
+	 * 
+	 * @param w
+	 *            the working state.
+	 * @param s
+	 *            the state.
+	 * @return true if they are equal.
+	 */
+	public boolean matches(W w, S s);
+
+	/**
+	 * Returns the largest number of moves applicable to any state.
+	 * 
+	 * @return the largest number of moves.
+	 */
+	public int getMaxMoves();
+
+	/**
+	 * Fills the given array with the moves applicable to the working state.
+	 * 
+	 * @param w
+	 *            the working state.
+	 * @param moves
+	 *            an array of at least getMaxMoves() elements.
+	 * @return the number of moves.
+	 */
+	public int getMoves(W w, int[] moves);
+
+	/**
+	 * Applies a move to the working state.
+	 * 
+	 * @param w
+	 *            the working state.
+	 * @param move
+	 *            a move applicable to it.
+	 * @return the cost of the move.
+	 */
+	public double apply(W w, int move);
+
+	/**
+	 * Undoes a move that was just applied to the working state.
+	 * 
+	 * @param w
+	 *            the working state.
+	 * @param move
+	 *            the move.
+	 */
+	public void undo(W w, int move);
+
+	/**
+	 * Returns the move that undoes the given move.
+	 * 
+	 * @param move
+	 *            the move.
+	 * @return the inverse move.
+	 */
+	public int inverse(int move);
+}
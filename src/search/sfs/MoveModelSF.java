@@ -0,0 +1,45 @@
+package search.sfs;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import search.states.State;
+
+/**
+ * A successor function built from a move model, for use by searches which
+ * work with whole states.
+ * 
+ * @author lackofcheese
+ * @param <S>
+ *            the type of state used.
+ * @param <W>
+ *            the type of the mutable working state.
+ */
+public class MoveModelSF<S extends State, W> implements SuccessorFunction<S> {
+	/** The move model. */
+	private final MoveModel<S, W> model;
+
+	/**
+	 * Constructs a successor function for the given move model.
+	 * 
+	 * @param model
+	 *            the move model.
+	 */
+	public MoveModelSF(MoveModel<S, W> model) {
+		this.model = model;
+	}
+
+	@Override
+	public Map<S, Double> getSuccessors(S s) {
+		Map<S, Double> map = new HashMap<S, Double>();
+		W w = model.createWorking(s);
+		int[] moves = new int[model.getMaxMoves()];
+		int count = model.getMoves(w, moves);
+		for (int i = 0; i < count; i++) {
+			double cost = model.apply(w, moves[i]);
+			map.put(model.toState(w), cost);
+			model.undo(w, moves[i]);
+		}
+		return map;
+	}
+}
@@ -0,0 +1,27 @@
+package search.sfs;
+
+import java.util.Map;
+
+import search.states.State;
+
+/**
+ * A successor function that can also enumerate the predecessors of a state,
+ * which is needed by searches that repair their results when edge costs
+ * change.
+ * 
+ * @author lackofcheese
+ * @param <S>
+ *            the type of state required.
+ */
+public interface ReversibleSF<S extends State> extends SuccessorFunction<S> {
+	/**
+	 * This method will, for any given state, return a mapping containing the
+	 * states which have that state as a successor, and the associated costs of
+	 * moving from those states.
+	 * 
+	 * @param s
+	 *            the state in question.
+	 * @return a mapping of predecessor states to edge costs.
+	 */
+	public Map<S, Double> getPredecessors(S s);
+}
@@ -0,0 +1,23 @@
+package search.states;
+
+/**
+ * Maps each state to a canonical representative of its class of equivalent
+ * states, e.g. under the symmetries of a domain. Equivalent states must have
+ * the same cost to reach the goal, so that a search only needs to explore one
+ * of them.
+ * 
+ * @author lackofcheese
+ * @param <S>
+ *            the type of state used.
+ */
+public interface Canonicalizer<S extends State> {
+	/**
+	 * Returns the canonical representative of the given state; this must be
+	 * the same for every state equivalent to it.
+	 * 
+	 * @param s
+	 *            the state.
+	 * @return the canonical state.
+	 */
+	public S canonical(S s);
+}
@@ -0,0 +1,40 @@
+package search.states;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Serializes states as their codes from a StateCodec, so that a checkpoint
+ * stores each state as a single long. This is more compact than most
+ * serializers, but the file can only be read back with an equivalent codec,
+ * and it is only available for states that have a codec at all.
+ * 
+ * @author lackofcheese
+ * @param <S>
+ *            the type of state serialized.
+ */
+public class CodecSerializer<S extends State> implements StateSerializer<S> {
+	/** The codec used. */
+	private final StateCodec<S> codec;
+
+	/**
+	 * Constructs a serializer using the given codec.
+	 * 
+	 * @param codec
+	 *            the codec.
+	 */
+	public CodecSerializer(StateCodec<S> codec) {
+		this.codec = codec;
+	}
+
+	@Override
+	public void write(S s, DataOutput out) throws IOException {
+		out.writeLong(codec.encode(s));
+	}
+
+	@Override
+	public S read(DataInput in) throws IOException {
+		return codec.decode(in.readLong());
+	}
+}
@@ -0,0 +1,89 @@
+package search.states;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import search.util.ObjectIntMap;
+
+/**
+ * Encodes named states as interned ids; the first name encoded is given the
+ * code 0, the next new name 1, and so on.
+ * 
+ * The codes are only meaningful to the codec that assigned them. To decode
+ * them in another run, e.g. when resuming from a checkpoint, save the list
+ * from getNames() and construct the new codec from it.
+ * 
+ * @author lackofcheese
+ */
+public class NamedStateCodec implements StateCodec<NamedState> {
+	/** The id of each name. */
+	private final ObjectIntMap<String> ids = new ObjectIntMap<String>();
+	/** The states, indexed by id. */
+	private final List<NamedState> states = new ArrayList<NamedState>();
+
+	/**
+	 * Constructs a codec with no names assigned yet.
+	 */
+	public NamedStateCodec() {
+	}
+
+	/**
+	 * Constructs a codec which assigns the given names the ids 0, 1, 2 and so
+	 * on, in order.
+	 * 
+	 * @param names
+	 *            the names; these must be distinct.
+	 */
+	public NamedStateCodec(List<String> names) {
+		for (String name : names) {
+			if (ids.containsKey(name)) {
+				throw new IllegalArgumentException("Duplicate name " + name);
+			}
+			intern(new NamedState(name));
+		}
+	}
+
+	/**
+	 * Returns the id of the given state, assigning it a new one if needed.
+	 * 
+	 * @param s
+	 *            the state.
+	 * @return the id.
+	 */
+	private int intern(NamedState s) {
+		int id = ids.get(s.getName(), -1);
+		if (id < 0) {
+			id = states.size();
+			states.add(s);
+			ids.put(s.getName(), id);
+		}
+		return id;
+	}
+
+	@Override
+	public synchronized long encode(NamedState s) {
+		return intern(s);
+	}
+
+	@Override
+	public synchronized NamedState decode(long code) {
+		if (code < 0 || code >= states.size()) {
+			throw new IllegalArgumentException("Unknown state id " + code);
+		}
+		return states.get((int) code);
+	}
+
+	/**
+	 * Returns the names assigned so far, indexed by id.
+	 * 
+	 * @return an unmodifiable copy of the names.
+	 */
+	public synchronized List<String> getNames() {
+		List<String> names = new ArrayList<String>(states.size());
+		for (NamedState s : states) {
+			names.add(s.getName());
+		}
+		return Collections.unmodifiableList(names);
+	}
+}
@@ -0,0 +1,22 @@
+package search.states;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Serializes named states by their names.
+ * 
+ * @author lackofcheese
+ */
+public class NamedStateSerializer implements StateSerializer<NamedState> {
+	@Override
+	public void write(NamedState s, DataOutput out) throws IOException {
+		out.writeUTF(s.getName());
+	}
+
+	@Override
+	public NamedState read(DataInput in) throws IOException {
+		return new NamedState(in.readUTF());
+	}
+}
@@ -0,0 +1,40 @@
+package search.states;
+
+/**
+ * Converts states to and from compact 64-bit codes, so that they can be
+ * stored in primitive arrays or written to disk rather than held as objects.
+ * 
+ * Two states must have the same code if and only if they are equal, and
+ * decoding the code of a state must give back an equal state.
+ * 
+ * A codec is only possible for a state space with at most 2^64 states, and
+ * not every state type in this tree has one; e.g. the boards of sliding tile
+ * puzzles larger than 4x4 take several longs, so SlidingPuzzleCodec cannot
+ * encode them. The structures built on codecs, i.e. TranspositionTable,
+ * OffHeapAStarSearch, ExternalBreadthFirstSearch and CodecSerializer, cannot
+ * be used for such states; they must be searched with the object-based
+ * algorithms, and checkpointed with a StateSerializer of their own.
+ * 
+ * @author lackofcheese
+ * @param <S>
+ *            the type of state encoded.
+ */
+public interface StateCodec<S extends State> {
+	/**
+	 * Returns the code for the given state.
+	 * 
+	 * @param s
+	 *            the state.
+	 * @return the code for the state.
+	 */
+	public long encode(S s);
+
+	/**
+	 * Returns the state with the given code.
+	 * 
+	 * @param code
+	 *            a code previously returned by encode().
+	 * @return the state with that code.
+	 */
+	public S decode(long code);
+}
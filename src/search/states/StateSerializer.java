@@ -0,0 +1,40 @@
+package search.states;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Writes states to a binary stream and reads them back, so that the progress
+ * of a search can be saved to disk.
+ * 
+ * Reading back what was written for a state must give an equal state.
+ * 
+ * @author lackofcheese
+ * @param <S>
+ *            the type of state serialized.
+ */
+public interface StateSerializer<S extends State> {
+	/**
+	 * Writes the given state to the output.
+	 * 
+	 * @param s
+	 *            the state.
+	 * @param out
+	 *            the output to write to.
+	 * @throws IOException
+	 *             if the output cannot be written.
+	 */
+	public void write(S s, DataOutput out) throws IOException;
+
+	/**
+	 * Reads a state from the input.
+	 * 
+	 * @param in
+	 *            the input to read from.
+	 * @return the state read.
+	 * @throws IOException
+	 *             if the input cannot be read.
+	 */
+	public S read(DataInput in) throws IOException;
+}
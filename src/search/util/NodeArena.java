@@ -0,0 +1,180 @@
+package search.util;
+
+import java.util.Arrays;
+
+/**
+ * A store of search tree nodes, held as parallel primitive arrays rather than
+ * as one object per node. A node is referred to by its index, and records the
+ * index of its parent, its cost so far, its heuristic estimate, its depth,
+ * and a reference to its state (e.g. an index into a table of states).
+ *
+ * This uses 18 bytes per node, rather than the object headers and pointers
+ * of a node object; costs are held as floats to save space.
+ *
+ * @author lackofcheese
+ */
+public class NodeArena {
+	/** The index used as the parent of a root node. */
+	public static final int NO_PARENT = -1;
+	/** The default number of nodes the arena has room for. */
+	private static final int DEFAULT_CAPACITY = 1024;
+
+	/** The index of the parent of each node. */
+	private int[] parent;
+	/** The cost so far of each node. */
+	private float[] g;
+	/** The heuristic estimate of each node. */
+	private float[] h;
+	/** The depth of each node, capped at Short.MAX_VALUE. */
+	private short[] depth;
+	/** The state reference of each node. */
+	private int[] stateRef;
+	/** The number of nodes in the arena. */
+	private int size;
+
+	/**
+	 * Constructs an empty arena.
+	 */
+	public NodeArena() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs an empty arena with room for the given number of nodes
+	 * before it needs to grow.
+	 *
+	 * @param capacity
+	 *            the initial capacity.
+	 */
+	public NodeArena(int capacity) {
+		capacity = Math.max(capacity, 1);
+		parent = new int[capacity];
+		g = new float[capacity];
+		h = new float[capacity];
+		depth = new short[capacity];
+		stateRef = new int[capacity];
+	}
+
+	/**
+	 * Adds a node to the arena.
+	 *
+	 * @param parentIndex
+	 *            the index of the parent, or NO_PARENT.
+	 * @param cost
+	 *            the cost so far.
+	 * @param estimate
+	 *            the heuristic estimate.
+	 * @param nodeDepth
+	 *            the depth; values above Short.MAX_VALUE are capped.
+	 * @param ref
+	 *            the state reference.
+	 * @return the index of the new node.
+	 */
+	public int add(int parentIndex, double cost, double estimate,
+			int nodeDepth, int ref) {
+		if (size == parent.length) {
+			grow();
+		}
+		int index = size++;
+		parent[index] = parentIndex;
+		g[index] = (float) cost;
+		h[index] = (float) estimate;
+		depth[index] = (short) Math.min(nodeDepth, Short.MAX_VALUE);
+		stateRef[index] = ref;
+		return index;
+	}
+
+	/**
+	 * Returns the index of the parent of a node.
+	 *
+	 * @param index
+	 *            the node.
+	 * @return the parent, or NO_PARENT.
+	 */
+	public int getParent(int index) {
+		return parent[index];
+	}
+
+	/**
+	 * Returns the cost so far of a node.
+	 *
+	 * @param index
+	 *            the node.
+	 * @return the cost so far.
+	 */
+	public float getG(int index) {
+		return g[index];
+	}
+
+	/**
+	 * Returns the heuristic estimate of a node.
+	 *
+	 * @param index
+	 *            the node.
+	 * @return the heuristic estimate.
+	 */
+	public float getH(int index) {
+		return h[index];
+	}
+
+	/**
+	 * Returns the cost so far plus the heuristic estimate of a node.
+	 *
+	 * @param index
+	 *            the node.
+	 * @return the f-value.
+	 */
+	public float getF(int index) {
+		return g[index] + h[index];
+	}
+
+	/**
+	 * Returns the depth of a node, capped at Short.MAX_VALUE.
+	 *
+	 * @param index
+	 *            the node.
+	 * @return the depth.
+	 */
+	public int getDepth(int index) {
+		return depth[index];
+	}
+
+	/**
+	 * Returns the state reference of a node.
+	 *
+	 * @param index
+	 *            the node.
+	 * @return the state reference.
+	 */
+	public int getStateRef(int index) {
+		return stateRef[index];
+	}
+
+	/**
+	 * Returns the number of nodes in the arena.
+	 *
+	 * @return the number of nodes.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes all of the nodes, keeping the allocated space.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Doubles the capacity of the arena.
+	 */
+	private void grow() {
+		int capacity = parent.length * 2;
+		parent = Arrays.copyOf(parent, capacity);
+		g = Arrays.copyOf(g, capacity);
+		h = Arrays.copyOf(h, capacity);
+		depth = Arrays.copyOf(depth, capacity);
+		stateRef = Arrays.copyOf(stateRef, capacity);
+	}
+}
@@ -0,0 +1,148 @@
+package search.util;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from objects to primitive double values, using open addressing
+ * with linear probing. Values are stored in a plain double array, so no Double
+ * objects are created when the map is read or updated.
+ * 
+ * Entries cannot be removed individually; the map can only be cleared.
+ * 
+ * @author lackofcheese
+ * @param <K>
+ *            the type of the keys.
+ */
+public class ObjectDoubleMap<K> {
+	/** The default number of slots in a new map. */
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/** The keys; empty slots are null. */
+	private Object[] keys;
+	/** The values, at the same index as their keys. */
+	private double[] values;
+	/** The number of entries in the map. */
+	private int size;
+
+	/**
+	 * Constructs an empty map.
+	 */
+	public ObjectDoubleMap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs an empty map with room for the given number of entries before
+	 * it needs to grow.
+	 * 
+	 * @param expectedSize
+	 *            the expected number of entries.
+	 */
+	public ObjectDoubleMap(int expectedSize) {
+		int capacity = DEFAULT_CAPACITY;
+		while (capacity < expectedSize * 2) {
+			capacity *= 2;
+		}
+		keys = new Object[capacity];
+		values = new double[capacity];
+	}
+
+	/**
+	 * Returns the slot for the given key; this is either the slot holding the
+	 * key, or the empty slot where it would be placed.
+	 * 
+	 * @param key
+	 *            the key.
+	 * @return the slot index for the key.
+	 */
+	private int slotOf(Object key) {
+		int mask = keys.length - 1;
+		int h = key.hashCode() * 0x9E3779B9;
+		int i = (h ^ (h >>> 16)) & mask;
+		while (keys[i] != null && !keys[i].equals(key)) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	/**
+	 * Returns the value stored for the given key, or the given default value
+	 * if the key is not present.
+	 * 
+	 * @param key
+	 *            the key.
+	 * @param defaultValue
+	 *            the value to return if the key is not present.
+	 * @return the value for the key, or the default value.
+	 */
+	public double get(K key, double defaultValue) {
+		int i = slotOf(key);
+		return keys[i] == null ? defaultValue : values[i];
+	}
+
+	/**
+	 * Returns true if the map contains the given key, and false otherwise.
+	 * 
+	 * @param key
+	 *            the key.
+	 * @return true if the key is present.
+	 */
+	public boolean containsKey(K key) {
+		return keys[slotOf(key)] != null;
+	}
+
+	/**
+	 * Stores a value for the given key, replacing any previous value.
+	 * 
+	 * @param key
+	 *            the key; this must not be null.
+	 * @param value
+	 *            the value.
+	 */
+	public void put(K key, double value) {
+		int i = slotOf(key);
+		if (keys[i] == null) {
+			if ((size + 1) * 2 > keys.length) {
+				grow();
+				i = slotOf(key);
+			}
+			keys[i] = key;
+			size++;
+		}
+		values[i] = value;
+	}
+
+	/**
+	 * Returns the number of entries in the map.
+	 * 
+	 * @return the number of entries in the map.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes all of the entries from the map.
+	 */
+	public void clear() {
+		Arrays.fill(keys, null);
+		size = 0;
+	}
+
+	/**
+	 * Doubles the number of slots, and re-inserts all of the entries.
+	 */
+	private void grow() {
+		Object[] oldKeys = keys;
+		double[] oldValues = values;
+		keys = new Object[oldKeys.length * 2];
+		values = new double[oldValues.length * 2];
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldKeys[j] != null) {
+				int i = slotOf(oldKeys[j]);
+				keys[i] = oldKeys[j];
+				values[i] = oldValues[j];
+			}
+		}
+	}
+}
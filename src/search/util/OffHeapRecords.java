@@ -0,0 +1,285 @@
+package search.util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A fixed number of fixed-size records held outside of the Java heap, in
+ * direct byte buffers. As a single buffer cannot be larger than 2GB, the
+ * records are split across pages, each of which holds a whole number of
+ * records; a record is addressed by its long index and the byte offset of a
+ * field within it.
+ * 
+ * The garbage collector only sees the page buffers, not the records, so the
+ * number of records has no effect on the time spent in collection. The total
+ * size is limited by -XX:MaxDirectMemorySize rather than by -Xmx. The memory
+ * is freed straight away by release(), so that large searches can be run one
+ * after another without waiting for the collector; this uses the JDK's
+ * internal buffer cleaner, and where that is not available, the memory is
+ * only freed once the pages are collected, as it is for records that are
+ * never released.
+ * 
+ * @author lackofcheese
+ */
+public class OffHeapRecords {
+	/** The largest size of a single page, in bytes. */
+	private static final int MAX_PAGE_BYTES = 1 << 30;
+	/** The instance of sun.misc.Unsafe, or null if it is not available. */
+	private static final Object UNSAFE;
+	/** Unsafe.invokeCleaner(ByteBuffer), or null if it is not available. */
+	private static final Method INVOKE_CLEANER;
+
+	static {
+		Object unsafe = null;
+		Method invokeCleaner = null;
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field field = unsafeClass.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			unsafe = field.get(null);
+			invokeCleaner = unsafeClass.getMethod("invokeCleaner",
+					ByteBuffer.class);
+		} catch (Exception e) {
+			// Before Java 9; the buffers' own cleaners are used instead.
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+	}
+
+	/** The size of a record, in bytes. */
+	private final int recordBytes;
+	/** The number of records. */
+	private final long capacity;
+	/** The number of records on each page. */
+	private final int pageRecords;
+	/** The pages. */
+	private ByteBuffer[] pages;
+
+	/**
+	 * Allocates space for the given number of records, all of whose bytes
+	 * are initially zero.
+	 * 
+	 * @param recordBytes
+	 *            the size of a record, in bytes; this must be a multiple of 8.
+	 * @param capacity
+	 *            the number of records.
+	 */
+	public OffHeapRecords(int recordBytes, long capacity) {
+		if (recordBytes <= 0 || recordBytes % 8 != 0) {
+			throw new IllegalArgumentException("Record size " + recordBytes
+					+ " is not a positive multiple of 8");
+		}
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity " + capacity
+					+ " is not positive");
+		}
+		this.recordBytes = recordBytes;
+		this.capacity = capacity;
+		this.pageRecords = MAX_PAGE_BYTES / recordBytes;
+		int pageCount = (int) ((capacity + pageRecords - 1) / pageRecords);
+		pages = new ByteBuffer[pageCount];
+		long remaining = capacity;
+		for (int i = 0; i < pageCount; i++) {
+			int records = (int) Math.min(remaining, pageRecords);
+			pages[i] = ByteBuffer.allocateDirect(records * recordBytes).order(
+					ByteOrder.nativeOrder());
+			remaining -= records;
+		}
+	}
+
+	/**
+	 * Returns the number of records.
+	 * 
+	 * @return the capacity.
+	 */
+	public long getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns the size of a record.
+	 * 
+	 * @return the size of a record, in bytes.
+	 */
+	public int getRecordBytes() {
+		return recordBytes;
+	}
+
+	/**
+	 * Returns the total size of the records.
+	 * 
+	 * @return the number of bytes allocated.
+	 */
+	public long getAllocatedBytes() {
+		return capacity * recordBytes;
+	}
+
+	/**
+	 * Returns the page holding the given record.
+	 * 
+	 * @param index
+	 *            the record.
+	 * @return the page.
+	 */
+	private ByteBuffer page(long index) {
+		return pages[(int) (index / pageRecords)];
+	}
+
+	/**
+	 * Returns the position of a field within the page holding its record.
+	 * 
+	 * @param index
+	 *            the record.
+	 * @param offset
+	 *            the offset of the field within the record.
+	 * @return the position within the page.
+	 */
+	private int position(long index, int offset) {
+		return (int) (index % pageRecords) * recordBytes + offset;
+	}
+
+	/**
+	 * Returns a long field of a record.
+	 * 
+	 * @param index
+	 *            the record.
+	 * @param offset
+	 *            the offset of the field, in bytes.
+	 * @return the value of the field.
+	 */
+	public long getLong(long index, int offset) {
+		return page(index).getLong(position(index, offset));
+	}
+
+	/**
+	 * Sets a long field of a record.
+	 * 
+	 * @param index
+	 *            the record.
+	 * @param offset
+	 *            the offset of the field, in bytes.
+	 * @param value
+	 *            the new value.
+	 */
+	public void putLong(long index, int offset, long value) {
+		page(index).putLong(position(index, offset), value);
+	}
+
+	/**
+	 * Returns a double field of a record.
+	 * 
+	 * @param index
+	 *            the record.
+	 * @param offset
+	 *            the offset of the field, in bytes.
+	 * @return the value of the field.
+	 */
+	public double getDouble(long index, int offset) {
+		return page(index).getDouble(position(index, offset));
+	}
+
+	/**
+	 * Sets a double field of a record.
+	 * 
+	 * @param index
+	 *            the record.
+	 * @param offset
+	 *            the offset of the field, in bytes.
+	 * @param value
+	 *            the new value.
+	 */
+	public void putDouble(long index, int offset, double value) {
+		page(index).putDouble(position(index, offset), value);
+	}
+
+	/**
+	 * Returns an int field of a record.
+	 * 
+	 * @param index
+	 *            the record.
+	 * @param offset
+	 *            the offset of the field, in bytes.
+	 * @return the value of the field.
+	 */
+	public int getInt(long index, int offset) {
+		return page(index).getInt(position(index, offset));
+	}
+
+	/**
+	 * Sets an int field of a record.
+	 * 
+	 * @param index
+	 *            the record.
+	 * @param offset
+	 *            the offset of the field, in bytes.
+	 * @param value
+	 *            the new value.
+	 */
+	public void putInt(long index, int offset, int value) {
+		page(index).putInt(position(index, offset), value);
+	}
+
+	/**
+	 * Copies one record over another.
+	 * 
+	 * @param from
+	 *            the record to copy.
+	 * @param to
+	 *            the record to overwrite.
+	 */
+	public void copy(long from, long to) {
+		for (int offset = 0; offset < recordBytes; offset += 8) {
+			putLong(to, offset, getLong(from, offset));
+		}
+	}
+
+	/**
+	 * Sets every byte of every record to zero.
+	 */
+	public void clear() {
+		for (ByteBuffer page : pages) {
+			for (int i = 0; i < page.capacity(); i += 8) {
+				page.putLong(i, 0);
+			}
+		}
+	}
+
+	/**
+	 * Frees the memory of the pages; the records cannot be used afterwards,
+	 * by this or any other thread. Calling this more than once has no
+	 * further effect.
+	 */
+	public void release() {
+		ByteBuffer[] released = pages;
+		pages = new ByteBuffer[0];
+		for (ByteBuffer page : released) {
+			free(page);
+		}
+	}
+
+	/**
+	 * Frees the memory of a direct buffer now, if the JVM allows it;
+	 * otherwise it is left to be freed when the buffer is collected.
+	 * 
+	 * @param buffer
+	 *            the buffer, which must not be used afterwards.
+	 */
+	private static void free(ByteBuffer buffer) {
+		try {
+			if (INVOKE_CLEANER != null) {
+				INVOKE_CLEANER.invoke(UNSAFE, buffer);
+			} else {
+				Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+				cleanerMethod.setAccessible(true);
+				Object cleaner = cleanerMethod.invoke(buffer);
+				if (cleaner != null) {
+					cleaner.getClass().getMethod("clean").invoke(cleaner);
+				}
+			}
+		} catch (Exception e) {
+			// The buffer is freed when it is collected instead.
+		}
+	}
+}
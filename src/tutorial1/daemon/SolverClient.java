@@ -0,0 +1,96 @@
+package tutorial1.daemon;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * A command-line client for the SolverDaemon. If a request is given on the
+ * command line, it is sent and its response is printed; otherwise, requests
+ * are read from standard input, one per line, and the responses are printed
+ * in order as they arrive.
+ * 
+ * @author lackofcheese
+ */
+public class SolverClient {
+	/**
+	 * Copies the responses from the daemon to standard output.
+	 * 
+	 * @param input
+	 *            the input from the daemon.
+	 * @return a thread which copies the responses until the daemon closes
+	 *         the connection.
+	 */
+	private static Thread printResponses(final BufferedReader input) {
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					String line;
+					while ((line = input.readLine()) != null) {
+						System.out.println(line);
+					}
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}, "responses");
+		thread.start();
+		return thread;
+	}
+
+	/**
+	 * @param args
+	 *            the command-line arguments: optionally -p and the port of
+	 *            the daemon, followed by the words of a single request.
+	 */
+	public static void main(String args[]) {
+		int port = SolverDaemon.DEFAULT_PORT;
+		int first = 0;
+		if (args.length > 1 && args[0].equals("-p")) {
+			port = Integer.valueOf(args[1]);
+			first = 2;
+		}
+		try {
+			Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+			try {
+				BufferedReader input = new BufferedReader(
+						new InputStreamReader(socket.getInputStream(),
+								SolverDaemon.CHARSET));
+				Writer output = new BufferedWriter(new OutputStreamWriter(
+						socket.getOutputStream(), SolverDaemon.CHARSET));
+				Thread responses = printResponses(input);
+				if (first < args.length) {
+					StringBuilder request = new StringBuilder();
+					for (int i = first; i < args.length; i++) {
+						request.append(args[i]).append(' ');
+					}
+					output.write(request.toString().trim());
+					output.write('\n');
+				} else {
+					BufferedReader requests = new BufferedReader(
+							new InputStreamReader(System.in));
+					String line;
+					while ((line = requests.readLine()) != null) {
+						output.write(line);
+						output.write('\n');
+					}
+				}
+				output.flush();
+				socket.shutdownOutput();
+				responses.join();
+			} finally {
+				socket.close();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
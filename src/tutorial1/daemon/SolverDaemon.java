@@ -0,0 +1,456 @@
+package tutorial1.daemon;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import search.algorithms.SearchResult;
+import search.algorithms.metrics.MetricsDumper;
+import search.algorithms.metrics.MetricsRegistry;
+import search.algorithms.metrics.SearchMetrics;
+import search.algorithms.norevisits.AStarSearch;
+import search.goals.EqualGoalTest;
+import search.sfs.MapSF;
+import search.states.NamedState;
+import tutorial1.eight.EightPuzzleBatchSolver;
+import tutorial1.eight.EightPuzzleState;
+import tutorial1.navigation.NavigationSolver;
+
+/**
+ * A long-lived solver which loads its problems once and then answers
+ * requests over a local socket, so that small queries do not pay for JVM
+ * start-up, JIT warm-up, and loading the navigation graph each time.
+ * 
+ * The protocol is line-based; each request line gets one response line, in
+ * the order the requests were sent. The requests are:
+ * <ul>
+ * <li>EIGHT followed by the 9 tiles of an initial 8-puzzle state and then the
+ * 9 tiles of the goal state, which is solved with A*; the path is given as
+ * the moves of the empty tile.</li>
+ * <li>NAV followed by the names of two buildings in the navigation graph,
+ * which is solved with uniform-cost search; the path is given as the names of
+ * the buildings, separated by commas.</li>
+ * <li>PING, which is answered with PONG.</li>
+ * <li>QUIT, which closes the connection.</li>
+ * <li>SHUTDOWN, which stops the daemon.</li>
+ * </ul>
+ * A solved request is answered with OK, followed by the status, cost, depth,
+ * path, steps taken and time taken in microseconds; the cost, depth and path
+ * are "-" if no goal was found. A bad request is answered with ERROR and a
+ * message.
+ * 
+ * The requests from all connections are solved by a shared pool of workers;
+ * requests sent together on one connection are solved together, and their
+ * responses are written together.
+ * 
+ * If a metrics registry is set, every search is recorded in it; main() can
+ * dump the metrics to files while the daemon runs.
+ * 
+ * @author lackofcheese
+ */
+public class SolverDaemon {
+	/** The default port to listen on. */
+	public static final int DEFAULT_PORT = 7787;
+	/** The character set of the protocol. */
+	public static final Charset CHARSET = Charset.forName("UTF-8");
+	/** The largest number of requests from one connection solved at once. */
+	private static final int MAX_PENDING = 256;
+	/** The time between dumps of the metrics by main(), in milliseconds. */
+	private static final long METRICS_PERIOD_MILLIS = 10000;
+
+	/** Solves 8-puzzle instances, keeping its heuristics between requests. */
+	private final EightPuzzleBatchSolver eightSolver =
+			new EightPuzzleBatchSolver();
+	/** The navigation graph. */
+	private final MapSF<NamedState> navigationSF = new MapSF<NamedState>();
+	/** The buildings of the navigation graph, by name. */
+	private final Map<String, NamedState> buildings =
+			new HashMap<String, NamedState>();
+	/** Solves the requests. */
+	private final ExecutorService workers;
+	/** Serves the connections. */
+	private final ExecutorService connections;
+	/** The socket listening for connections. */
+	private ServerSocket serverSocket;
+	/** Records the navigation searches, or null if they are not recorded. */
+	private volatile SearchMetrics navigationMetrics;
+
+	/**
+	 * Constructs a daemon, loading the navigation graph from the given file.
+	 * 
+	 * @param navigationFile
+	 *            the file holding the navigation graph, or null for none.
+	 * @param workerCount
+	 *            the number of worker threads.
+	 * @throws IOException
+	 *             if there are issues reading the navigation graph.
+	 */
+	public SolverDaemon(String navigationFile, int workerCount)
+			throws IOException {
+		if (navigationFile != null) {
+			NavigationSolver.readFile(navigationFile, navigationSF, buildings);
+		}
+		ThreadFactory daemonThreads = new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r);
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+		this.workers = Executors.newFixedThreadPool(workerCount,
+				daemonThreads);
+		this.connections = Executors.newCachedThreadPool(daemonThreads);
+	}
+
+	/**
+	 * Sets the registry in which to record every search; null stops them
+	 * being recorded.
+	 * 
+	 * @param registry
+	 *            the metrics registry.
+	 */
+	public void setMetricsRegistry(MetricsRegistry registry) {
+		eightSolver.setMetricsRegistry(registry);
+		if (registry == null) {
+			navigationMetrics = null;
+		} else {
+			navigationMetrics = registry.forSearch("AStarSearch",
+					"navigation");
+		}
+	}
+
+	/**
+	 * Listens for connections on the loopback interface until the daemon is
+	 * shut down.
+	 * 
+	 * @param port
+	 *            the port to listen on.
+	 * @throws IOException
+	 *             if the port cannot be listened on.
+	 */
+	public void serve(int port) throws IOException {
+		serverSocket = new ServerSocket(port, 50,
+				InetAddress.getLoopbackAddress());
+		try {
+			while (true) {
+				final Socket socket;
+				try {
+					socket = serverSocket.accept();
+				} catch (SocketException e) {
+					// The socket was closed by shutdown().
+					break;
+				}
+				connections.execute(new Runnable() {
+					@Override
+					public void run() {
+						handleConnection(socket);
+					}
+				});
+			}
+		} finally {
+			connections.shutdownNow();
+			workers.shutdownNow();
+		}
+	}
+
+	/**
+	 * Stops the daemon; requests in progress may not be answered.
+	 */
+	public void shutdown() {
+		try {
+			if (serverSocket != null) {
+				serverSocket.close();
+			}
+		} catch (IOException e) {
+			// The daemon is stopping either way.
+		}
+	}
+
+	/**
+	 * Answers the requests sent on a connection until it is closed.
+	 * 
+	 * @param socket
+	 *            the socket of the connection.
+	 */
+	private void handleConnection(Socket socket) {
+		Deque<Future<String>> pending = new ArrayDeque<Future<String>>();
+		try {
+			BufferedReader input = new BufferedReader(new InputStreamReader(
+					socket.getInputStream(), CHARSET));
+			Writer output = new BufferedWriter(new OutputStreamWriter(
+					socket.getOutputStream(), CHARSET));
+			String line;
+			while ((line = input.readLine()) != null) {
+				String[] words = line.trim().split("\\s+");
+				String command = words[0].toUpperCase();
+				if (command.equals("QUIT") || command.equals("SHUTDOWN")) {
+					writeResponses(pending, output);
+					output.write("BYE\n");
+					output.flush();
+					if (command.equals("SHUTDOWN")) {
+						shutdown();
+					}
+					break;
+				}
+				pending.add(submit(command, words));
+				if (!input.ready() || pending.size() >= MAX_PENDING) {
+					writeResponses(pending, output);
+					output.flush();
+				}
+			}
+			writeResponses(pending, output);
+			output.flush();
+		} catch (IOException e) {
+			// The client has gone away; there is no one left to answer.
+		} finally {
+			for (Future<String> future : pending) {
+				future.cancel(false);
+			}
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// Nothing more can be done with the connection.
+			}
+		}
+	}
+
+	/**
+	 * Writes the responses to the pending requests, in order.
+	 * 
+	 * @param pending
+	 *            the futures for the responses; these are removed.
+	 * @param output
+	 *            the output of the connection.
+	 * @throws IOException
+	 *             if there are issues writing.
+	 */
+	private static void writeResponses(Deque<Future<String>> pending,
+			Writer output) throws IOException {
+		while (!pending.isEmpty()) {
+			String response;
+			try {
+				response = pending.poll().get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while solving", e);
+			} catch (ExecutionException e) {
+				response = "ERROR " + e.getCause();
+			}
+			output.write(response);
+			output.write('\n');
+		}
+	}
+
+	/**
+	 * Starts answering a request.
+	 * 
+	 * @param command
+	 *            the command of the request, in upper case.
+	 * @param words
+	 *            the words of the request, including the command.
+	 * @return a future for the response.
+	 */
+	private Future<String> submit(final String command, final String[] words) {
+		return workers.submit(new Callable<String>() {
+			@Override
+			public String call() {
+				try {
+					return respond(command, words);
+				} catch (IllegalArgumentException e) {
+					return "ERROR " + e.getMessage();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Answers a request.
+	 * 
+	 * @param command
+	 *            the command of the request, in upper case.
+	 * @param words
+	 *            the words of the request, including the command.
+	 * @return the response.
+	 * @throws IllegalArgumentException
+	 *             if the request is not valid.
+	 */
+	private String respond(String command, String[] words) {
+		if (command.equals("PING")) {
+			return "PONG";
+		} else if (command.equals("EIGHT")) {
+			return solveEight(words);
+		} else if (command.equals("NAV")) {
+			return solveNavigation(words);
+		}
+		throw new IllegalArgumentException("Unknown command " + words[0]);
+	}
+
+	/**
+	 * Solves an 8-puzzle request.
+	 * 
+	 * @param words
+	 *            the words of the request.
+	 * @return the response.
+	 */
+	private String solveEight(String[] words) {
+		if (words.length != 19) {
+			throw new IllegalArgumentException(
+					"EIGHT takes 9 initial and 9 goal tiles");
+		}
+		StringBuilder initial = new StringBuilder();
+		StringBuilder goal = new StringBuilder();
+		for (int i = 1; i < 19; i++) {
+			(i <= 9 ? initial : goal).append(words[i]).append(' ');
+		}
+		EightPuzzleState initialState;
+		EightPuzzleState goalState;
+		try {
+			initialState = new EightPuzzleState(initial.toString().trim());
+			goalState = new EightPuzzleState(goal.toString().trim());
+		} catch (RuntimeException e) {
+			throw new IllegalArgumentException("Invalid 8-puzzle state");
+		}
+		SearchResult<EightPuzzleState> result = eightSolver.solve(
+				initialState, goalState);
+		String path = result.goalFound() ? EightPuzzleBatchSolver
+				.formatMoves(result.getGoalPath()) : "-";
+		return formatResult(result, path);
+	}
+
+	/**
+	 * Solves a navigation request.
+	 * 
+	 * @param words
+	 *            the words of the request.
+	 * @return the response.
+	 */
+	private String solveNavigation(String[] words) {
+		if (words.length != 3) {
+			throw new IllegalArgumentException("NAV takes two buildings");
+		}
+		NamedState from = buildings.get(words[1]);
+		NamedState to = buildings.get(words[2]);
+		if (from == null || to == null) {
+			throw new IllegalArgumentException("Unknown building "
+					+ (from == null ? words[1] : words[2]));
+		}
+		AStarSearch<NamedState> algo = new AStarSearch<NamedState>(from,
+				new EqualGoalTest<NamedState>(to), navigationSF);
+		long startTime = System.nanoTime();
+		algo.search();
+		SearchResult<NamedState> result = SearchResult.of(algo,
+				System.nanoTime() - startTime);
+		SearchMetrics metrics = navigationMetrics;
+		if (metrics != null) {
+			metrics.record(result);
+		}
+		String path = "-";
+		if (result.goalFound()) {
+			StringBuilder builder = new StringBuilder();
+			List<NamedState> states = result.getGoalPath();
+			for (int i = 0; i < states.size(); i++) {
+				if (i > 0) {
+					builder.append(',');
+				}
+				builder.append(states.get(i).getName());
+			}
+			path = builder.toString();
+		}
+		return formatResult(result, path);
+	}
+
+	/**
+	 * Formats the response to a solved request.
+	 * 
+	 * @param result
+	 *            the result of the search.
+	 * @param path
+	 *            the path, already formatted.
+	 * @return the response.
+	 */
+	private static String formatResult(SearchResult<?> result, String path) {
+		if (!result.goalFound()) {
+			return String.format("OK %s - - - %d %d", result.getStatus(),
+					result.getExpansions(), result.getElapsedNanos() / 1000);
+		}
+		return String.format("OK %s %s %d %s %d %d", result.getStatus(),
+				formatCost(result.getGoalCost()), result.getGoalDepth(), path,
+				result.getExpansions(), result.getElapsedNanos() / 1000);
+	}
+
+	/**
+	 * Formats a cost, without a fractional part if it is a whole number.
+	 * 
+	 * @param cost
+	 *            the cost.
+	 * @return the formatted cost.
+	 */
+	private static String formatCost(double cost) {
+		if (cost == Math.rint(cost)) {
+			return Long.toString((long) cost);
+		}
+		return Double.toString(cost);
+	}
+
+	/**
+	 * @param args
+	 *            the command-line arguments: optionally the port to listen
+	 *            on, the navigation graph to load, which defaults to
+	 *            NavigationSolver.DEFAULT_INPUT, and a prefix for the metrics
+	 *            files, which are then written to prefix.prom and prefix.csv
+	 *            every 10 seconds and when the daemon stops.
+	 */
+	public static void main(String args[]) {
+		int port = DEFAULT_PORT;
+		if (args.length > 0) {
+			port = Integer.valueOf(args[0]);
+		}
+		String navigationFile = NavigationSolver.DEFAULT_INPUT;
+		if (args.length > 1) {
+			navigationFile = args[1];
+		}
+		try {
+			SolverDaemon daemon = new SolverDaemon(navigationFile, Runtime
+					.getRuntime().availableProcessors());
+			MetricsDumper dumper = null;
+			if (args.length > 2) {
+				MetricsRegistry registry = new MetricsRegistry();
+				daemon.setMetricsRegistry(registry);
+				dumper = new MetricsDumper(registry, new File(args[2]
+						+ ".prom"), new File(args[2] + ".csv"));
+				dumper.start(METRICS_PERIOD_MILLIS);
+			}
+			System.out.println("Listening on port " + port);
+			try {
+				daemon.serve(port);
+			} finally {
+				if (dumper != null) {
+					dumper.close();
+				}
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,334 @@
+package tutorial1.eight;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import search.algorithms.SearchResult;
+import search.algorithms.metrics.MetricsDumper;
+import search.algorithms.metrics.MetricsRegistry;
+import search.algorithms.metrics.SearchMetrics;
+import search.algorithms.norevisits.AStarSearch;
+import search.goals.EqualGoalTest;
+import search.heuristics.Heuristic;
+import search.sfs.SuccessorFunction;
+
+/**
+ * Solves many 8-puzzle instances in one run. The input file holds the
+ * instances one after another, each as a line for the initial state followed
+ * by a line for the goal state, as in the input to EightPuzzleSolver; blank
+ * lines are ignored, as is an unpaired last line.
+ * 
+ * The instances are read in chunks, which are solved in parallel by a pool of
+ * workers with A* and the total Manhattan distance; the successor function
+ * and the heuristic for each goal are shared by all of the workers. The
+ * results are written in input order, one line per instance, giving its
+ * number, status, cost, depth, path, steps taken, and time taken. The path is
+ * written as the moves of the empty tile: U, D, L, or R.
+ * 
+ * Only a bounded number of chunks are held at once, so inputs of any size
+ * may be solved in a fixed amount of memory.
+ * 
+ * If a metrics registry is set, every search is recorded in it; main() can
+ * dump the metrics to files while it runs.
+ * 
+ * @author lackofcheese
+ */
+public class EightPuzzleBatchSolver {
+	/** The number of instances in each chunk. */
+	private static final int CHUNK_SIZE = 256;
+	/** The number of chunks per worker that may be in progress at once. */
+	private static final int CHUNKS_PER_WORKER = 4;
+	/** The time between dumps of the metrics by main(), in milliseconds. */
+	private static final long METRICS_PERIOD_MILLIS = 10000;
+
+	/** The successor function, shared by all of the searches. */
+	private final SuccessorFunction<EightPuzzleState> sf =
+			new EightPuzzleSF();
+	/** The heuristic for each goal seen so far. */
+	private final ConcurrentMap<EightPuzzleState, Heuristic<EightPuzzleState>>
+			heuristics = new ConcurrentHashMap<EightPuzzleState,
+			Heuristic<EightPuzzleState>>();
+	/** Records the searches, or null if they are not recorded. */
+	private volatile SearchMetrics metrics;
+
+	/**
+	 * Sets the registry in which to record every search; null stops them
+	 * being recorded.
+	 * 
+	 * @param registry
+	 *            the metrics registry.
+	 */
+	public void setMetricsRegistry(MetricsRegistry registry) {
+		if (registry == null) {
+			this.metrics = null;
+		} else {
+			this.metrics = registry.forSearch("AStarSearch", "8-puzzle");
+		}
+	}
+
+	/**
+	 * Solves a single instance.
+	 * 
+	 * @param initialState
+	 *            the initial state.
+	 * @param goalState
+	 *            the goal state.
+	 * @return the result of the search.
+	 */
+	public SearchResult<EightPuzzleState> solve(EightPuzzleState initialState,
+			EightPuzzleState goalState) {
+		Heuristic<EightPuzzleState> heuristic = heuristics.get(goalState);
+		if (heuristic == null) {
+			heuristic = new TotalManhattanDistance(goalState);
+			Heuristic<EightPuzzleState> existing = heuristics.putIfAbsent(
+					goalState, heuristic);
+			if (existing != null) {
+				heuristic = existing;
+			}
+		}
+		AStarSearch<EightPuzzleState> algo = new AStarSearch<EightPuzzleState>(
+				initialState, new EqualGoalTest<EightPuzzleState>(goalState),
+				sf, heuristic);
+		long startTime = System.nanoTime();
+		algo.search();
+		SearchResult<EightPuzzleState> result = SearchResult.of(algo,
+				System.nanoTime() - startTime);
+		SearchMetrics metrics = this.metrics;
+		if (metrics != null) {
+			metrics.record(result);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the moves of the empty tile along a path.
+	 * 
+	 * @param path
+	 *            the path.
+	 * @return the moves, as a string of U, D, L and R.
+	 */
+	public static String formatMoves(List<EightPuzzleState> path) {
+		StringBuilder builder = new StringBuilder(path.size());
+		for (int i = 1; i < path.size(); i++) {
+			EightPuzzleState from = path.get(i - 1);
+			EightPuzzleState to = path.get(i);
+			int rowChange = to.getRowOf(0) - from.getRowOf(0);
+			int colChange = to.getColOf(0) - from.getColOf(0);
+			if (rowChange < 0) {
+				builder.append('U');
+			} else if (rowChange > 0) {
+				builder.append('D');
+			} else if (colChange < 0) {
+				builder.append('L');
+			} else {
+				builder.append('R');
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Appends the output line for an instance.
+	 * 
+	 * @param builder
+	 *            the builder to append to.
+	 * @param number
+	 *            the number of the instance, counting from 1.
+	 * @param result
+	 *            the result of its search.
+	 */
+	private static void appendResult(StringBuilder builder, long number,
+			SearchResult<EightPuzzleState> result) {
+		builder.append(number).append(' ').append(result.getStatus());
+		if (result.goalFound()) {
+			builder.append(' ').append((long) result.getGoalCost());
+			builder.append(' ').append(result.getGoalDepth());
+			builder.append(' ').append(formatMoves(result.getGoalPath()));
+		} else {
+			builder.append(" - - -");
+		}
+		builder.append(' ').append(result.getExpansions());
+		builder.append(' ').append(result.getElapsedNanos() / 1000);
+		builder.append('\n');
+	}
+
+	/**
+	 * Solves one chunk of instances.
+	 * 
+	 * @param firstNumber
+	 *            the number of the first instance in the chunk.
+	 * @param lines
+	 *            the lines of the chunk, two per instance.
+	 * @return the output for the chunk.
+	 */
+	private String solveChunk(long firstNumber, List<String> lines) {
+		StringBuilder builder = new StringBuilder(lines.size() * 32);
+		for (int i = 0; i + 1 < lines.size(); i += 2) {
+			long number = firstNumber + i / 2;
+			EightPuzzleState initialState;
+			EightPuzzleState goalState;
+			try {
+				initialState = new EightPuzzleState(lines.get(i));
+				goalState = new EightPuzzleState(lines.get(i + 1));
+			} catch (RuntimeException e) {
+				builder.append(number).append(" INVALID - - - 0 0\n");
+				continue;
+			}
+			appendResult(builder, number, solve(initialState, goalState));
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Solves every instance in the input, writing the results to the output
+	 * in input order.
+	 * 
+	 * @param input
+	 *            the input.
+	 * @param output
+	 *            the output; it is flushed but not closed.
+	 * @param workers
+	 *            the number of worker threads.
+	 * @return the number of instances solved.
+	 * @throws IOException
+	 *             if there are issues reading or writing.
+	 */
+	public long run(BufferedReader input, Writer output, int workers)
+			throws IOException {
+		ExecutorService pool = Executors.newFixedThreadPool(workers);
+		Deque<Future<String>> pending = new ArrayDeque<Future<String>>();
+		int maxPending = workers * CHUNKS_PER_WORKER;
+		long count = 0;
+		try {
+			List<String> lines = new ArrayList<String>(CHUNK_SIZE * 2);
+			String line;
+			while (true) {
+				line = input.readLine();
+				if (line != null && line.trim().length() > 0) {
+					lines.add(line.trim());
+				}
+				if (lines.size() < CHUNK_SIZE * 2 && line != null) {
+					continue;
+				}
+				if (!lines.isEmpty()) {
+					final long firstNumber = count + 1;
+					final List<String> chunk = lines;
+					pending.add(pool.submit(new Callable<String>() {
+						@Override
+						public String call() {
+							return solveChunk(firstNumber, chunk);
+						}
+					}));
+					count += lines.size() / 2;
+					lines = new ArrayList<String>(CHUNK_SIZE * 2);
+				}
+				boolean atEnd = line == null;
+				while (!pending.isEmpty()
+						&& (atEnd || pending.size() >= maxPending)) {
+					output.write(await(pending.poll()));
+				}
+				if (atEnd) {
+					break;
+				}
+			}
+			output.flush();
+		} finally {
+			for (Future<String> future : pending) {
+				future.cancel(false);
+			}
+			pool.shutdown();
+		}
+		return count;
+	}
+
+	/**
+	 * Waits for the output of a chunk.
+	 * 
+	 * @param future
+	 *            the future for the output.
+	 * @return the output.
+	 * @throws IOException
+	 *             if the wait is interrupted.
+	 */
+	private static String await(Future<String> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while solving", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("A chunk failed to solve",
+					e.getCause());
+		}
+	}
+
+	/**
+	 * @param args
+	 *            the command-line arguments: the input file, the output file,
+	 *            optionally the number of worker threads, which defaults to
+	 *            the number of processors, and optionally a prefix for the
+	 *            metrics files, which are then written to prefix.prom and
+	 *            prefix.csv every 10 seconds and at the end.
+	 */
+	public static void main(String args[]) {
+		if (args.length < 2) {
+			System.err.println("Usage: EightPuzzleBatchSolver input output "
+					+ "[workers [metrics-prefix]]");
+			return;
+		}
+		int workers = Runtime.getRuntime().availableProcessors();
+		if (args.length > 2) {
+			workers = Integer.valueOf(args[2]);
+		}
+		EightPuzzleBatchSolver solver = new EightPuzzleBatchSolver();
+		MetricsDumper dumper = null;
+		if (args.length > 3) {
+			MetricsRegistry registry = new MetricsRegistry();
+			solver.setMetricsRegistry(registry);
+			dumper = new MetricsDumper(registry, new File(args[3] + ".prom"),
+					new File(args[3] + ".csv"));
+			dumper.start(METRICS_PERIOD_MILLIS);
+		}
+		long startTime = System.currentTimeMillis();
+		long count;
+		try {
+			BufferedReader input = new BufferedReader(new FileReader(args[0]),
+					1 << 16);
+			try {
+				Writer output = new BufferedWriter(new FileWriter(args[1]),
+						1 << 16);
+				try {
+					count = solver.run(input, output, workers);
+				} finally {
+					output.close();
+				}
+			} finally {
+				input.close();
+			}
+			if (dumper != null) {
+				dumper.close();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+		System.out.println("Solved " + count + " instances in "
+				+ (System.currentTimeMillis() - startTime) + "ms");
+	}
+}
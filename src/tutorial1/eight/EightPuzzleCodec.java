@@ -0,0 +1,55 @@
+package tutorial1.eight;
+
+import search.states.StateCodec;
+
+/**
+ * Encodes 8-puzzle states as the rank of their tile permutation, reading the
+ * tiles row by row; the codes run from 0 to 9! - 1, so they can also be used
+ * directly as indices into a table of all of the states.
+ * 
+ * @author lackofcheese
+ */
+public class EightPuzzleCodec implements StateCodec<EightPuzzleState> {
+	/** The number of tiles, including the blank. */
+	private static final int TILES = 9;
+	/** The factorials of 0 to 8. */
+	private static final int[] FACTORIALS = { 1, 1, 2, 6, 24, 120, 720,
+			5040, 40320 };
+
+	@Override
+	public long encode(EightPuzzleState s) {
+		// Each tile contributes the number of smaller tiles still unplaced,
+		// multiplied by the number of orderings of the remaining places.
+		int unused = (1 << TILES) - 1;
+		long code = 0;
+		for (int i = 0; i < TILES; i++) {
+			int tile = s.getValueAt(i / 3, i % 3);
+			int smaller = Integer.bitCount(unused & ((1 << tile) - 1));
+			code += smaller * FACTORIALS[TILES - 1 - i];
+			unused &= ~(1 << tile);
+		}
+		return code;
+	}
+
+	@Override
+	public EightPuzzleState decode(long code) {
+		if (code < 0 || code >= FACTORIALS[TILES - 1] * TILES) {
+			throw new IllegalArgumentException("Invalid 8-puzzle code "
+					+ code);
+		}
+		int[][] grid = new int[3][3];
+		int unused = (1 << TILES) - 1;
+		for (int i = 0; i < TILES; i++) {
+			int factorial = FACTORIALS[TILES - 1 - i];
+			int smaller = (int) (code / factorial);
+			code %= factorial;
+			int tile = Integer.numberOfTrailingZeros(unused);
+			for (; smaller > 0; smaller--) {
+				tile = Integer.numberOfTrailingZeros(unused & (-2 << tile));
+			}
+			unused &= ~(1 << tile);
+			grid[i / 3][i % 3] = tile;
+		}
+		return new EightPuzzleState(grid);
+	}
+}
@@ -0,0 +1,35 @@
+package tutorial1.eight;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import search.states.StateSerializer;
+
+/**
+ * Serializes 8-puzzle states as nine bytes, one per tile, row by row.
+ * 
+ * @author lackofcheese
+ */
+public class EightPuzzleSerializer implements
+		StateSerializer<EightPuzzleState> {
+	@Override
+	public void write(EightPuzzleState s, DataOutput out) throws IOException {
+		for (int row = 0; row < 3; row++) {
+			for (int col = 0; col < 3; col++) {
+				out.writeByte(s.getValueAt(row, col));
+			}
+		}
+	}
+
+	@Override
+	public EightPuzzleState read(DataInput in) throws IOException {
+		int[][] grid = new int[3][3];
+		for (int row = 0; row < 3; row++) {
+			for (int col = 0; col < 3; col++) {
+				grid[row][col] = in.readByte();
+			}
+		}
+		return new EightPuzzleState(grid);
+	}
+}
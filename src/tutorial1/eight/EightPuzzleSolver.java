@@ -11,6 +11,9 @@ import search.heuristics.*;
 import search.algorithms.*;
 import search.algorithms.norevisits.*;
 import search.algorithms.depthfirst.*;
+import search.algorithms.offheap.*;
+import search.algorithms.portfolio.*;
+import search.algorithms.jfr.*;
 
 /**
  * An implementation of the 8-puzzle problem from Tutorial 1.
@@ -36,10 +39,12 @@ public class EightPuzzleSolver {
 	 *             if there are issues reading the file.
 	 */
 	private static void readFile(String inputFileName) throws IOException {
+		LoadEvent event = new LoadEvent("instance", inputFileName);
 		BufferedReader input = new BufferedReader(new FileReader(inputFileName));
 		initialState = new EightPuzzleState(input.readLine());
 		goalState = new EightPuzzleState(input.readLine());
 		input.close();
+		event.finish(2);
 	}
 
 	/**
@@ -77,7 +82,19 @@ public class EightPuzzleSolver {
 		// goalTest, sf);
 		// algo = new AStarSearch<EightPuzzleState>(initialState, goalTest, sf,
 		// heuristic);
+		// algo = new OffHeapAStarSearch<EightPuzzleState>(initialState,
+		// goalTest, sf, heuristic, new EightPuzzleCodec(), 1000000, 362880);
+		// PortfolioSearch<EightPuzzleState> portfolio =
+		// new PortfolioSearch<EightPuzzleState>(initialState, goalTest, sf);
+		// portfolio.addMember("A*", new AStarSearch<EightPuzzleState>(
+		// initialState, goalTest, sf, heuristic), true);
+		// portfolio.addMember("IDS",
+		// new IterativeDeepeningSearch<EightPuzzleState>(initialState,
+		// goalTest, sf), true);
+		// algo = portfolio;
 
+		algo.setSearchListener(new JfrSearchListener<EightPuzzleState>(
+				"8-puzzle", new ProgressPrinter<EightPuzzleState>()));
 		algo.verboseSearch();
 	}
 }
\ No newline at end of file
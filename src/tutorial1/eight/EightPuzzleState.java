@@ -38,12 +38,20 @@ public class EightPuzzleState implements State {
 	 * the tile numbers separated by whitespace.
 	 * 
 	 * @param s
-	 *            the string containing the state representation.
+	 *            the string containing the state representation; the tiles
+	 *            must be the numbers from 0 to 8, each appearing once.
+	 * @throws IllegalArgumentException
+	 *             if the tiles are not the numbers from 0 to 8.
 	 */
 	public EightPuzzleState(String s) {
 		String[] values = s.split("\\s+");
+		boolean[] seen = new boolean[9];
 		for (int i = 0; i < 9; i++) {
 			int value = Integer.valueOf(values[i]);
+			if (value < 0 || value > 8 || seen[value]) {
+				throw new IllegalArgumentException("Invalid tile: " + value);
+			}
+			seen[value] = true;
 			rowNumbers[value] = i / 3;
 			colNumbers[value] = i % 3;
 			grid[i / 3][i % 3] = value;
@@ -0,0 +1,102 @@
+package tutorial1.grid;
+
+import search.states.State;
+
+/**
+ * An immutable representation of a single cell in a grid map. The row and
+ * column are packed together into a single int, so a cell is no more than a
+ * small wrapper around that int.
+ * 
+ * @author lackofcheese
+ */
+public class GridCell implements State {
+	/** The largest row or column number a cell can have. */
+	public static final int MAX_COORDINATE = 0xFFFF;
+
+	/** The row in the upper 16 bits, and the column in the lower 16 bits. */
+	private final int packed;
+
+	/**
+	 * Constructs a cell from a packed row and column, as returned by pack().
+	 * 
+	 * @param packed
+	 *            the packed row and column.
+	 */
+	public GridCell(int packed) {
+		this.packed = packed;
+	}
+
+	/**
+	 * Constructs the cell at the given column and row.
+	 * 
+	 * @param col
+	 *            the column.
+	 * @param row
+	 *            the row.
+	 */
+	public GridCell(int col, int row) {
+		this(pack(col, row));
+	}
+
+	/**
+	 * Packs a column and row into a single int.
+	 * 
+	 * @param col
+	 *            the column.
+	 * @param row
+	 *            the row.
+	 * @return the packed row and column.
+	 */
+	public static int pack(int col, int row) {
+		return (row << 16) | col;
+	}
+
+	/**
+	 * Returns the packed row and column of this cell.
+	 * 
+	 * @return the packed row and column.
+	 */
+	public int getPacked() {
+		return packed;
+	}
+
+	/**
+	 * Returns the column of this cell.
+	 * 
+	 * @return the column of this cell.
+	 */
+	public int getCol() {
+		return packed & 0xFFFF;
+	}
+
+	/**
+	 * Returns the row of this cell.
+	 * 
+	 * @return the row of this cell.
+	 */
+	public int getRow() {
+		return packed >>> 16;
+	}
+
+	/**
+	 * Returns a string representation of the cell, as (column, row).
+	 * 
+	 * @return a string representation of the cell.
+	 */
+	public String toString() {
+		return "(" + getCol() + "," + getRow() + ")";
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == null || !(obj instanceof GridCell)) {
+			return false;
+		}
+		return this.packed == ((GridCell) obj).packed;
+	}
+
+	@Override
+	public int hashCode() {
+		return packed;
+	}
+}
@@ -0,0 +1,24 @@
+package tutorial1.grid;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import search.states.StateSerializer;
+
+/**
+ * Serializes grid cells as their packed coordinates.
+ * 
+ * @author lackofcheese
+ */
+public class GridCellSerializer implements StateSerializer<GridCell> {
+	@Override
+	public void write(GridCell s, DataOutput out) throws IOException {
+		out.writeInt(s.getPacked());
+	}
+
+	@Override
+	public GridCell read(DataInput in) throws IOException {
+		return new GridCell(in.readInt());
+	}
+}
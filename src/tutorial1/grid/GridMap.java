@@ -0,0 +1,131 @@
+package tutorial1.grid;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A rectangular grid map in which each cell is either passable or blocked. The
+ * blocked cells are stored in a single BitSet, using one bit per cell.
+ * 
+ * Maps are read from a plain text format with one line per row and one
+ * character per cell, where '.', 'G' and 'S' are passable and anything else is
+ * blocked. The header used by the Moving AI benchmark maps ("type", "height",
+ * "width" and "map" lines) may also be present, and is skipped.
+ * 
+ * @author lackofcheese
+ */
+public class GridMap {
+	/** The number of columns. */
+	private int width;
+	/** The number of rows. */
+	private int height;
+	/** The blocked cells, indexed by row * width + column. */
+	private BitSet blocked;
+
+	/**
+	 * Constructs a map of the given size in which every cell is passable.
+	 * 
+	 * @param width
+	 *            the number of columns.
+	 * @param height
+	 *            the number of rows.
+	 */
+	public GridMap(int width, int height) {
+		if (width > GridCell.MAX_COORDINATE
+				|| height > GridCell.MAX_COORDINATE) {
+			throw new IllegalArgumentException("Map too large: " + width
+					+ "x" + height);
+		}
+		this.width = width;
+		this.height = height;
+		this.blocked = new BitSet(width * height);
+	}
+
+	/**
+	 * Reads a map from the given input, which should be positioned at the
+	 * start of the map; reading continues to the end of the input.
+	 * 
+	 * @param input
+	 *            the input to read from.
+	 * @return the map that was read.
+	 * @throws IOException
+	 *             if there are issues reading the input.
+	 */
+	public static GridMap read(BufferedReader input) throws IOException {
+		List<String> rows = new ArrayList<String>();
+		int width = 0;
+		String line;
+		while ((line = input.readLine()) != null) {
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("type ")
+					|| line.startsWith("height ") || line.startsWith("width ")
+					|| line.equals("map")) {
+				continue;
+			}
+			rows.add(line);
+			width = Math.max(width, line.length());
+		}
+
+		GridMap map = new GridMap(width, rows.size());
+		for (int row = 0; row < rows.size(); row++) {
+			String s = rows.get(row);
+			for (int col = 0; col < width; col++) {
+				char c = col < s.length() ? s.charAt(col) : '@';
+				if (c != '.' && c != 'G' && c != 'S') {
+					map.setBlocked(col, row, true);
+				}
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * Returns the number of columns.
+	 * 
+	 * @return the number of columns.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Returns the number of rows.
+	 * 
+	 * @return the number of rows.
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Marks the cell at the given column and row as blocked or passable.
+	 * 
+	 * @param col
+	 *            the column.
+	 * @param row
+	 *            the row.
+	 * @param isBlocked
+	 *            true if the cell should be blocked.
+	 */
+	public void setBlocked(int col, int row, boolean isBlocked) {
+		blocked.set(row * width + col, isBlocked);
+	}
+
+	/**
+	 * Returns true if the cell at the given column and row is within the map
+	 * and not blocked, and false otherwise.
+	 * 
+	 * @param col
+	 *            the column.
+	 * @param row
+	 *            the row.
+	 * @return true if the cell can be entered.
+	 */
+	public boolean isPassable(int col, int row) {
+		return col >= 0 && row >= 0 && col < width && row < height
+				&& !blocked.get(row * width + col);
+	}
+}
@@ -0,0 +1,82 @@
+package tutorial1.grid;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import search.sfs.SuccessorFunction;
+
+/**
+ * A successor function for 8-connected movement on a grid map. Straight moves
+ * cost 1 and diagonal moves cost the square root of 2; a diagonal move is only
+ * allowed if both of the cells it passes between are passable, so that paths
+ * never cut the corners of blocked cells.
+ * 
+ * @author lackofcheese
+ */
+public class GridSF implements SuccessorFunction<GridCell> {
+	/** The cost of a diagonal move. */
+	public static final double DIAGONAL_COST = Math.sqrt(2);
+
+	/** The map to move around in. */
+	private GridMap map;
+
+	/**
+	 * Constructs a successor function for the given map.
+	 * 
+	 * @param map
+	 *            the map.
+	 */
+	public GridSF(GridMap map) {
+		this.map = map;
+	}
+
+	/**
+	 * Returns the map this successor function moves around in.
+	 * 
+	 * @return the map.
+	 */
+	public GridMap getMap() {
+		return map;
+	}
+
+	@Override
+	public Map<GridCell, Double> getSuccessors(GridCell s) {
+		HashMap<GridCell, Double> map = new HashMap<GridCell, Double>();
+		int col = s.getCol();
+		int row = s.getRow();
+		for (int dr = -1; dr <= 1; dr++) {
+			for (int dc = -1; dc <= 1; dc++) {
+				if ((dc == 0 && dr == 0) || !canMove(col, row, dc, dr)) {
+					continue;
+				}
+				map.put(new GridCell(col + dc, row + dr),
+						(dc != 0 && dr != 0) ? DIAGONAL_COST : 1.0);
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * Returns true if a single move in the given direction is allowed from the
+	 * given cell.
+	 * 
+	 * @param col
+	 *            the column to move from.
+	 * @param row
+	 *            the row to move from.
+	 * @param dc
+	 *            the change in column; -1, 0 or 1.
+	 * @param dr
+	 *            the change in row; -1, 0 or 1.
+	 * @return true if the move is allowed.
+	 */
+	public boolean canMove(int col, int row, int dc, int dr) {
+		if (!map.isPassable(col + dc, row + dr)) {
+			return false;
+		}
+		if (dc == 0 || dr == 0) {
+			return true;
+		}
+		return map.isPassable(col + dc, row) && map.isPassable(col, row + dr);
+	}
+}
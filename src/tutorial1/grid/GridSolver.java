@@ -0,0 +1,79 @@
+package tutorial1.grid;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+
+import search.goals.*;
+import search.sfs.*;
+import search.heuristics.*;
+import search.algorithms.*;
+import search.algorithms.norevisits.*;
+
+/**
+ * Finds paths on 8-connected grid maps.
+ * 
+ * @author lackofcheese
+ */
+@SuppressWarnings("unused")
+public class GridSolver {
+	/** The default file to read input from. */
+	public static final String DEFAULT_INPUT = "src/grid.in";
+
+	/** The map to search in. */
+	private static GridMap map;
+	/** The initial cell for the search. */
+	private static GridCell initialState;
+	/** The goal cell for the search. */
+	private static GridCell goalState;
+
+	/**
+	 * Reads the search parameters from the given file name. The first line
+	 * holds the column and row of the initial cell followed by those of the
+	 * goal cell, and the rest of the file holds the map.
+	 * 
+	 * @param inputFileName
+	 *            the file to read.
+	 * @throws IOException
+	 *             if there are issues reading the file.
+	 */
+	private static void readFile(String inputFileName) throws IOException {
+		BufferedReader input = new BufferedReader(new FileReader(inputFileName));
+		String[] values = input.readLine().trim().split("\\s+");
+		initialState = new GridCell(Integer.valueOf(values[0]),
+				Integer.valueOf(values[1]));
+		goalState = new GridCell(Integer.valueOf(values[2]),
+				Integer.valueOf(values[3]));
+		map = GridMap.read(input);
+		input.close();
+	}
+
+	/**
+	 * @param args
+	 *            the command-line arguments. If any are given, the first will
+	 *            be taken as the file to read from.
+	 */
+	public static void main(String args[]) {
+		try {
+			if (args.length > 0) {
+				readFile(args[0]);
+			} else {
+				readFile(DEFAULT_INPUT);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+
+		GoalTest<GridCell> goalTest = new EqualGoalTest<GridCell>(goalState);
+		SuccessorFunction<GridCell> sf = new GridSF(map);
+		Heuristic<GridCell> heuristic = new OctileDistance(goalState);
+
+		AbstractSearchAlgorithm<GridCell> algo;
+		algo = new JumpPointSearch(map, initialState, goalState);
+		// algo = new AStarSearch<GridCell>(initialState, goalTest, sf,
+		// heuristic);
+
+		algo.verboseSearch();
+	}
+}
@@ -0,0 +1,220 @@
+package tutorial1.grid;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import search.algorithms.norevisits.AStarSearch;
+import search.goals.EqualGoalTest;
+
+/**
+ * An implementation of Jump Point Search, which is an A* search for uniform
+ * cost 8-connected grid maps that skips over the many symmetric paths such
+ * maps contain.
+ * 
+ * Instead of generating each of the neighbours of a cell, the search moves in
+ * a straight line in each useful direction until it reaches a "jump point";
+ * that is, the goal, or a cell where a path may need to turn because of a
+ * nearby blocked cell. Only jump points are placed in the queue, so on open
+ * maps the search only expands a tiny fraction of the cells A* would.
+ * 
+ * Moves are the same as those of GridSF, so the paths found have the same
+ * cost as those found by A* with that successor function; the path returned
+ * includes every cell along the way, not just the jump points.
+ * 
+ * @author lackofcheese
+ */
+public class JumpPointSearch extends AStarSearch<GridCell> {
+	/** The map to search in. */
+	private GridMap map;
+	/** The packed goal cell. */
+	private int goal;
+
+	/**
+	 * Constructs a jump point search with the given parameters.
+	 * 
+	 * @param map
+	 *            the map to search in.
+	 * @param root
+	 *            the initial cell.
+	 * @param goal
+	 *            the goal cell.
+	 */
+	public JumpPointSearch(GridMap map, GridCell root, GridCell goal) {
+		super(root, new EqualGoalTest<GridCell>(goal), new GridSF(map),
+				new OctileDistance(goal));
+		this.map = map;
+		this.goal = goal.getPacked();
+	}
+
+	@Override
+	public boolean processCurrentEntry() {
+		GridCell currentState = currentEntry.getState();
+		if (predMap.containsKey(currentState)) {
+			this.countDuplicate();
+			return false;
+		}
+		predMap.put(currentState, currentEntry.getPred());
+		if (currentState.getPacked() == goal) {
+			return true;
+		}
+
+		int col = currentState.getCol();
+		int row = currentState.getRow();
+		GridCell pred = currentEntry.getPred();
+		if (pred == null) {
+			// The initial cell has no direction, so all moves are tried.
+			for (int dr = -1; dr <= 1; dr++) {
+				for (int dc = -1; dc <= 1; dc++) {
+					if (dc != 0 || dr != 0) {
+						jumpFrom(col, row, dc, dr);
+					}
+				}
+			}
+			return false;
+		}
+
+		int dc = Integer.signum(col - pred.getCol());
+		int dr = Integer.signum(row - pred.getRow());
+		if (dc != 0 && dr != 0) {
+			// Diagonal; carry on, or continue along either component.
+			jumpFrom(col, row, 0, dr);
+			jumpFrom(col, row, dc, 0);
+			jumpFrom(col, row, dc, dr);
+		} else if (dc != 0) {
+			/*
+			 * Horizontal; carry on, and turn to a side only if the cell beside
+			 * the predecessor is blocked, as otherwise the turn would have
+			 * been as short from the predecessor.
+			 */
+			jumpFrom(col, row, dc, 0);
+			for (int side = -1; side <= 1; side += 2) {
+				if (!map.isPassable(col - dc, row + side)) {
+					jumpFrom(col, row, 0, side);
+					jumpFrom(col, row, dc, side);
+				}
+			}
+		} else {
+			// Vertical; likewise.
+			jumpFrom(col, row, 0, dr);
+			for (int side = -1; side <= 1; side += 2) {
+				if (!map.isPassable(col + side, row - dr)) {
+					jumpFrom(col, row, side, 0);
+					jumpFrom(col, row, side, dr);
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Jumps from the current cell in the given direction, and enqueues the
+	 * jump point reached, if any.
+	 * 
+	 * @param col
+	 *            the column of the current cell.
+	 * @param row
+	 *            the row of the current cell.
+	 * @param dc
+	 *            the change in column per step.
+	 * @param dr
+	 *            the change in row per step.
+	 */
+	private void jumpFrom(int col, int row, int dc, int dr) {
+		int packed = jump(col, row, dc, dr);
+		if (packed < 0) {
+			return;
+		}
+		GridCell s2 = new GridCell(packed);
+		this.countGenerated(1);
+		if (predMap.containsKey(s2)) {
+			this.countDuplicate();
+			return;
+		}
+		int steps = Math.max(Math.abs(s2.getCol() - col),
+				Math.abs(s2.getRow() - row));
+		double cost = (dc != 0 && dr != 0) ? steps * GridSF.DIAGONAL_COST
+				: steps;
+		this.enqueue(new QueueEntry(s2, currentEntry.getState(), currentEntry
+				.getDepth() + steps, currentEntry.getTotalCost() + cost,
+				heuristicEstimate(s2), null));
+	}
+
+	/**
+	 * Moves from the given cell in the given direction until a jump point is
+	 * reached, or the way is blocked.
+	 * 
+	 * @param col
+	 *            the column to start from.
+	 * @param row
+	 *            the row to start from.
+	 * @param dc
+	 *            the change in column per step.
+	 * @param dr
+	 *            the change in row per step.
+	 * @return the packed jump point, or -1 if there is none in this
+	 *         direction.
+	 */
+	private int jump(int col, int row, int dc, int dr) {
+		while (true) {
+			int c = col + dc;
+			int r = row + dr;
+			if (!map.isPassable(c, r)) {
+				return -1;
+			}
+			if (dc != 0 && dr != 0
+					&& (!map.isPassable(c, row) || !map.isPassable(col, r))) {
+				return -1;
+			}
+			int packed = GridCell.pack(c, r);
+			if (packed == goal) {
+				return packed;
+			}
+			if (dc != 0 && dr != 0) {
+				// A diagonal move stops wherever a straight jump would succeed.
+				if (jump(c, r, dc, 0) >= 0 || jump(c, r, 0, dr) >= 0) {
+					return packed;
+				}
+			} else if (dc != 0) {
+				// Stop next to a cell which was blocked one step back.
+				if ((map.isPassable(c, r - 1) && !map.isPassable(col, r - 1))
+						|| (map.isPassable(c, r + 1) && !map.isPassable(col,
+								r + 1))) {
+					return packed;
+				}
+			} else {
+				if ((map.isPassable(c - 1, r) && !map.isPassable(c - 1, row))
+						|| (map.isPassable(c + 1, r) && !map.isPassable(c + 1,
+								row))) {
+					return packed;
+				}
+			}
+			col = c;
+			row = r;
+		}
+	}
+
+	/**
+	 * Returns the path taken to reach the goal, including all of the cells
+	 * between successive jump points.
+	 */
+	@Override
+	public List<GridCell> getGoalPath() {
+		List<GridCell> jumpPoints = super.getGoalPath();
+		List<GridCell> path = new ArrayList<GridCell>();
+		path.add(jumpPoints.get(0));
+		for (int i = 1; i < jumpPoints.size(); i++) {
+			GridCell from = jumpPoints.get(i - 1);
+			GridCell to = jumpPoints.get(i);
+			int dc = Integer.signum(to.getCol() - from.getCol());
+			int dr = Integer.signum(to.getRow() - from.getRow());
+			int col = from.getCol();
+			int row = from.getRow();
+			while (col != to.getCol() || row != to.getRow()) {
+				col += dc;
+				row += dr;
+				path.add(new GridCell(col, row));
+			}
+		}
+		return path;
+	}
+}
@@ -0,0 +1,32 @@
+package tutorial1.grid;
+
+import search.heuristics.Heuristic;
+
+/**
+ * An admissible heuristic for 8-connected grid maps, which is the cost of the
+ * shortest path to the goal if there were no blocked cells.
+ * 
+ * @author lackofcheese
+ */
+public class OctileDistance implements Heuristic<GridCell> {
+	/** The goal cell. */
+	private GridCell goal;
+
+	/**
+	 * Constructs an octile distance heuristic to the given goal cell.
+	 * 
+	 * @param goal
+	 *            the goal cell.
+	 */
+	public OctileDistance(GridCell goal) {
+		this.goal = goal;
+	}
+
+	@Override
+	public double estimate(GridCell s) {
+		int dc = Math.abs(s.getCol() - goal.getCol());
+		int dr = Math.abs(s.getRow() - goal.getRow());
+		return Math.max(dc, dr) + (GridSF.DIAGONAL_COST - 1)
+				* Math.min(dc, dr);
+	}
+}
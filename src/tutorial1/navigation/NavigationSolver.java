@@ -14,6 +14,9 @@ import search.heuristics.*;
 import search.algorithms.*;
 import search.algorithms.norevisits.*;
 import search.algorithms.depthfirst.*;
+import search.algorithms.incremental.*;
+import search.algorithms.realtime.*;
+import search.algorithms.jfr.*;
 
 /**
  * An implementation of the navigation problem from Tutorial 1.
@@ -39,6 +42,24 @@ public class NavigationSolver {
 	 *             if there are issues reading the file.
 	 */
 	private static void readFile(String inputFileName) throws IOException {
+		readFile(inputFileName, sf, byName);
+	}
+
+	/**
+	 * Reads a navigation graph from the given file into the given mappings.
+	 * 
+	 * @param inputFileName
+	 *            the file to read.
+	 * @param sf
+	 *            the successor function to add the edges to.
+	 * @param byName
+	 *            the mapping to add the buildings to, by name.
+	 * @throws IOException
+	 *             if there are issues reading the file.
+	 */
+	public static void readFile(String inputFileName, MapSF<NamedState> sf,
+			Map<String, NamedState> byName) throws IOException {
+		LoadEvent event = new LoadEvent("graph", inputFileName);
 		BufferedReader input = new BufferedReader(new FileReader(inputFileName));
 		// Read the number of vertices from the file.
 		int numVertices = Integer.valueOf(input.readLine().trim());
@@ -63,6 +84,7 @@ public class NavigationSolver {
 			sf.addSuccessor(b1, b0, cost);
 		}
 		input.close();
+		event.finish(numVertices + numEdges);
 	}
 
 	/**
@@ -96,7 +118,13 @@ public class NavigationSolver {
 		algo = new DepthLimitedSearch<NamedState>(4, initialState, goalTest, sf);
 		// algo = new AStarSearch<NamedState>(initialState, goalTest, sf,
 		// heuristic);
+		// algo = new LPAStarSearch<NamedState>(initialState,
+		// byName.get("82D"), sf, heuristic);
+		// algo = new LRTAStarSearch<NamedState>(initialState, goalTest, sf,
+		// heuristic, 10);
 
+		algo.setSearchListener(new JfrSearchListener<NamedState>("navigation",
+				new ProgressPrinter<NamedState>()));
 		algo.verboseSearch();
 	}
 }
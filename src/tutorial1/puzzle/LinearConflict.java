@@ -0,0 +1,82 @@
+package tutorial1.puzzle;
+
+/**
+ * An admissible heuristic for sliding puzzles that adds linear conflicts to
+ * the total Manhattan distance.
+ * 
+ * Two tiles are in linear conflict if they are in the same row (or column) as
+ * each other and as both of their goal positions, but are in the wrong order;
+ * one of them must leave the line to let the other past, which takes at least
+ * two moves more than the Manhattan distance accounts for. For each line, the
+ * number of tiles that must leave it is the number of tiles in their goal line
+ * less the longest run of them that is already in the right order.
+ * 
+ * @author lackofcheese
+ */
+public class LinearConflict extends ManhattanDistance {
+	/**
+	 * Constructs a linear conflict heuristic to the given goal state.
+	 * 
+	 * @param goalState
+	 *            the goal state.
+	 */
+	public LinearConflict(SlidingPuzzleState goalState) {
+		super(goalState);
+	}
+
+	@Override
+	public double estimate(SlidingPuzzleState s) {
+		int[] line = new int[size];
+		int[] lengths = new int[size];
+		int conflicts = 0;
+		for (int i = 0; i < size; i++) {
+			// Row i; the goal columns of the tiles whose goal is in this row.
+			int count = 0;
+			for (int j = 0; j < size; j++) {
+				int tile = s.getTile(i * size + j);
+				if (tile != 0 && goalPositions[tile] / size == i) {
+					line[count++] = goalPositions[tile] % size;
+				}
+			}
+			conflicts += count - longestIncreasing(line, count, lengths);
+
+			// Column i; the goal rows of the tiles whose goal is in it.
+			count = 0;
+			for (int j = 0; j < size; j++) {
+				int tile = s.getTile(j * size + i);
+				if (tile != 0 && goalPositions[tile] % size == i) {
+					line[count++] = goalPositions[tile] / size;
+				}
+			}
+			conflicts += count - longestIncreasing(line, count, lengths);
+		}
+		return super.estimate(s) + 2 * conflicts;
+	}
+
+	/**
+	 * Returns the length of the longest increasing subsequence of the first
+	 * count values; since lines are short, a simple quadratic method is used.
+	 * 
+	 * @param values
+	 *            the values.
+	 * @param count
+	 *            the number of values to consider.
+	 * @param lengths
+	 *            space for working, with room for at least count values.
+	 * @return the length of the longest increasing subsequence.
+	 */
+	private static int longestIncreasing(int[] values, int count,
+			int[] lengths) {
+		int best = 0;
+		for (int i = 0; i < count; i++) {
+			lengths[i] = 1;
+			for (int j = 0; j < i; j++) {
+				if (values[j] < values[i] && lengths[j] + 1 > lengths[i]) {
+					lengths[i] = lengths[j] + 1;
+				}
+			}
+			best = Math.max(best, lengths[i]);
+		}
+		return best;
+	}
+}
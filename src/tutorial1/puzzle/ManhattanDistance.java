@@ -0,0 +1,51 @@
+package tutorial1.puzzle;
+
+import search.heuristics.Heuristic;
+
+/**
+ * An admissible heuristic for sliding puzzles of any size, based on the total
+ * Manhattan distance between the tiles and their proper locations. The
+ * distance of every tile from every position is precomputed.
+ * 
+ * @author lackofcheese
+ */
+public class ManhattanDistance implements Heuristic<SlidingPuzzleState> {
+	/** The distance of each tile at each position from its goal position. */
+	protected final int[][] distances;
+	/** The position of each tile in the goal state. */
+	protected final int[] goalPositions;
+	/** The number of rows and columns. */
+	protected final int size;
+
+	/**
+	 * Constructs a total Manhattan distance heuristic to the given goal state.
+	 * 
+	 * @param goalState
+	 *            the goal state.
+	 */
+	public ManhattanDistance(SlidingPuzzleState goalState) {
+		size = goalState.getPuzzle().getSize();
+		int cells = size * size;
+		goalPositions = new int[cells];
+		for (int pos = 0; pos < cells; pos++) {
+			goalPositions[goalState.getTile(pos)] = pos;
+		}
+		distances = new int[cells][cells];
+		for (int tile = 1; tile < cells; tile++) {
+			int goalPos = goalPositions[tile];
+			for (int pos = 0; pos < cells; pos++) {
+				distances[tile][pos] = Math.abs(pos / size - goalPos / size)
+						+ Math.abs(pos % size - goalPos % size);
+			}
+		}
+	}
+
+	@Override
+	public double estimate(SlidingPuzzleState s) {
+		int estimate = 0;
+		for (int pos = 0; pos < distances.length; pos++) {
+			estimate += distances[s.getTile(pos)][pos];
+		}
+		return estimate;
+	}
+}
@@ -0,0 +1,208 @@
+package tutorial1.puzzle;
+
+/**
+ * The fixed properties of an NxN sliding tile puzzle: its size, the layout
+ * used to pack boards into longs, and a precomputed table of the moves
+ * available from each position of the empty tile.
+ * 
+ * There is only one instance for each size, which is shared by all of the
+ * states, successor functions and heuristics for that size.
+ * 
+ * @author lackofcheese
+ */
+public class SlidingPuzzle {
+	/** The largest supported board size. */
+	public static final int MAX_SIZE = 8;
+	/** The instances created so far, indexed by size. */
+	private static final SlidingPuzzle[] INSTANCES =
+			new SlidingPuzzle[MAX_SIZE + 1];
+
+	/** The number of rows, which is also the number of columns. */
+	private final int size;
+	/** The number of bits used to store each tile. */
+	private final int bitsPerTile;
+	/** The number of tiles stored in each long. */
+	private final int tilesPerWord;
+	/** The number of longs needed to store a board. */
+	private final int words;
+	/** For each position, the positions the empty tile can move to. */
+	private final int[][] moves;
+
+	/**
+	 * Returns the puzzle with the given number of rows and columns.
+	 * 
+	 * @param size
+	 *            the number of rows and columns; between 2 and MAX_SIZE.
+	 * @return the puzzle of that size.
+	 */
+	public static synchronized SlidingPuzzle ofSize(int size) {
+		if (size < 2 || size > MAX_SIZE) {
+			throw new IllegalArgumentException("Unsupported puzzle size: "
+					+ size);
+		}
+		if (INSTANCES[size] == null) {
+			INSTANCES[size] = new SlidingPuzzle(size);
+		}
+		return INSTANCES[size];
+	}
+
+	/**
+	 * Parses a state from a string representation, which must be the tile
+	 * numbers separated by whitespace, row by row; the size of the puzzle is
+	 * determined from the number of tiles.
+	 * 
+	 * @param s
+	 *            the string containing the state representation.
+	 * @return the state.
+	 */
+	public static SlidingPuzzleState parse(String s) {
+		String[] values = s.trim().split("\\s+");
+		int size = (int) Math.round(Math.sqrt(values.length));
+		if (size * size != values.length) {
+			throw new IllegalArgumentException("Not a square board: " + s);
+		}
+		int[] tiles = new int[values.length];
+		for (int i = 0; i < values.length; i++) {
+			tiles[i] = Integer.valueOf(values[i]);
+		}
+		return ofSize(size).createState(tiles);
+	}
+
+	/**
+	 * Constructs the puzzle of the given size, and precomputes its move table.
+	 * 
+	 * @param size
+	 *            the number of rows and columns.
+	 */
+	private SlidingPuzzle(int size) {
+		this.size = size;
+		int cells = size * size;
+		this.bitsPerTile = 32 - Integer.numberOfLeadingZeros(cells - 1);
+		this.tilesPerWord = 64 / bitsPerTile;
+		this.words = (cells + tilesPerWord - 1) / tilesPerWord;
+
+		this.moves = new int[cells][];
+		int[] buffer = new int[4];
+		for (int pos = 0; pos < cells; pos++) {
+			int row = pos / size;
+			int col = pos % size;
+			int count = 0;
+			if (row > 0) {
+				buffer[count++] = pos - size;
+			}
+			if (row < size - 1) {
+				buffer[count++] = pos + size;
+			}
+			if (col > 0) {
+				buffer[count++] = pos - 1;
+			}
+			if (col < size - 1) {
+				buffer[count++] = pos + 1;
+			}
+			moves[pos] = new int[count];
+			System.arraycopy(buffer, 0, moves[pos], 0, count);
+		}
+	}
+
+	/**
+	 * Returns the number of rows, which is also the number of columns.
+	 * 
+	 * @return the size of the puzzle.
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of positions on the board.
+	 * 
+	 * @return the number of positions.
+	 */
+	public int getCells() {
+		return size * size;
+	}
+
+	/**
+	 * Returns the positions the empty tile can move to from the given
+	 * position. The returned array must not be modified.
+	 * 
+	 * @param pos
+	 *            the position of the empty tile.
+	 * @return the positions it can move to.
+	 */
+	public int[] getMoves(int pos) {
+		return moves[pos];
+	}
+
+	/**
+	 * Creates a state from the given tiles, listed row by row.
+	 * 
+	 * @param tiles
+	 *            the tiles; these must be the numbers from 0 to size*size-1,
+	 *            with 0 being the empty tile.
+	 * @return the state.
+	 */
+	public SlidingPuzzleState createState(int[] tiles) {
+		int cells = getCells();
+		if (tiles.length != cells) {
+			throw new IllegalArgumentException("Expected " + cells
+					+ " tiles, got " + tiles.length);
+		}
+		boolean[] seen = new boolean[cells];
+		long[] packed = new long[words];
+		int blank = -1;
+		for (int pos = 0; pos < cells; pos++) {
+			int tile = tiles[pos];
+			if (tile < 0 || tile >= cells || seen[tile]) {
+				throw new IllegalArgumentException("Invalid tile: " + tile);
+			}
+			seen[tile] = true;
+			if (tile == 0) {
+				blank = pos;
+			}
+			set(packed, pos, tile);
+		}
+		return new SlidingPuzzleState(this, packed, blank);
+	}
+
+	/**
+	 * Returns the number of longs needed to store a board.
+	 * 
+	 * @return the number of longs per board.
+	 */
+	int getWords() {
+		return words;
+	}
+
+	/**
+	 * Returns the tile at the given position of a packed board.
+	 * 
+	 * @param packed
+	 *            the packed board.
+	 * @param pos
+	 *            the position.
+	 * @return the tile at that position.
+	 */
+	int get(long[] packed, int pos) {
+		int shift = (pos % tilesPerWord) * bitsPerTile;
+		return (int) (packed[pos / tilesPerWord] >>> shift)
+				& ((1 << bitsPerTile) - 1);
+	}
+
+	/**
+	 * Sets the tile at the given position of a packed board.
+	 * 
+	 * @param packed
+	 *            the packed board.
+	 * @param pos
+	 *            the position.
+	 * @param tile
+	 *            the tile to place there.
+	 */
+	void set(long[] packed, int pos, int tile) {
+		int shift = (pos % tilesPerWord) * bitsPerTile;
+		long mask = ((1L << bitsPerTile) - 1) << shift;
+		int word = pos / tilesPerWord;
+		packed[word] = (packed[word] & ~mask) | ((long) tile << shift);
+	}
+}
@@ -0,0 +1,100 @@
+package tutorial1.puzzle;
+
+/**
+ * A mutable sliding tile puzzle board, used as the working state when moves
+ * are applied in place by SlidingPuzzleMoves.
+ * 
+ * @author lackofcheese
+ */
+public class SlidingPuzzleBoard {
+	/** The puzzle this is a board of. */
+	private final SlidingPuzzle puzzle;
+	/** The tiles, packed as in SlidingPuzzleState. */
+	private final long[] packed;
+	/** The position of the empty tile. */
+	private int blank;
+
+	/**
+	 * Constructs a board with the same tiles as the given state.
+	 * 
+	 * @param s
+	 *            the state.
+	 */
+	SlidingPuzzleBoard(SlidingPuzzleState s) {
+		this.puzzle = s.getPuzzle();
+		this.packed = new long[puzzle.getWords()];
+		for (int word = 0; word < packed.length; word++) {
+			packed[word] = s.getPacked(word);
+		}
+		this.blank = s.getBlank();
+	}
+
+	/**
+	 * Returns the puzzle this is a board of.
+	 * 
+	 * @return the puzzle.
+	 */
+	public SlidingPuzzle getPuzzle() {
+		return puzzle;
+	}
+
+	/**
+	 * Returns the tile at the given position.
+	 * 
+	 * @param pos
+	 *            the position, numbered row by row from 0.
+	 * @return the tile, or 0 for the empty tile.
+	 */
+	public int getTile(int pos) {
+		return puzzle.get(packed, pos);
+	}
+
+	/**
+	 * Returns the position of the empty tile.
+	 * 
+	 * @return the position of the empty tile.
+	 */
+	public int getBlank() {
+		return blank;
+	}
+
+	/**
+	 * Moves the tile at the given position into the empty position.
+	 * 
+	 * @param pos
+	 *            a position next to the empty tile.
+	 */
+	void slide(int pos) {
+		puzzle.set(packed, blank, puzzle.get(packed, pos));
+		puzzle.set(packed, pos, 0);
+		blank = pos;
+	}
+
+	/**
+	 * Returns true if the board has the same tiles as the given state.
+	 * 
+	 * @param s
+	 *            the state.
+	 * @return true if they are equal.
+	 */
+	boolean matches(SlidingPuzzleState s) {
+		if (s.getPuzzle() != puzzle || s.getBlank() != blank) {
+			return false;
+		}
+		for (int word = 0; word < packed.length; word++) {
+			if (packed[word] != s.getPacked(word)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a state with the same tiles as the board.
+	 * 
+	 * @return the state.
+	 */
+	SlidingPuzzleState toState() {
+		return new SlidingPuzzleState(puzzle, packed.clone(), blank);
+	}
+}
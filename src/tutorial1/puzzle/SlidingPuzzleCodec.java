@@ -0,0 +1,46 @@
+package tutorial1.puzzle;
+
+import search.states.StateCodec;
+
+/**
+ * Encodes the states of a sliding tile puzzle as their packed boards; this
+ * only works for puzzles whose boards fit into a single long, which includes
+ * the 8-puzzle and the 15-puzzle, but not the 24-puzzle or anything larger.
+ * The states of larger puzzles can still be checkpointed with a
+ * SlidingPuzzleSerializer, but cannot be used with the codec-based searches.
+ * 
+ * @author lackofcheese
+ */
+public class SlidingPuzzleCodec implements StateCodec<SlidingPuzzleState> {
+	/** The puzzle whose states are encoded. */
+	private final SlidingPuzzle puzzle;
+
+	/**
+	 * Constructs a codec for the states of the given puzzle.
+	 * 
+	 * @param puzzle
+	 *            the puzzle; its boards must fit into a single long.
+	 */
+	public SlidingPuzzleCodec(SlidingPuzzle puzzle) {
+		if (puzzle.getWords() != 1) {
+			throw new IllegalArgumentException("A " + puzzle.getSize() + "x"
+					+ puzzle.getSize() + " board does not fit into a long");
+		}
+		this.puzzle = puzzle;
+	}
+
+	@Override
+	public long encode(SlidingPuzzleState s) {
+		return s.getPacked(0);
+	}
+
+	@Override
+	public SlidingPuzzleState decode(long code) {
+		long[] packed = { code };
+		int blank = 0;
+		while (puzzle.get(packed, blank) != 0) {
+			blank++;
+		}
+		return new SlidingPuzzleState(puzzle, packed, blank);
+	}
+}
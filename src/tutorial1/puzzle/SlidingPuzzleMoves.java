@@ -0,0 +1,103 @@
+package tutorial1.puzzle;
+
+import search.sfs.MoveModel;
+
+/**
+ * The moves of a sliding tile puzzle, for searches that apply them in place.
+ * A move is the direction the empty tile moves in; UP and DOWN are inverses,
+ * as are LEFT and RIGHT, and every move costs 1.
+ * 
+ * @author lackofcheese
+ */
+public class SlidingPuzzleMoves implements
+		MoveModel<SlidingPuzzleState, SlidingPuzzleBoard> {
+	/** Moves the empty tile up a row. */
+	public static final int UP = 0;
+	/** Moves the empty tile down a row. */
+	public static final int DOWN = 1;
+	/** Moves the empty tile left a column. */
+	public static final int LEFT = 2;
+	/** Moves the empty tile right a column. */
+	public static final int RIGHT = 3;
+
+	@Override
+	public SlidingPuzzleBoard createWorking(SlidingPuzzleState s) {
+		return new SlidingPuzzleBoard(s);
+	}
+
+	@Override
+	public SlidingPuzzleState toState(SlidingPuzzleBoard w) {
+		return w.toState();
+	}
+
+	@Override
+	public boolean matches(SlidingPuzzleBoard w, SlidingPuzzleState s) {
+		return w.matches(s);
+	}
+
+	@Override
+	public int getMaxMoves() {
+		return 4;
+	}
+
+	@Override
+	public int getMoves(SlidingPuzzleBoard w, int[] moves) {
+		int size = w.getPuzzle().getSize();
+		int row = w.getBlank() / size;
+		int col = w.getBlank() % size;
+		int count = 0;
+		if (row > 0) {
+			moves[count++] = UP;
+		}
+		if (row < size - 1) {
+			moves[count++] = DOWN;
+		}
+		if (col > 0) {
+			moves[count++] = LEFT;
+		}
+		if (col < size - 1) {
+			moves[count++] = RIGHT;
+		}
+		return count;
+	}
+
+	@Override
+	public double apply(SlidingPuzzleBoard w, int move) {
+		w.slide(w.getBlank() + offset(w, move));
+		return 1;
+	}
+
+	@Override
+	public void undo(SlidingPuzzleBoard w, int move) {
+		w.slide(w.getBlank() - offset(w, move));
+	}
+
+	@Override
+	public int inverse(int move) {
+		return move ^ 1;
+	}
+
+	/**
+	 * Returns how far the empty tile's position changes with a move.
+	 * 
+	 * @param w
+	 *            the board.
+	 * @param move
+	 *            the move.
+	 * @return the change in position.
+	 */
+	private static int offset(SlidingPuzzleBoard w, int move) {
+		switch (move) {
+		case UP:
+			return -w.getPuzzle().getSize();
+		case DOWN:
+			return w.getPuzzle().getSize();
+		case LEFT:
+			return -1;
+		case RIGHT:
+			return 1;
+		default:
+			throw new IllegalArgumentException("Invalid move " + move);
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package tutorial1.puzzle;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import search.sfs.SuccessorFunction;
+
+/**
+ * A successor function; generates successor states for a sliding puzzle state
+ * of any size, using the puzzle's precomputed move table.
+ * 
+ * @author lackofcheese
+ */
+public class SlidingPuzzleSF implements SuccessorFunction<SlidingPuzzleState> {
+	@Override
+	public Map<SlidingPuzzleState, Double> getSuccessors(SlidingPuzzleState s) {
+		int[] moves = s.getPuzzle().getMoves(s.getBlank());
+		HashMap<SlidingPuzzleState, Double> map = new HashMap<SlidingPuzzleState, Double>();
+		for (int pos : moves) {
+			map.put(s.createMoved(pos), 1.0);
+		}
+		return map;
+	}
+}
@@ -0,0 +1,47 @@
+package tutorial1.puzzle;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import search.states.StateSerializer;
+
+/**
+ * Serializes sliding tile puzzle states as the size of the puzzle followed by
+ * the packed board.
+ * 
+ * @author lackofcheese
+ */
+public class SlidingPuzzleSerializer implements
+		StateSerializer<SlidingPuzzleState> {
+	@Override
+	public void write(SlidingPuzzleState s, DataOutput out)
+			throws IOException {
+		SlidingPuzzle puzzle = s.getPuzzle();
+		out.writeByte(puzzle.getSize());
+		for (int word = 0; word < puzzle.getWords(); word++) {
+			out.writeLong(s.getPacked(word));
+		}
+	}
+
+	@Override
+	public SlidingPuzzleState read(DataInput in) throws IOException {
+		int size = in.readByte();
+		if (size < 2 || size > SlidingPuzzle.MAX_SIZE) {
+			throw new IOException("Invalid puzzle size: " + size);
+		}
+		SlidingPuzzle puzzle = SlidingPuzzle.ofSize(size);
+		long[] packed = new long[puzzle.getWords()];
+		for (int word = 0; word < packed.length; word++) {
+			packed[word] = in.readLong();
+		}
+		int blank = 0;
+		while (blank < puzzle.getCells() && puzzle.get(packed, blank) != 0) {
+			blank++;
+		}
+		if (blank == puzzle.getCells()) {
+			throw new IOException("Board has no empty tile");
+		}
+		return new SlidingPuzzleState(puzzle, packed, blank);
+	}
+}
@@ -0,0 +1,106 @@
+package tutorial1.puzzle;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+import search.goals.*;
+import search.sfs.*;
+import search.heuristics.*;
+import search.algorithms.*;
+import search.algorithms.norevisits.*;
+import search.algorithms.depthfirst.*;
+import search.algorithms.anytime.*;
+import search.algorithms.memorybounded.*;
+import search.algorithms.external.*;
+import search.algorithms.frontier.*;
+import search.algorithms.offheap.*;
+
+/**
+ * Solves sliding tile puzzles of any size, such as the 15-puzzle and the
+ * 24-puzzle. The input format is the same as that of the 8-puzzle solver, and
+ * the size of the puzzle is determined from the number of tiles.
+ * 
+ * @author lackofcheese
+ */
+@SuppressWarnings("unused")
+public class SlidingPuzzleSolver {
+	/** The default file to read input from. */
+	public static final String DEFAULT_INPUT = "src/fifteen.in";
+
+	/** The initial state for the search. */
+	private static SlidingPuzzleState initialState;
+	/** The goal state for the search */
+	private static SlidingPuzzleState goalState;
+
+	/**
+	 * Reads the search parameters from the given file name.
+	 * 
+	 * @param inputFileName
+	 *            the file to read.
+	 * @throws IOException
+	 *             if there are issues reading the file.
+	 */
+	private static void readFile(String inputFileName) throws IOException {
+		BufferedReader input = new BufferedReader(new FileReader(inputFileName));
+		initialState = SlidingPuzzle.parse(input.readLine());
+		goalState = SlidingPuzzle.parse(input.readLine());
+		input.close();
+		if (initialState.getPuzzle() != goalState.getPuzzle()) {
+			throw new IOException("The initial and goal states differ in size");
+		}
+	}
+
+	/**
+	 * @param args
+	 *            the command-line arguments. If any are given, the first will
+	 *            be taken as the file to read from.
+	 */
+	public static void main(String args[]) {
+		try {
+			if (args.length > 0) {
+				readFile(args[0]);
+			} else {
+				readFile(DEFAULT_INPUT);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+
+		GoalTest<SlidingPuzzleState> goalTest = new EqualGoalTest<SlidingPuzzleState>(
+				goalState);
+		SuccessorFunction<SlidingPuzzleState> sf = new SlidingPuzzleSF();
+		Heuristic<SlidingPuzzleState> heuristic;
+		heuristic = new LinearConflict(goalState);
+		// heuristic = new ManhattanDistance(goalState);
+
+		AbstractSearchAlgorithm<SlidingPuzzleState> algo;
+		algo = new AStarSearch<SlidingPuzzleState>(initialState, goalTest, sf,
+				heuristic);
+		// algo = new IterativeDeepeningSearch<SlidingPuzzleState>(
+		// initialState, goalTest, sf);
+		// algo = new InPlaceIterativeDeepeningSearch<SlidingPuzzleState,
+		// SlidingPuzzleBoard>(initialState, goalTest, new SlidingPuzzleMoves());
+		// algo = new BreadthFirstSearch<SlidingPuzzleState>(initialState,
+		// goalTest, sf);
+		// algo = new ARAStarSearch<SlidingPuzzleState>(initialState, goalTest,
+		// sf, heuristic, 3.0, 0.5);
+		// algo = new SMAStarSearch<SlidingPuzzleState>(initialState, goalTest,
+		// sf, heuristic, 1000000);
+		// algo = new ExternalBreadthFirstSearch<SlidingPuzzleState>(
+		// initialState, goalTest, sf, new SlidingPuzzleCodec(
+		// initialState.getPuzzle()), new File("."));
+		// algo = new FrontierSearch<SlidingPuzzleState>(initialState, goalTest,
+		// sf, heuristic);
+		// algo = new CompactAStarSearch<SlidingPuzzleState>(initialState,
+		// goalTest, sf, heuristic);
+		// algo = new OffHeapAStarSearch<SlidingPuzzleState>(initialState,
+		// goalTest, sf, heuristic, new SlidingPuzzleCodec(
+		// initialState.getPuzzle()), 100000000L, 100000000L);
+
+		algo.setSearchListener(new ProgressPrinter<SlidingPuzzleState>());
+		algo.verboseSearch();
+	}
+}
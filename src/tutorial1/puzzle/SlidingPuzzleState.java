@@ -0,0 +1,148 @@
+package tutorial1.puzzle;
+
+import java.util.Arrays;
+
+import search.states.State;
+
+/**
+ * An immutable representation of a state of an NxN sliding tile puzzle. The
+ * tiles are packed into longs, using as few bits per tile as the size allows;
+ * the boards of the 8-puzzle and 15-puzzle fit into a single long.
+ * 
+ * @author lackofcheese
+ */
+public class SlidingPuzzleState implements State {
+	/** The puzzle this is a state of. */
+	private final SlidingPuzzle puzzle;
+	/** The packed tiles. */
+	private final long[] packed;
+	/** The position of the empty tile. */
+	private final int blank;
+	/** The hash code, computed once. */
+	private final int hash;
+
+	/**
+	 * Constructs a state from packed tiles; the array is not copied, and must
+	 * not be modified afterwards.
+	 * 
+	 * @param puzzle
+	 *            the puzzle.
+	 * @param packed
+	 *            the packed tiles.
+	 * @param blank
+	 *            the position of the empty tile.
+	 */
+	SlidingPuzzleState(SlidingPuzzle puzzle, long[] packed, int blank) {
+		this.puzzle = puzzle;
+		this.packed = packed;
+		this.blank = blank;
+		this.hash = Arrays.hashCode(packed);
+	}
+
+	/**
+	 * Returns the puzzle this is a state of.
+	 * 
+	 * @return the puzzle.
+	 */
+	public SlidingPuzzle getPuzzle() {
+		return puzzle;
+	}
+
+	/**
+	 * Returns the tile at the given position, numbering the positions row by
+	 * row from zero.
+	 * 
+	 * @param pos
+	 *            the position.
+	 * @return the tile at that position.
+	 */
+	public int getTile(int pos) {
+		return puzzle.get(packed, pos);
+	}
+
+	/**
+	 * Returns the position of the empty tile.
+	 * 
+	 * @return the position of the empty tile.
+	 */
+	public int getBlank() {
+		return blank;
+	}
+
+	/**
+	 * Returns the packed tiles in the given long of the board. A board of up
+	 * to 4x4 is held entirely in word 0.
+	 * 
+	 * @param word
+	 *            the index of the long.
+	 * @return the packed tiles.
+	 */
+	public long getPacked(int word) {
+		return packed[word];
+	}
+
+	/**
+	 * Returns the tiles of this state, row by row.
+	 * 
+	 * @return the tiles.
+	 */
+	public int[] getTiles() {
+		int[] tiles = new int[puzzle.getCells()];
+		for (int pos = 0; pos < tiles.length; pos++) {
+			tiles[pos] = getTile(pos);
+		}
+		return tiles;
+	}
+
+	/**
+	 * Returns a new state in which the empty tile has moved to the given
+	 * position, which should be one of the moves available to it.
+	 * 
+	 * @param pos
+	 *            the position to move the empty tile to.
+	 * @return the new state.
+	 */
+	public SlidingPuzzleState createMoved(int pos) {
+		long[] newPacked = packed.clone();
+		puzzle.set(newPacked, blank, getTile(pos));
+		puzzle.set(newPacked, pos, 0);
+		return new SlidingPuzzleState(puzzle, newPacked, pos);
+	}
+
+	/**
+	 * Returns a string representation, which uses newlines and spaces to
+	 * display the 2D configuration.
+	 * 
+	 * @return a string representation of the state.
+	 */
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("\n");
+		int size = puzzle.getSize();
+		for (int i = 0; i < size; i++) {
+			builder.append("\n");
+			for (int j = 0; j < size; j++) {
+				if (j > 0) {
+					builder.append(" ");
+				}
+				builder.append(getTile(i * size + j));
+			}
+		}
+		return builder.toString();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == null || !(obj instanceof SlidingPuzzleState)) {
+			return false;
+		}
+		SlidingPuzzleState otherState = (SlidingPuzzleState) obj;
+		return this.puzzle == otherState.puzzle
+				&& Arrays.equals(this.packed, otherState.packed);
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+}
@@ -0,0 +1,150 @@
+package tutorial1.puzzle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import search.states.Canonicalizer;
+
+/**
+ * Canonicalizes sliding puzzle states under the symmetries of the board that
+ * also preserve a given goal.
+ * 
+ * A symmetry of the square board (a rotation or reflection) moves each tile
+ * to a new position; the tiles are then relabelled so that the goal maps to
+ * itself, i.e. a tile is renamed to whichever goal tile sits where its own
+ * goal position is moved to. The image of a state then has the same distance
+ * to the goal as the state itself. The empty tile cannot be relabelled, so
+ * only the symmetries which keep the goal's empty position fixed are used;
+ * for a goal with the empty tile in a corner, this is the reflection about
+ * the diagonal through that corner, and for one with it in the centre, all
+ * eight symmetries of the square.
+ * 
+ * The canonical form of a state is whichever of its images has the smallest
+ * packed board.
+ * 
+ * @author lackofcheese
+ */
+public class SlidingPuzzleSymmetry implements
+		Canonicalizer<SlidingPuzzleState> {
+	/** The puzzle whose states are canonicalized. */
+	private final SlidingPuzzle puzzle;
+	/** The new position of each position, for each symmetry used. */
+	private final List<int[]> positionMaps = new ArrayList<int[]>();
+	/** The new label of each tile, for each symmetry used. */
+	private final List<int[]> tileMaps = new ArrayList<int[]>();
+
+	/**
+	 * Constructs a canonicalizer for the symmetries preserving the given goal.
+	 * 
+	 * @param goal
+	 *            the goal state.
+	 */
+	public SlidingPuzzleSymmetry(SlidingPuzzleState goal) {
+		this.puzzle = goal.getPuzzle();
+		int size = puzzle.getSize();
+		int cells = puzzle.getCells();
+		int[] goalPos = new int[cells];
+		for (int pos = 0; pos < cells; pos++) {
+			goalPos[goal.getTile(pos)] = pos;
+		}
+		// Each of the other seven symmetries of the square is a combination
+		// of a transposition and reflections of the rows and columns.
+		for (int k = 1; k < 8; k++) {
+			boolean transpose = (k & 1) != 0;
+			boolean flipRows = (k & 2) != 0;
+			boolean flipCols = (k & 4) != 0;
+			int[] positionMap = new int[cells];
+			for (int pos = 0; pos < cells; pos++) {
+				int row = pos / size;
+				int col = pos % size;
+				if (transpose) {
+					int temp = row;
+					row = col;
+					col = temp;
+				}
+				if (flipRows) {
+					row = size - 1 - row;
+				}
+				if (flipCols) {
+					col = size - 1 - col;
+				}
+				positionMap[pos] = row * size + col;
+			}
+			if (positionMap[goalPos[0]] != goalPos[0]) {
+				continue;
+			}
+			int[] tileMap = new int[cells];
+			for (int tile = 0; tile < cells; tile++) {
+				tileMap[tile] = goal.getTile(positionMap[goalPos[tile]]);
+			}
+			positionMaps.add(positionMap);
+			tileMaps.add(tileMap);
+		}
+	}
+
+	/**
+	 * Returns the number of symmetries used, including the identity.
+	 * 
+	 * @return the size of the symmetry group.
+	 */
+	public int getGroupSize() {
+		return positionMaps.size() + 1;
+	}
+
+	/**
+	 * Returns the image of a state under one of the symmetries.
+	 * 
+	 * @param s
+	 *            the state.
+	 * @param symmetry
+	 *            the index of the symmetry, from 1 to getGroupSize() - 1; 0 is
+	 *            the identity.
+	 * @return the image of the state.
+	 */
+	public SlidingPuzzleState transform(SlidingPuzzleState s, int symmetry) {
+		if (symmetry == 0) {
+			return s;
+		}
+		int[] positionMap = positionMaps.get(symmetry - 1);
+		int[] tileMap = tileMaps.get(symmetry - 1);
+		long[] packed = new long[puzzle.getWords()];
+		for (int pos = 0; pos < positionMap.length; pos++) {
+			puzzle.set(packed, positionMap[pos], tileMap[s.getTile(pos)]);
+		}
+		return new SlidingPuzzleState(puzzle, packed,
+				positionMap[s.getBlank()]);
+	}
+
+	@Override
+	public SlidingPuzzleState canonical(SlidingPuzzleState s) {
+		SlidingPuzzleState best = s;
+		for (int symmetry = 1; symmetry < getGroupSize(); symmetry++) {
+			SlidingPuzzleState image = transform(s, symmetry);
+			if (compare(image, best) < 0) {
+				best = image;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Compares the packed boards of two states.
+	 * 
+	 * @param a
+	 *            the first state.
+	 * @param b
+	 *            the second state.
+	 * @return a negative number, zero, or a positive number as the first
+	 *         board is less than, equal to, or greater than the second.
+	 */
+	private int compare(SlidingPuzzleState a, SlidingPuzzleState b) {
+		for (int word = 0; word < puzzle.getWords(); word++) {
+			int result = Long.compareUnsigned(a.getPacked(word),
+					b.getPacked(word));
+			if (result != 0) {
+				return result;
+			}
+		}
+		return 0;
+	}
+}